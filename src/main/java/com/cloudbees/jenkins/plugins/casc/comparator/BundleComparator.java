@@ -2,16 +2,32 @@ package com.cloudbees.jenkins.plugins.casc.comparator;
 
 import com.cloudbees.jenkins.cjp.installmanager.casc.BundleLoader;
 import com.cloudbees.jenkins.cjp.installmanager.casc.validation.PathPlainBundle;
+import com.cloudbees.jenkins.plugins.casc.YamlClientUtils;
+import edu.umd.cs.findbugs.annotations.CheckForNull;
 import edu.umd.cs.findbugs.annotations.NonNull;
+import net.sf.json.JSONArray;
+import net.sf.json.JSONObject;
+import org.apache.commons.lang.StringUtils;
 import org.kohsuke.accmod.restrictions.suppressions.SuppressRestrictedWarnings;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 /**
@@ -20,6 +36,18 @@ import java.util.stream.Collectors;
 // TODO See if it should go into another repository to be available in other plugins.
 public class BundleComparator {
 
+    private static final Logger LOGGER = Logger.getLogger(BundleComparator.class.getName());
+
+    /**
+     * Variable references, as in ${name} or ${name:-default}. Escaped references (^${name}) are not taken into account
+     */
+    private static final Pattern VARIABLE_REFERENCE = Pattern.compile("(?<!\\^)\\$\\{([^}:\\s]+)(?::-[^}]*)?}");
+
+    /**
+     * Sections whose files can reference variables
+     */
+    private static final List<String> REFERENCING_SECTIONS = Collections.unmodifiableList(Arrays.asList("jcasc", "items", "rbac", "catalog", "plugins"));
+
     /**
      * Compare two bundles
      * @param origin Path to the reference bundle
@@ -59,17 +87,152 @@ public class BundleComparator {
         private final SectionDiff catalog;
         private final SectionDiff plugins;
         private final SectionDiff variables;
+        private final Set<String> jcascChangedRoots;
+        private final Set<String> jcascRemovedRoots;
+        private final Set<String> changedItems;
+        private final Set<String> changedVariables;
+        private final Map<String, Set<String>> filesAffectedByVariables;
+        private final boolean catalogEffectivelyChanged;
+        private final boolean descriptorMetadataOnly;
 
         private Result(@NonNull PathPlainBundle origin, @NonNull PathPlainBundle other) {
             this.origin = origin;
             this.other = other;
-            this.jcasc = new SectionDiff("jcasc", origin, other);
-            this.items = new SectionDiff("items", origin, other);
-            this.rbac = new SectionDiff("rbac", origin, other);
-            this.catalog = new SectionDiff("catalog", origin, other);
-            this.plugins = new SectionDiff("plugins", origin, other);
-            this.variables = new SectionDiff("variables", origin, other);
+            // Precompiled digests and variables, if available, to avoid reading the files
+            BundleSnapshot originSnapshot = origin.getBundlePath() != null ? BundleSnapshot.read(origin.getBundlePath()) : null;
+            BundleSnapshot otherSnapshot = other.getBundlePath() != null ? BundleSnapshot.read(other.getBundlePath()) : null;
+            this.jcasc = new SectionDiff("jcasc", origin, other, originSnapshot, otherSnapshot);
+            this.items = new SectionDiff("items", origin, other, originSnapshot, otherSnapshot);
+            this.rbac = new SectionDiff("rbac", origin, other, originSnapshot, otherSnapshot);
+            this.catalog = new SectionDiff("catalog", origin, other, originSnapshot, otherSnapshot);
+            this.plugins = new SectionDiff("plugins", origin, other, originSnapshot, otherSnapshot);
+            this.variables = new SectionDiff("variables", origin, other, originSnapshot, otherSnapshot);
             this.sameBundles = checkSameBundles();
+            this.descriptorMetadataOnly = checkDescriptorMetadataOnly();
+            // Calculated eagerly, as the origin bundle folder might be replaced by the other bundle when promoted
+            this.changedVariables = variables.withChanges() ? readChangedVariables(origin, other) : Collections.emptySet();
+            this.filesAffectedByVariables = changedVariables == null ? null : findFilesUsing(other, otherSnapshot, changedVariables);
+            boolean jcascToCompare = jcasc.withChanges() || (changedVariables != null && !changedVariables.isEmpty());
+            Map<String, List<Object>> originRoots = jcascToCompare ? readJcascRoots(origin) : Collections.emptyMap();
+            Map<String, List<Object>> otherRoots = jcascToCompare ? readJcascRoots(other) : Collections.emptyMap();
+            if (originRoots == null || otherRoots == null || changedVariables == null) {
+                this.jcascChangedRoots = null;
+                this.jcascRemovedRoots = null;
+            } else {
+                // A root element must be applied again if its content changed or if it uses some variable with a new value
+                this.jcascChangedRoots = otherRoots.entrySet().stream().filter(e -> !Objects.equals(originRoots.get(e.getKey()), e.getValue())
+                                                                                    || !Collections.disjoint(findVariables(String.valueOf(e.getValue())), changedVariables))
+                                                   .map(Map.Entry::getKey).collect(Collectors.toCollection(TreeSet::new));
+                this.jcascRemovedRoots = originRoots.keySet().stream().filter(root -> !otherRoots.containsKey(root))
+                                                    .collect(Collectors.toCollection(TreeSet::new));
+            }
+            boolean itemsToCompare = items.withChanges() || (changedVariables != null && !changedVariables.isEmpty());
+            Map<String, Object> originItems = itemsToCompare ? readItems(origin) : Collections.emptyMap();
+            Map<String, Object> otherItems = itemsToCompare ? readItems(other) : Collections.emptyMap();
+            if (originItems == null || otherItems == null || changedVariables == null) {
+                this.changedItems = null;
+            } else {
+                // Same as the root elements, an item is applied again if its definition changed or if it uses a variable with a new value
+                this.changedItems = otherItems.entrySet().stream().filter(e -> !Objects.equals(originItems.get(e.getKey()), e.getValue())
+                                                                             || !Collections.disjoint(findVariables(String.valueOf(e.getValue())), changedVariables))
+                                              .map(Map.Entry::getKey).collect(Collectors.toCollection(TreeSet::new));
+            }
+            if (catalog.withChanges()) {
+                List<Object> originCatalog = readCatalog(origin);
+                List<Object> otherCatalog = readCatalog(other);
+                this.catalogEffectivelyChanged = originCatalog == null || otherCatalog == null || !originCatalog.equals(otherCatalog);
+            } else {
+                this.catalogEffectivelyChanged = false;
+            }
+        }
+
+        private Result(@NonNull JSONObject json) {
+            this.origin = new PathPlainBundle(Path.of(json.getString("origin")));
+            this.other = new PathPlainBundle(Path.of(json.getString("other")));
+            this.sameBundles = json.getBoolean("same-bundles");
+            this.jcasc = new SectionDiff(json.getJSONObject("jcasc"));
+            this.items = new SectionDiff(json.getJSONObject("items"));
+            this.rbac = new SectionDiff(json.getJSONObject("rbac"));
+            this.catalog = new SectionDiff(json.getJSONObject("catalog"));
+            this.plugins = new SectionDiff(json.getJSONObject("plugins"));
+            this.variables = new SectionDiff(json.getJSONObject("variables"));
+            this.jcascChangedRoots = toSet(json, "jcasc-changed-roots");
+            this.jcascRemovedRoots = toSet(json, "jcasc-removed-roots");
+            this.changedItems = toSet(json, "changed-items");
+            this.changedVariables = toSet(json, "changed-variables");
+            if (json.has("files-affected-by-variables")) {
+                JSONObject affected = json.getJSONObject("files-affected-by-variables");
+                Map<String, Set<String>> files = new HashMap<>();
+                for (Object section : affected.keySet()) {
+                    files.put((String) section, toSet(affected, (String) section));
+                }
+                this.filesAffectedByVariables = files;
+            } else {
+                this.filesAffectedByVariables = null;
+            }
+            this.catalogEffectivelyChanged = json.getBoolean("catalog-effectively-changed");
+            this.descriptorMetadataOnly = json.getBoolean("descriptor-metadata-only");
+        }
+
+        /**
+         * Restores a result kept with {@link #toJSON()}, without reading the compared bundles again
+         * @param json the result in JSON format
+         * @return the result
+         * @throws net.sf.json.JSONException if the JSON is not a result
+         */
+        @NonNull
+        public static Result fromJSON(@NonNull JSONObject json) {
+            return new Result(json);
+        }
+
+        /**
+         * Return the result in JSON format, so it can be kept and restored with {@link #fromJSON(JSONObject)}
+         */
+        @NonNull
+        public JSONObject toJSON() {
+            JSONObject json = new JSONObject();
+            json.element("origin", origin.getBundlePath().toString())
+                .element("other", other.getBundlePath().toString())
+                .element("same-bundles", sameBundles)
+                .element("jcasc", jcasc.toJSON())
+                .element("items", items.toJSON())
+                .element("rbac", rbac.toJSON())
+                .element("catalog", catalog.toJSON())
+                .element("plugins", plugins.toJSON())
+                .element("variables", variables.toJSON())
+                .element("catalog-effectively-changed", catalogEffectivelyChanged)
+                .element("descriptor-metadata-only", descriptorMetadataOnly);
+            // Unknown changes are kept as absent keys
+            if (jcascChangedRoots != null) {
+                json.element("jcasc-changed-roots", JSONArray.fromObject(jcascChangedRoots));
+            }
+            if (jcascRemovedRoots != null) {
+                json.element("jcasc-removed-roots", JSONArray.fromObject(jcascRemovedRoots));
+            }
+            if (changedItems != null) {
+                json.element("changed-items", JSONArray.fromObject(changedItems));
+            }
+            if (changedVariables != null) {
+                json.element("changed-variables", JSONArray.fromObject(changedVariables));
+            }
+            if (filesAffectedByVariables != null) {
+                JSONObject affected = new JSONObject();
+                filesAffectedByVariables.forEach((section, files) -> affected.element(section, JSONArray.fromObject(files)));
+                json.element("files-affected-by-variables", affected);
+            }
+            return json;
+        }
+
+        @CheckForNull
+        private static Set<String> toSet(@NonNull JSONObject json, @NonNull String key) {
+            if (!json.has(key)) {
+                return null;
+            }
+            Set<String> values = new TreeSet<>();
+            for (Object value : json.getJSONArray(key)) {
+                values.add(String.valueOf(value));
+            }
+            return values;
         }
 
         /**
@@ -144,6 +307,347 @@ public class BundleComparator {
             return variables;
         }
 
+        /**
+         * Return the JCasC root elements (jenkins, unclassified, tool, etc.) added or with changes in their content.
+         * @return the root elements, or null if the JCasC files cannot be parsed, so the changes are unknown
+         */
+        @CheckForNull
+        public Set<String> getJcascChangedRoots() {
+            return jcascChangedRoots == null ? null : Collections.unmodifiableSet(jcascChangedRoots);
+        }
+
+        /**
+         * Return the JCasC root elements (jenkins, unclassified, tool, etc.) found in the reference bundle but not in the other bundle.
+         * @return the root elements, or null if the JCasC files cannot be parsed, so the changes are unknown
+         */
+        @CheckForNull
+        public Set<String> getJcascRemovedRoots() {
+            return jcascRemovedRoots == null ? null : Collections.unmodifiableSet(jcascRemovedRoots);
+        }
+
+        /**
+         * Return the items, by full name, defined in the other bundle and not in the reference bundle, or with changes in their definition.
+         * The definition of a folder doesn't include the items inside it, so a folder doesn't change because of its items.
+         * @return the full names of the items, or null if the items files cannot be parsed, so the changes are unknown
+         */
+        @CheckForNull
+        public Set<String> getChangedItems() {
+            return changedItems == null ? null : Collections.unmodifiableSet(changedItems);
+        }
+
+        /**
+         * Return the variables added, removed or with a different value
+         * @return the variable names, or null if the variables files cannot be parsed, so the changes are unknown
+         */
+        @CheckForNull
+        public Set<String> getChangedVariables() {
+            return changedVariables == null ? null : Collections.unmodifiableSet(changedVariables);
+        }
+
+        /**
+         * Return the files in a section of the other bundle using some variable with changes
+         * @param section jcasc, items, rbac, catalog or plugins
+         * @return the file names, or null if the changes in variables are unknown
+         */
+        @CheckForNull
+        public Set<String> getFilesAffectedByVariables(@NonNull String section) {
+            if (filesAffectedByVariables == null) {
+                return null;
+            }
+            return Collections.unmodifiableSet(filesAffectedByVariables.getOrDefault(section, Collections.emptySet()));
+        }
+
+        /**
+         * Check if a section of the other bundle uses some variable with changes, so it must be reloaded even if its files are the same
+         * @param section jcasc, items, rbac, catalog or plugins
+         * @return true if the section uses some changed variable or if the changes in variables are unknown
+         */
+        public boolean isAffectedByVariables(@NonNull String section) {
+            Set<String> files = getFilesAffectedByVariables(section);
+            return files == null || !files.isEmpty();
+        }
+
+        /**
+         * Check if the only differences between the bundles are in the metadata of the descriptor (version and description),
+         * so the other bundle can be promoted without validating nor reloading it, as it would apply exactly the same configuration.
+         * @return true if the descriptor metadata is the only change
+         */
+        public boolean isDescriptorMetadataOnlyChange() {
+            return descriptorMetadataOnly;
+        }
+
+        /**
+         * Check if the plugin catalog changes its effective content: the catalog name, the prerequisites or the plugins
+         * included by any of the configurations. Changes in the format, in the order of the keys or in the descriptive
+         * fields (displayName, description, version) are not taken into account.
+         * @return true if the effective content changes or if the catalog files cannot be parsed
+         */
+        public boolean isCatalogEffectivelyChanged() {
+            return catalogEffectivelyChanged;
+        }
+
+        /**
+         * Check if the changes in variables are known, so only the sections using them must be reloaded
+         */
+        public boolean isVariablesImpactKnown() {
+            return changedVariables != null;
+        }
+
+        @CheckForNull
+        private static Set<String> readChangedVariables(PathPlainBundle origin, PathPlainBundle other) {
+            Map<String, Object> originValues = readVariables(origin);
+            Map<String, Object> otherValues = readVariables(other);
+            if (originValues == null || otherValues == null) {
+                return null;
+            }
+            Set<String> changed = new TreeSet<>();
+            originValues.forEach((name, value) -> {
+                if (!otherValues.containsKey(name) || !Objects.equals(value, otherValues.get(name))) {
+                    changed.add(name);
+                }
+            });
+            otherValues.keySet().stream().filter(name -> !originValues.containsKey(name)).forEach(changed::add);
+            return changed;
+        }
+
+        /**
+         * Reads the variables of a bundle. Variables can be defined as a list of single entry maps or as a map
+         * @return the variables with their values, or null if some file cannot be parsed
+         */
+        @CheckForNull
+        @SuppressRestrictedWarnings(value = { BundleLoader.class})
+        private static Map<String, Object> readVariables(PathPlainBundle bundle) {
+            Map<String, Object> values = new HashMap<>();
+            try {
+                for (String file : SectionDiff.readSection("variables", bundle.getBundleDescriptor())) {
+                    String content = bundle.getFile(file);
+                    if (StringUtils.isBlank(content)) {
+                        continue;
+                    }
+                    Map<String, Object> parsed = YamlClientUtils.createDefault().load(content);
+                    Object variables = parsed == null ? null : parsed.get("variables");
+                    if (variables instanceof Map) {
+                        ((Map<?, ?>) variables).forEach((k, v) -> values.put(String.valueOf(k), v));
+                    } else if (variables instanceof List) {
+                        for (Object entry : (List<?>) variables) {
+                            if (entry instanceof Map) {
+                                ((Map<?, ?>) entry).forEach((k, v) -> values.put(String.valueOf(k), v));
+                            }
+                        }
+                    }
+                }
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.FINE, "Variables files cannot be parsed, the changed variables are unknown", e);
+                return null;
+            }
+            return values;
+        }
+
+        /**
+         * Index the files of each section using some of the variables
+         */
+        @SuppressRestrictedWarnings(value = { BundleLoader.class})
+        private static Map<String, Set<String>> findFilesUsing(PathPlainBundle bundle, @CheckForNull BundleSnapshot snapshot, Set<String> variables) {
+            Map<String, Set<String>> affected = new HashMap<>();
+            if (variables.isEmpty()) {
+                return affected;
+            }
+            for (String section : REFERENCING_SECTIONS) {
+                for (String file : SectionDiff.readSection(section, bundle.getBundleDescriptor())) {
+                    Set<String> used = snapshot != null ? snapshot.getVariables(file) : null;
+                    if (used == null) {
+                        String content = bundle.getFile(file);
+                        used = content != null ? findVariables(content) : Collections.emptySet();
+                    }
+                    if (!Collections.disjoint(used, variables)) {
+                        affected.computeIfAbsent(section, k -> new TreeSet<>()).add(file);
+                    }
+                }
+            }
+            return affected;
+        }
+
+        /**
+         * Reads the JCasC files of a bundle, grouping the content by root element. A root element can be defined in several files.
+         * @return the content of each root element in the order of the files, or null if some file cannot be parsed
+         */
+        @CheckForNull
+        @SuppressRestrictedWarnings(value = { BundleLoader.class})
+        private static Map<String, List<Object>> readJcascRoots(PathPlainBundle bundle) {
+            BundleLoader.BundleDescriptor descriptor = bundle.getBundleDescriptor();
+            if (descriptor == null || descriptor.getJcasc() == null) {
+                return Collections.emptyMap();
+            }
+            Map<String, List<Object>> roots = new HashMap<>();
+            try {
+                for (String file : descriptor.getJcasc()) {
+                    String content = bundle.getFile(file);
+                    if (StringUtils.isBlank(content)) {
+                        continue;
+                    }
+                    Map<String, Object> parsed = YamlClientUtils.createDefault().load(content);
+                    if (parsed != null) {
+                        parsed.forEach((root, value) -> roots.computeIfAbsent(root, k -> new ArrayList<>()).add(value));
+                    }
+                }
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.FINE, "JCasC files cannot be parsed, the changed root elements are unknown", e);
+                return null;
+            }
+            return roots;
+        }
+
+        /**
+         * Reads the items files of a bundle, going into the folders recursively
+         * @return the definition of each item by full name, without the items inside it, or null if some file cannot be parsed
+         */
+        @CheckForNull
+        @SuppressRestrictedWarnings(value = { BundleLoader.class})
+        private static Map<String, Object> readItems(PathPlainBundle bundle) {
+            Map<String, Object> items = new HashMap<>();
+            try {
+                for (String file : SectionDiff.readSection("items", bundle.getBundleDescriptor())) {
+                    String content = bundle.getFile(file);
+                    if (StringUtils.isBlank(content)) {
+                        continue;
+                    }
+                    Map<String, Object> parsed = YamlClientUtils.createDefault().load(content);
+                    if (parsed != null) {
+                        collectItems(parsed.get("items"), "", items);
+                    }
+                }
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.FINE, "Items files cannot be parsed, the changed items are unknown", e);
+                return null;
+            }
+            return items;
+        }
+
+        private static void collectItems(Object declared, String parent, Map<String, Object> items) {
+            if (!(declared instanceof List)) {
+                return;
+            }
+            for (Object item : (List<?>) declared) {
+                if (item instanceof Map && ((Map<?, ?>) item).get("name") != null) {
+                    String fullName = parent + ((Map<?, ?>) item).get("name");
+                    Map<String, Object> definition = new TreeMap<>();
+                    ((Map<?, ?>) item).forEach((k, v) -> definition.put(String.valueOf(k), v));
+                    Object children = definition.remove("items");
+                    items.put(fullName, canonical(definition));
+                    collectItems(children, fullName + "/", items);
+                }
+            }
+        }
+
+        /**
+         * Reads the plugin catalog files of a bundle, keeping only the content that is relevant to install the catalog
+         * @return the canonical content of each file, or null if some file cannot be parsed
+         */
+        @CheckForNull
+        @SuppressRestrictedWarnings(value = { BundleLoader.class})
+        private static List<Object> readCatalog(PathPlainBundle bundle) {
+            List<String> files = SectionDiff.readSection("catalog", bundle.getBundleDescriptor());
+            if (files == null) {
+                return Collections.emptyList();
+            }
+            List<Object> catalogs = new ArrayList<>();
+            try {
+                for (String file : files) {
+                    String content = bundle.getFile(file);
+                    if (StringUtils.isBlank(content)) {
+                        continue;
+                    }
+                    Map<String, Object> parsed = YamlClientUtils.createDefault().load(content);
+                    if (parsed == null) {
+                        continue;
+                    }
+                    Map<String, Object> catalog = new TreeMap<>();
+                    catalog.put("type", canonical(parsed.get("type")));
+                    catalog.put("name", canonical(parsed.get("name")));
+                    List<Object> configurations = new ArrayList<>();
+                    Object declared = parsed.get("configurations");
+                    if (declared instanceof List) {
+                        for (Object configuration : (List<?>) declared) {
+                            if (configuration instanceof Map) {
+                                Map<String, Object> effective = new TreeMap<>();
+                                effective.put("prerequisites", canonical(((Map<?, ?>) configuration).get("prerequisites")));
+                                effective.put("includePlugins", canonical(((Map<?, ?>) configuration).get("includePlugins")));
+                                configurations.add(effective);
+                            }
+                        }
+                    }
+                    // The order of the configurations is kept, as the first one matching the prerequisites is applied
+                    catalog.put("configurations", configurations);
+                    catalogs.add(catalog);
+                }
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.FINE, "Plugin catalog files cannot be parsed, the changes are unknown", e);
+                return null;
+            }
+            return catalogs;
+        }
+
+        /**
+         * Canonical representation of a yaml node: maps sorted by key and scalars as strings, so "1" and 1 are the same
+         */
+        private static Object canonical(Object node) {
+            if (node instanceof Map) {
+                Map<String, Object> result = new TreeMap<>();
+                ((Map<?, ?>) node).forEach((k, v) -> result.put(String.valueOf(k), canonical(v)));
+                return result;
+            } else if (node instanceof List) {
+                List<Object> result = new ArrayList<>();
+                for (Object item : (List<?>) node) {
+                    result.add(canonical(item));
+                }
+                return result;
+            }
+            return node == null ? null : node.toString();
+        }
+
+        /**
+         * Return the variables referenced as ${name} or ${name:-default} in a text
+         */
+        @NonNull
+        static Set<String> findVariables(@CheckForNull String content) {
+            if (content == null || !content.contains("${")) {
+                return Collections.emptySet();
+            }
+            Set<String> found = new HashSet<>();
+            Matcher matcher = VARIABLE_REFERENCE.matcher(content);
+            while (matcher.find()) {
+                found.add(matcher.group(1));
+            }
+            return found;
+        }
+
+        private boolean checkDescriptorMetadataOnly() {
+            if (sameBundles) {
+                return false;
+            }
+            if (this.jcasc.withChanges() || this.items.withChanges() || this.rbac.withChanges() || this.catalog.withChanges() || this.plugins.withChanges() || this.variables.withChanges()) {
+                return false;
+            }
+            try {
+                Map<String, Object> originDescriptor = YamlClientUtils.createDefault().load(origin.getDescriptor());
+                Map<String, Object> otherDescriptor = YamlClientUtils.createDefault().load(other.getDescriptor());
+                if (originDescriptor == null || otherDescriptor == null) {
+                    return false;
+                }
+                return Objects.equals(withoutMetadata(originDescriptor), withoutMetadata(otherDescriptor));
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.FINE, "Bundle descriptors cannot be parsed, so they are considered different", e);
+                return false;
+            }
+        }
+
+        private static Object withoutMetadata(Map<String, Object> descriptor) {
+            Map<String, Object> result = new TreeMap<>(descriptor);
+            result.remove("version");
+            result.remove("description");
+            return canonical(result);
+        }
+
         private boolean checkSameBundles() {
             if (Objects.equals(origin.getBundlePath(), other.getBundlePath())) {
                 return true;
@@ -175,7 +679,8 @@ public class BundleComparator {
         private final List<String> deletedFiles;
         private final List<String> updatedFiles;
 
-        private SectionDiff(@NonNull String section, @NonNull PathPlainBundle bundle1, @NonNull PathPlainBundle bundle2) {
+        private SectionDiff(@NonNull String section, @NonNull PathPlainBundle bundle1, @NonNull PathPlainBundle bundle2,
+                            @CheckForNull BundleSnapshot snapshot1, @CheckForNull BundleSnapshot snapshot2) {
             final List<String> files1 = readSection(section, bundle1.getBundleDescriptor());
             final List<String> files2 = readSection(section, bundle2.getBundleDescriptor());
 
@@ -183,13 +688,37 @@ public class BundleComparator {
             this.deletedFiles = new ArrayList<>(files1.stream().filter(s -> !files2.contains(s)).collect(Collectors.toList()));
             this.updatedFiles = new ArrayList<>();
             files1.stream().filter(s -> files2.contains(s)).forEach(s -> {
-                if (!Objects.equals(bundle1.getFile(s), bundle2.getFile(s))) {
+                String digest1 = snapshot1 != null ? snapshot1.getDigest(s) : null;
+                String digest2 = snapshot2 != null ? snapshot2.getDigest(s) : null;
+                boolean updated = digest1 != null && digest2 != null ? !digest1.equals(digest2) : !Objects.equals(bundle1.getFile(s), bundle2.getFile(s));
+                if (updated) {
                     this.updatedFiles.add(s);
                 }
             });
         }
 
-        private List<String> readSection(String section, BundleLoader.BundleDescriptor bundle) {
+        private SectionDiff(@NonNull JSONObject json) {
+            this.newFiles = toList(json.getJSONArray("new"));
+            this.deletedFiles = toList(json.getJSONArray("deleted"));
+            this.updatedFiles = toList(json.getJSONArray("updated"));
+        }
+
+        @NonNull
+        private JSONObject toJSON() {
+            return new JSONObject().element("new", JSONArray.fromObject(newFiles))
+                                   .element("deleted", JSONArray.fromObject(deletedFiles))
+                                   .element("updated", JSONArray.fromObject(updatedFiles));
+        }
+
+        private static List<String> toList(JSONArray array) {
+            List<String> values = new ArrayList<>();
+            for (Object value : array) {
+                values.add(String.valueOf(value));
+            }
+            return values;
+        }
+
+        private static List<String> readSection(String section, BundleLoader.BundleDescriptor bundle) {
             if (bundle == null) {
                 return Collections.emptyList();
             } else if ("jcasc".equals(section)) {
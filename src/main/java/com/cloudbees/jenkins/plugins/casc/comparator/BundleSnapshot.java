@@ -0,0 +1,317 @@
+package com.cloudbees.jenkins.plugins.casc.comparator;
+
+import com.cloudbees.jenkins.plugins.casc.YamlClientUtils;
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Util;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Precompiled information of a bundle folder, so the consumers don't have to read and parse the bundle files again:
+ * the digest and the variables referenced by each file, and the remove strategies declared in the files.
+ * The snapshot is written in a compact binary file next to the bundle folder when the bundle is downloaded or promoted,
+ * so the content of the bundle and its checksum are not modified.
+ * A snapshot is stale if any file has been added, removed or modified since it was written (size or modification time),
+ * in which case it's not used and the consumers read the bundle files as usual.
+ */
+@Restricted(NoExternalUse.class)
+public final class BundleSnapshot {
+
+    private static final Logger LOGGER = Logger.getLogger(BundleSnapshot.class.getName());
+
+    /**
+     * Header of the file, "CASC" in ASCII
+     */
+    private static final int MAGIC = 0x43415343;
+
+    /**
+     * Version of the format, to be increased if the content changes
+     */
+    private static final int FORMAT_VERSION = 1;
+
+    static final String SUFFIX = ".snapshot";
+
+    private final Map<String, FileEntry> files;
+    @CheckForNull
+    private final String rbacRemoveStrategy;
+    @CheckForNull
+    private final String itemsRemoveStrategy;
+
+    private BundleSnapshot(@NonNull Map<String, FileEntry> files, @CheckForNull String rbacRemoveStrategy, @CheckForNull String itemsRemoveStrategy) {
+        this.files = files;
+        this.rbacRemoveStrategy = rbacRemoveStrategy;
+        this.itemsRemoveStrategy = itemsRemoveStrategy;
+    }
+
+    /**
+     * Compiles the snapshot of a bundle and writes it next to the bundle folder
+     * @param bundle folder of the bundle
+     * @return the snapshot, or null if it cannot be compiled
+     */
+    @CheckForNull
+    public static BundleSnapshot write(@NonNull Path bundle) {
+        try {
+            BundleSnapshot snapshot = compile(bundle);
+            Path file = getFile(bundle);
+            Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                snapshot.writeTo(out);
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return snapshot;
+        } catch (IOException | RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Bundle snapshot cannot be written for {0}: {1}", new Object[]{bundle, e.getMessage()});
+            LOGGER.log(Level.FINE, "Bundle snapshot cannot be written", e);
+            return null;
+        }
+    }
+
+    /**
+     * Reads the snapshot of a bundle
+     * @param bundle folder of the bundle
+     * @return the snapshot, or null if there is no snapshot, it cannot be read or it is stale
+     */
+    @CheckForNull
+    public static BundleSnapshot read(@NonNull Path bundle) {
+        Path file = getFile(bundle);
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        BundleSnapshot snapshot;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            snapshot = readFrom(in);
+        } catch (IOException | RuntimeException e) {
+            LOGGER.log(Level.FINE, "Bundle snapshot cannot be read for " + bundle, e);
+            return null;
+        }
+        if (snapshot == null || snapshot.isStale(bundle)) {
+            LOGGER.log(Level.FINE, "Bundle snapshot for {0} is stale, so it's not used", bundle);
+            return null;
+        }
+        return snapshot;
+    }
+
+    @NonNull
+    static Path getFile(@NonNull Path bundle) {
+        Path absolute = bundle.toAbsolutePath().normalize();
+        return absolute.resolveSibling(absolute.getFileName() + SUFFIX);
+    }
+
+    /**
+     * @param file path of the file relative to the bundle folder
+     * @return digest of the file content, or null if the file is not in the bundle
+     */
+    @CheckForNull
+    public String getDigest(@NonNull String file) {
+        FileEntry entry = files.get(normalize(file));
+        return entry != null ? entry.digest : null;
+    }
+
+    /**
+     * @param file path of the file relative to the bundle folder
+     * @return variables referenced in the file, or null if the file is not in the bundle
+     */
+    @CheckForNull
+    public Set<String> getVariables(@NonNull String file) {
+        FileEntry entry = files.get(normalize(file));
+        return entry != null ? entry.variables : null;
+    }
+
+    /**
+     * @return the RBAC remove strategy declared in the first RBAC file, null if there is none
+     */
+    @CheckForNull
+    public String getRbacRemoveStrategy() {
+        return rbacRemoveStrategy;
+    }
+
+    /**
+     * @return the items remove strategy declared in the first items file, null if there is none
+     */
+    @CheckForNull
+    public String getItemsRemoveStrategy() {
+        return itemsRemoveStrategy;
+    }
+
+    private boolean isStale(Path bundle) {
+        Map<String, BasicFileAttributes> current;
+        try {
+            current = listFiles(bundle);
+        } catch (IOException e) {
+            return true;
+        }
+        if (!current.keySet().equals(files.keySet())) {
+            return true;
+        }
+        for (Map.Entry<String, BasicFileAttributes> file : current.entrySet()) {
+            FileEntry entry = files.get(file.getKey());
+            if (entry.size != file.getValue().size() || entry.lastModified != file.getValue().lastModifiedTime().toMillis()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static BundleSnapshot compile(Path bundle) throws IOException {
+        Map<String, FileEntry> files = new TreeMap<>();
+        for (Map.Entry<String, BasicFileAttributes> file : listFiles(bundle).entrySet()) {
+            byte[] content = Files.readAllBytes(bundle.resolve(file.getKey()));
+            String text = new String(content, StandardCharsets.UTF_8);
+            files.put(file.getKey(), new FileEntry(file.getValue().size(), file.getValue().lastModifiedTime().toMillis(),
+                                                   digest(content), BundleComparator.Result.findVariables(text)));
+        }
+        Map<String, Object> descriptor = load(bundle, "bundle.yaml");
+        return new BundleSnapshot(files,
+                                  removeStrategy(bundle, descriptor, "rbac"),
+                                  removeStrategy(bundle, descriptor, "items"));
+    }
+
+    /**
+     * Remove strategy declared in the first file of the section, as read by the reload
+     */
+    @CheckForNull
+    private static String removeStrategy(Path bundle, @CheckForNull Map<String, Object> descriptor, String section) {
+        if (descriptor == null || !(descriptor.get(section) instanceof List) || ((List<?>) descriptor.get(section)).isEmpty()) {
+            return null;
+        }
+        Object first = ((List<?>) descriptor.get(section)).get(0);
+        Map<String, Object> parsed = first != null ? load(bundle, first.toString()) : null;
+        if (parsed != null && parsed.get("removeStrategy") instanceof Map) {
+            Object strategy = ((Map<?, ?>) parsed.get("removeStrategy")).get(section);
+            return strategy != null ? strategy.toString() : null;
+        }
+        return null;
+    }
+
+    @CheckForNull
+    private static Map<String, Object> load(Path bundle, String file) {
+        Path path = bundle.resolve(file);
+        if (!Files.isRegularFile(path)) {
+            return null;
+        }
+        try {
+            return YamlClientUtils.createDefault().load(Files.readString(path));
+        } catch (IOException | RuntimeException e) {
+            LOGGER.log(Level.FINE, "File " + path + " cannot be parsed", e);
+            return null;
+        }
+    }
+
+    private static Map<String, BasicFileAttributes> listFiles(Path bundle) throws IOException {
+        Map<String, BasicFileAttributes> result = new TreeMap<>();
+        try (Stream<Path> paths = Files.walk(bundle)) {
+            for (Path path : paths.collect(Collectors.toList())) {
+                BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                if (attributes.isRegularFile()) {
+                    result.put(normalize(bundle.relativize(path).toString()), attributes);
+                }
+            }
+        }
+        return result;
+    }
+
+    private static String normalize(String file) {
+        return file.replace('\\', '/');
+    }
+
+    private static String digest(byte[] content) {
+        try {
+            return Util.toHexString(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        writeNullable(out, rbacRemoveStrategy);
+        writeNullable(out, itemsRemoveStrategy);
+        out.writeInt(files.size());
+        for (Map.Entry<String, FileEntry> file : files.entrySet()) {
+            FileEntry entry = file.getValue();
+            out.writeUTF(file.getKey());
+            out.writeLong(entry.size);
+            out.writeLong(entry.lastModified);
+            out.writeUTF(entry.digest);
+            out.writeInt(entry.variables.size());
+            for (String variable : entry.variables) {
+                out.writeUTF(variable);
+            }
+        }
+    }
+
+    @CheckForNull
+    private static BundleSnapshot readFrom(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+            return null;
+        }
+        String rbacRemoveStrategy = readNullable(in);
+        String itemsRemoveStrategy = readNullable(in);
+        int count = in.readInt();
+        Map<String, FileEntry> files = new TreeMap<>();
+        for (int i = 0; i < count; i++) {
+            String name = in.readUTF();
+            long size = in.readLong();
+            long lastModified = in.readLong();
+            String digest = in.readUTF();
+            int variablesCount = in.readInt();
+            Set<String> variables = new TreeSet<>();
+            for (int j = 0; j < variablesCount; j++) {
+                variables.add(in.readUTF());
+            }
+            files.put(name, new FileEntry(size, lastModified, digest, variables));
+        }
+        return new BundleSnapshot(files, rbacRemoveStrategy, itemsRemoveStrategy);
+    }
+
+    private static void writeNullable(DataOutputStream out, @CheckForNull String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    @CheckForNull
+    private static String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static final class FileEntry {
+        private final long size;
+        private final long lastModified;
+        private final String digest;
+        private final Set<String> variables;
+
+        private FileEntry(long size, long lastModified, String digest, Set<String> variables) {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.digest = digest;
+            this.variables = Collections.unmodifiableSet(new TreeSet<>(variables));
+        }
+    }
+}
@@ -6,6 +6,7 @@ import com.cloudbees.jenkins.plugins.casc.comparator.BundleComparator;
 import com.cloudbees.jenkins.plugins.casc.events.CasCPublisher;
 import com.cloudbees.jenkins.plugins.casc.events.CasCStatus;
 import com.cloudbees.opscenter.client.casc.ConfigurationStatus;
+import com.cloudbees.opscenter.client.casc.ConfigurationStatusStore;
 import jenkins.util.Listeners;
 
 import java.util.function.Consumer;
@@ -42,6 +43,9 @@ public interface CasCPublisherHelper {
             candidateIsHotReloadable = null;
         }
 
+        // Kept on disk, so the status is not calculated again after a restart
+        ConfigurationStatusStore.save();
+
         // Everything is prepared, notify CasCPublisher
         Listeners.notify(CasCPublisher.class, true, (publisher) -> {
             publisher.publishCasCUpdate(new CasCStatus(
@@ -5,7 +5,7 @@ import com.cloudbees.jenkins.cjp.installmanager.casc.validation.AbstractValidato
 import com.cloudbees.jenkins.cjp.installmanager.casc.validation.PlainBundle;
 import com.cloudbees.jenkins.cjp.installmanager.casc.validation.Validation;
 import com.cloudbees.jenkins.cjp.installmanager.casc.validation.ValidationCode;
-import com.cloudbees.jenkins.plugins.assurance.remote.BeekeeperRemote;
+import com.cloudbees.opscenter.client.casc.CatalogValidationMemo;
 import net.sf.json.JSONObject;
 import org.kohsuke.accmod.restrictions.suppressions.SuppressRestrictedWarnings;
 
@@ -16,9 +16,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 
-import hudson.security.ACL;
-import hudson.security.ACLContext;
-
 /**
  * Validates a plugin catalog. Always returns warnings, never error.
  */
@@ -60,16 +57,8 @@ public class PluginCatalogValidator extends AbstractValidator {
             return Arrays.asList("The catalog file content is not valid");
         }
 
-        try (ACLContext ctx = ACL.as2(ACL.SYSTEM2)) {
-            boolean oldAllow = BeekeeperRemote.get().isCapExceptionsAllowed();
-            BeekeeperRemote.get().setCapExceptionsAllowed(true);
-
-            List<String> validationErrors = BeekeeperRemote.get().validateExtension(json, null);
-
-            BeekeeperRemote.get().setCapExceptionsAllowed(oldAllow);
-
-            return validationErrors;
-        }
+        // Same validation as the hot reload, so the result is reused if the catalog is validated again
+        return CatalogValidationMemo.validate(json, true);
     }
 
     private String yaml2json(String yaml) {
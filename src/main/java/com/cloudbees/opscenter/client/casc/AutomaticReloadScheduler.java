@@ -0,0 +1,190 @@
+package com.cloudbees.opscenter.client.casc;
+
+import com.cloudbees.jenkins.plugins.casc.CasCException;
+import com.cloudbees.opscenter.client.casc.config.AutomaticReloadSchedulingConfiguration;
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import hudson.Extension;
+import hudson.ExtensionList;
+import hudson.model.Computer;
+import hudson.model.PeriodicWork;
+import jenkins.model.Jenkins;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.time.LocalTime;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Defers the automatic reloads of new bundle versions while the instance is busy, as configured in
+ * {@link AutomaticReloadSchedulingConfiguration}. A deferred reload is checked every minute and performed once the
+ * conditions are met, or once the max deferral is reached.
+ */
+@Extension
+@Restricted(NoExternalUse.class)
+public class AutomaticReloadScheduler extends PeriodicWork {
+
+    private static final Logger LOGGER = Logger.getLogger(AutomaticReloadScheduler.class.getName());
+
+    /**
+     * Time when the pending reload was deferred. 0 if there is no reload deferred.
+     */
+    private long deferredSince = 0;
+
+    /**
+     * Reason why the pending reload is deferred
+     */
+    @CheckForNull
+    private String reason;
+
+    private boolean automaticRestart;
+
+    public static AutomaticReloadScheduler get() {
+        return ExtensionList.lookupSingleton(AutomaticReloadScheduler.class);
+    }
+
+    @Override
+    public long getRecurrencePeriod() {
+        return TimeUnit.MINUTES.toMillis(1);
+    }
+
+    /**
+     * Performs the automatic reload if the instance is not busy. Otherwise, it is deferred.
+     * @param automaticRestart true if an automatic restart must be performed if the reload fails
+     * @throws CasCException if the reload fails and the automatic restart cannot be performed
+     * @throws IOException if there were RW operations exceptions
+     */
+    public void reloadOrDefer(boolean automaticRestart) throws CasCException, IOException {
+        synchronized (this) {
+            String busy = busyReason();
+            if (busy != null) {
+                if (deferredSince == 0) {
+                    deferredSince = System.currentTimeMillis();
+                }
+                reason = busy;
+                this.automaticRestart = automaticRestart;
+                LOGGER.log(Level.INFO, "Automatic reload of the new bundle version deferred: {0}", busy);
+                return;
+            }
+            clear();
+        }
+        ConfigurationUpdaterHelper.automaticReload(automaticRestart);
+    }
+
+    @Override
+    protected void doRun() throws Exception {
+        boolean restart;
+        synchronized (this) {
+            if (deferredSince == 0) {
+                return;
+            }
+            if (!ConfigurationStatus.INSTANCE.isUpdateAvailable()) {
+                LOGGER.log(Level.INFO, "Deferred automatic reload discarded, as the new bundle version has been already applied");
+                clear();
+                return;
+            }
+            String busy = busyReason();
+            if (busy != null && !isMaxDeferralReached()) {
+                reason = busy;
+                LOGGER.log(Level.FINE, "Automatic reload of the new bundle version still deferred: {0}", busy);
+                return;
+            }
+            if (busy != null) {
+                LOGGER.log(Level.INFO, "Automatic reload of the new bundle version deferred for too long. Reloading even if {0}", busy);
+            }
+            restart = automaticRestart;
+            clear();
+        }
+        ConfigurationUpdaterHelper.automaticReload(restart);
+    }
+
+    /**
+     * @return true if there is an automatic reload deferred
+     */
+    public synchronized boolean isDeferred() {
+        return deferredSince != 0;
+    }
+
+    /**
+     * @return when the pending reload was deferred, null if there is no reload deferred
+     */
+    @CheckForNull
+    public synchronized Date getDeferredSince() {
+        return deferredSince == 0 ? null : new Date(deferredSince);
+    }
+
+    /**
+     * @return when the pending reload will be performed regardless of the load, null if there is no limit or no reload deferred
+     */
+    @CheckForNull
+    public synchronized Date getDeferredUntil() {
+        int maxDeferral = AutomaticReloadSchedulingConfiguration.get().getMaxDeferralMinutes();
+        return deferredSince == 0 || maxDeferral == 0 ? null : new Date(deferredSince + TimeUnit.MINUTES.toMillis(maxDeferral));
+    }
+
+    /**
+     * @return why the pending reload is deferred, null if there is no reload deferred
+     */
+    @CheckForNull
+    public synchronized String getReason() {
+        return reason;
+    }
+
+    private boolean isMaxDeferralReached() {
+        int maxDeferral = AutomaticReloadSchedulingConfiguration.get().getMaxDeferralMinutes();
+        return maxDeferral > 0 && System.currentTimeMillis() - deferredSince >= TimeUnit.MINUTES.toMillis(maxDeferral);
+    }
+
+    private void clear() {
+        deferredSince = 0;
+        reason = null;
+        automaticRestart = false;
+    }
+
+    /**
+     * @return why the reload cannot be performed now, or null if the instance is not busy or the scheduling is disabled
+     */
+    @CheckForNull
+    static String busyReason() {
+        AutomaticReloadSchedulingConfiguration configuration = AutomaticReloadSchedulingConfiguration.get();
+        if (!configuration.isEnabled()) {
+            return null;
+        }
+        if (!configuration.isInMaintenanceWindow(LocalTime.now())) {
+            return String.format("outside the maintenance window %s", configuration.getMaintenanceWindow());
+        }
+        Jenkins jenkins = Jenkins.get();
+        if (configuration.getMaxQueueLength() > 0) {
+            int queueLength = jenkins.getQueue().countBuildableItems();
+            if (queueLength > configuration.getMaxQueueLength()) {
+                return String.format("%d buildable items in the queue, more than %d", queueLength, configuration.getMaxQueueLength());
+            }
+        }
+        if (configuration.getMaxBusyExecutorsPercentage() > 0) {
+            int executors = 0;
+            int busy = 0;
+            for (Computer computer : jenkins.getComputers()) {
+                if (computer.isOnline()) {
+                    executors += computer.countExecutors();
+                    busy += computer.countBusy();
+                }
+            }
+            int percentage = executors == 0 ? 0 : busy * 100 / executors;
+            if (percentage > configuration.getMaxBusyExecutorsPercentage()) {
+                return String.format("%d%% of the executors are busy, more than %d%%", percentage, configuration.getMaxBusyExecutorsPercentage());
+            }
+        }
+        if (configuration.getMaxSystemLoad() > 0) {
+            double load = ManagementFactory.getOperatingSystemMXBean().getSystemLoadAverage();
+            // Negative if the load average is not available in the platform
+            if (load > configuration.getMaxSystemLoad()) {
+                return String.format("system load average is %.2f, more than %.2f", load, configuration.getMaxSystemLoad());
+            }
+        }
+        return null;
+    }
+}
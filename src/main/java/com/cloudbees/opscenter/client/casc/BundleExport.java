@@ -19,13 +19,14 @@ import org.kohsuke.stapler.StaplerRequest;
 import org.kohsuke.stapler.StaplerResponse;
 
 import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.List;
 import java.util.logging.Logger;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
 
 /**
  * Exports a Core CasC bundle.
@@ -39,6 +40,11 @@ public class BundleExport implements RootAction {
 
     private static final Logger LOG = Logger.getLogger(BundleExport.class.getName());
 
+    /**
+     * Modification time of the files in the zip export, fixed so the same export always generates the same zip
+     */
+    private static final long ZIP_ENTRY_TIME = 946684800000L; // 2000-01-01T00:00:00Z
+
     @Override
     public String getUrlName() {
         return "core-casc-export";
@@ -54,11 +60,46 @@ public class BundleExport implements RootAction {
         if (StringUtils.isBlank(yamlFile)) {
             return doIndex();
         } else if ("full-export".equals(yamlFile)) {
-            return doZipExport();
+            return doZipExport(Boolean.parseBoolean(request.getParameter("sharded")));
         } else {
-            String export = getExport(yamlFile);
-            if (export != null) {
-                return HttpResponses.text(export);
+            BundleExporter exporter = BundleExporter.forYamlFile(yamlFile);
+            if (exporter instanceof BundleExporter.ItemsExporter) {
+                ItemsExportScope scope;
+                try {
+                    scope = ItemsExportScope.from(request);
+                } catch (IllegalArgumentException e) {
+                    return HttpResponses.errorWithoutStack(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+                }
+                if (scope != null) {
+                    return doItemsExport((BundleExporter.ItemsExporter) exporter, scope);
+                }
+            }
+            if (exporter != null) {
+                return (req, rsp, node) -> {
+                    ExportCache.Entry cached;
+                    try {
+                        cached = ExportCache.INSTANCE.export(exporter, ExportSnapshot.capture());
+                    } catch (IOException e) {
+                        String failedExport = exporter.getFailedExport();
+                        if (failedExport == null) {
+                            throw e;
+                        }
+                        rsp.setContentType("text/plain;charset=UTF-8");
+                        rsp.getOutputStream().write(failedExport.getBytes(StandardCharsets.UTF_8));
+                        return;
+                    }
+                    try (ExportCache.Entry export = cached) {
+                        if (!export.isExported()) {
+                            rsp.setStatus(HttpServletResponse.SC_NOT_FOUND);
+                            return;
+                        }
+                        if (notModified(req, rsp, export.getDigest())) {
+                            return;
+                        }
+                        rsp.setContentType("text/plain;charset=UTF-8");
+                        Files.copy(export.getFile(), rsp.getOutputStream());
+                    }
+                };
             }
         }
 
@@ -74,34 +115,58 @@ public class BundleExport implements RootAction {
         return null;
     }
 
+    /**
+     * @return the items of a folder, up to a depth and in pages. See {@link ItemsExportScope}.
+     */
+    private HttpResponse doItemsExport(BundleExporter.ItemsExporter exporter, ItemsExportScope scope) {
+        return (req, rsp, node) -> {
+            ItemsExportScope.Page page = exporter.select(scope);
+            if (page == null) {
+                rsp.sendError(HttpServletResponse.SC_NOT_FOUND, "Folder not found");
+                return;
+            }
+            if (page.getNextCursor() != null) {
+                rsp.setHeader(ItemsExportScope.NEXT_CURSOR_HEADER, page.getNextCursor());
+            }
+            rsp.setContentType("text/plain;charset=UTF-8");
+            try (Writer writer = new OutputStreamWriter(rsp.getOutputStream(), StandardCharsets.UTF_8)) {
+                exporter.export(writer, page);
+            }
+        };
+    }
+
     /**
      * @return the whole bundle as plain text (all yaml files concatenated).
      */
     private HttpResponse doIndex() {
-        return getBundleResponse();
+        return BundleResponse.streaming();
     }
 
     /**
      * Generate zip file containing all the exported yaml files
+     * @param sharded true to split the big sections in several files, as listed in the exported descriptor.
+     *                See {@link BundleExporter#getShardFiles()}.
      */
     @SuppressFBWarnings(value = "NP_NULL_ON_SOME_PATH_FROM_RETURN_VALUE", justification = "False positive. reader.getPluginCatalog(), reader.getGlobalRbac() and reader.getItems() already checked")
-    private HttpResponse doZipExport() {
+    private HttpResponse doZipExport(boolean sharded) {
         return new HttpResponse() {
             @Override
             public void generateResponse(StaplerRequest req, StaplerResponse rsp, Object node) throws IOException, ServletException {
                 final String exportFileName = String.format("core-casc-export-%s.zip", getInstanceName());
 
-                rsp.setContentType("application/zip");
-                rsp.addHeader("Content-Disposition", String.format("inline; filename=%s;", exportFileName));
-
-                OutputStream out = rsp.getOutputStream();
-                try (ZipOutputStream zipFile = new ZipOutputStream(out)) {
-                    for (BundleExporter exporter : ExtensionList.lookup(BundleExporter.class)) {
-                        String export = exporter.getExport();
-                        if (export != null) {
-                            zipFile.putNextEntry(new ZipEntry(exporter.getYamlFile()));
-                            zipFile.write(export.getBytes(StandardCharsets.UTF_8));
-
+                // The exporters run concurrently, and each file is written into the zip in the exporters order once exported
+                try (ParallelBundleExport export = ParallelBundleExport.start(ExtensionList.lookup(BundleExporter.class), sharded)) {
+                    if (notModified(req, rsp, export, sharded ? "zip-sharded" : "zip")) {
+                        return;
+                    }
+                    rsp.setContentType("application/zip");
+                    rsp.addHeader("Content-Disposition", String.format("inline; filename=%s;", exportFileName));
+
+                    try (CasCZipWriter zipFile = new CasCZipWriter(rsp.getOutputStream())) {
+                        for (ParallelBundleExport.Section section : export.getSections()) {
+                            if (section.await()) {
+                                zipFile.addEntry(section.getYamlFile(), ZIP_ENTRY_TIME, section.getSize(), section::copyTo);
+                            }
                         }
                     }
                 }
@@ -109,6 +174,45 @@ public class BundleExport implements RootAction {
         };
     }
 
+    /**
+     * Sets the ETag of a running export, and answers 304 Not Modified if the client already has it.
+     * The digest needs all the exporters to be complete, which would delay the first byte of the response, so it's
+     * only calculated if the client sent If-None-Match, or if the exporters are already complete.
+     * @param variant identifies the response the files are written to
+     * @return true if the response is complete as the export was not modified
+     * @throws IOException if any exporter failed
+     */
+    static boolean notModified(StaplerRequest req, StaplerResponse rsp, ParallelBundleExport export, String variant) throws IOException {
+        if (req.getHeader("If-None-Match") == null && !export.isDone()) {
+            return false;
+        }
+        return notModified(req, rsp, export.getDigest(variant));
+    }
+
+    /**
+     * Sets the ETag of an export, and answers 304 Not Modified if the client already has it.
+     * The exports are deterministic, so the digest of the export is used as strong ETag.
+     * @param digest digest of the export
+     * @return true if the response is complete as the export was not modified
+     */
+    static boolean notModified(StaplerRequest req, StaplerResponse rsp, String digest) {
+        String etag = "\"" + digest + "\"";
+        rsp.setHeader("ETag", etag);
+        String ifNoneMatch = req.getHeader("If-None-Match");
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            // If-None-Match uses the weak comparison
+            if ("*".equals(value) || etag.equals(value) || ("W/" + etag).equals(value)) {
+                rsp.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                return true;
+            }
+        }
+        return false;
+    }
+
     @VisibleForTesting
     public BundleResponse getBundleResponse() {
         return new BundleResponse(
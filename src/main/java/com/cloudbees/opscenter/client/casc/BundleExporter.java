@@ -1,13 +1,10 @@
 package com.cloudbees.opscenter.client.casc;
 
 import com.cloudbees.jenkins.cjp.installmanager.casc.ConfigurationBundle;
-import com.cloudbees.jenkins.cjp.installmanager.casc.ConfigurationBundleManager;
 import com.cloudbees.jenkins.cjp.installmanager.casc.InvalidBundleException;
 import com.cloudbees.jenkins.cjp.installmanager.casc.plugin.management.PluginInstallConfiguration;
 import com.cloudbees.jenkins.plugins.assurance.CloudBeesAssurance;
 import com.cloudbees.jenkins.plugins.assurance.model.Beekeeper;
-import com.cloudbees.jenkins.plugins.assurance.remote.BeekeeperRemote;
-import com.cloudbees.jenkins.plugins.assurance.remote.Status;
 import com.cloudbees.jenkins.plugins.assurance.remote.extensionparser.Configuration;
 import com.cloudbees.jenkins.plugins.assurance.remote.extensionparser.ParsedEnvelopeExtension;
 import com.cloudbees.jenkins.plugins.assurance.remote.extensionparser.PluginConfiguration;
@@ -25,9 +22,11 @@ import hudson.Extension;
 import hudson.ExtensionList;
 import hudson.ExtensionPoint;
 import hudson.PluginWrapper;
+import hudson.model.Item;
+import hudson.model.ItemGroup;
+import hudson.model.listeners.ItemListener;
 import jenkins.model.Jenkins;
 
-import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.StringUtils;
 import org.kohsuke.accmod.Restricted;
@@ -39,11 +38,18 @@ import org.yaml.snakeyaml.Yaml;
 import javax.annotation.Nonnull;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.Reader;
 import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -79,6 +85,52 @@ public abstract class BundleExporter implements ExtensionPoint {
     @CheckForNull
     public abstract String getExport();
 
+    /**
+     * @return the content returned instead of the file when {@link #export(Writer)} fails, so the rest of the files of
+     * the bundle are still returned. Null to fail the whole response.
+     */
+    @CheckForNull
+    public String getFailedExport() {
+        return null;
+    }
+
+    /**
+     * Writes the exported file. Exporters generating big files should override it to write the content as it is generated,
+     * instead of building the whole file in memory.
+     * @param writer where the file is written. It's not closed.
+     * @return false if there is nothing to export, as when {@link #getExport()} returns null
+     * @throws IOException if the file cannot be written
+     */
+    public boolean export(@NonNull Writer writer) throws IOException {
+        String export = getExport();
+        if (export == null) {
+            return false;
+        }
+        writer.write(export);
+        return true;
+    }
+
+    /**
+     * Files written by this exporter in a sharded export, where big sections are split in several files, so a change
+     * in the instance only changes a small file of the exported bundle.
+     * @return the files in the order they are listed in the bundle descriptor. By default only {@link #getYamlFile()}.
+     */
+    @NonNull
+    public List<String> getShardFiles() {
+        return Collections.singletonList(getYamlFile());
+    }
+
+    /**
+     * Writes a file of a sharded export
+     * @param file one of the files returned by {@link #getShardFiles()}
+     * @param writer where the file is written. It's not closed.
+     * @return false if there is nothing to export
+     * @throws IOException if the file cannot be written
+     */
+    public boolean exportShard(@NonNull String file, @NonNull Writer writer) throws IOException {
+        return export(writer);
+    }
+
     /**
      * @return Description in the UI
      */
@@ -121,7 +173,20 @@ public abstract class BundleExporter implements ExtensionPoint {
         @Override
         @CheckForNull
         public String getExport() {
-            return descriptorFromTemplate(getInstanceName(), "Autogenerated bundle descriptor");
+            return descriptorFromTemplate(getInstanceName(), "Autogenerated bundle descriptor", false);
+        }
+
+        /**
+         * Lists the files of each section as split by the exporters
+         */
+        @Override
+        public boolean exportShard(@NonNull String file, @NonNull Writer writer) throws IOException {
+            String export = descriptorFromTemplate(getInstanceName(), "Autogenerated bundle descriptor", true);
+            if (export == null) {
+                return false;
+            }
+            writer.write(export);
+            return true;
         }
 
         @NonNull
@@ -135,16 +200,18 @@ public abstract class BundleExporter implements ExtensionPoint {
             return null;
         }
 
-        private String descriptorFromTemplate(@CheckForNull String bundleID, String description) {
+        private String descriptorFromTemplate(@CheckForNull String bundleID, String description, boolean sharded) {
             try (InputStream in = BundleExporter.class.getResourceAsStream("bundle-descriptor.yaml")){
                 String bundle = IOUtils.toString(in, StandardCharsets.UTF_8);
                 for (String section : getSections()) {
                     bundle = bundle.concat(String.format("%s:%n", section));
                     for(BundleExporter exporter : forSection(section)) {
-                        bundle = bundle.concat(String.format("  - \"%s\"%n", exporter.getYamlFile()));
+                        for (String file : sharded ? exporter.getShardFiles() : Collections.singletonList(exporter.getYamlFile())) {
+                            bundle = bundle.concat(String.format("  - \"%s\"%n", file));
+                        }
                     }
                 }
-                String apiVersion = StringUtils.defaultIfBlank(ConfigurationBundleManager.get().getConfigurationBundle().getApiVersion(), "1");
+                String apiVersion = StringUtils.defaultIfBlank(ExportSnapshot.get().getBundle().getApiVersion(), "1");
                 return bundle.replace("%BUNDLE_ID%", bundleID != null ? bundleID : "jenkins").replace("%DESCRIPTION%", description).replace("%APIVERSION%", apiVersion);
             } catch (IOException e) {
                 LOG.log(Level.WARNING, "Cannot read bundle descriptor template to generate an export response", e);
@@ -185,119 +252,111 @@ public abstract class BundleExporter implements ExtensionPoint {
         @Override
         @CheckForNull
         public String getExport() {
+            ExportSnapshot snapshot = ExportSnapshot.get();
             // check if the CAP is enabled
-            Status status = BeekeeperRemote.get().getStatus();
-            if (!status.isCap()) {
+            if (!snapshot.isCap()) {
                 String msg = "# Cannot export plugins because CAP is not enabled";
                 LOG.log(Level.WARNING, msg);
                 return msg;
             }
-            String apiVersion = StringUtils.defaultIfBlank(ConfigurationBundleManager.get().getConfigurationBundle().getApiVersion(), "1");
+            String apiVersion = StringUtils.defaultIfBlank(snapshot.getBundle().getApiVersion(), "1");
             if ("1".equals(apiVersion)) {
-                return exportForApiVersion1();
+                return exportForApiVersion1(snapshot);
             } else if ("2".equals(apiVersion)) {
-                return exportForApiVersion2();
+                return exportForApiVersion2(snapshot);
             } else {
-                return "# Unsupported apiVersion " + apiVersion + ". This is a simple export of the installed plugins\n" + exportForApiVersion1();
+                return "# Unsupported apiVersion " + apiVersion + ". This is a simple export of the installed plugins\n" + exportForApiVersion1(snapshot);
             }
         }
 
         @SuppressRestrictedWarnings({CloudBeesAssurance.class, Beekeeper.class})
         @SuppressFBWarnings(value = "NP_NULL_ON_SOME_PATH_FROM_RETURN_VALUE", justification = "False positive. currentBundle.getPluginConfigurations() is already checked")
-        private String exportForApiVersion2() {
-            ConfigurationBundle currentBundle = ConfigurationBundleManager.get().getConfigurationBundle();
+        private String exportForApiVersion2(ExportSnapshot snapshot) {
+            ConfigurationBundle currentBundle = snapshot.getBundle();
 
             if (currentBundle.getPluginConfigurations() == null || currentBundle.getPluginConfigurations().isEmpty()) {
                 // Nothing coming from the plugins.yaml files, so we only can consider that those plugins can be installed from the UC
                 // Those manually installed uploading the hpi file might fail
                 return "# Those plugins manually installed (not using a CasC bundle) might not be installable using the exported CasC bundle if they were uploaded instead of installed through the Plugin Manager\n" +
-                       exportForApiVersion1();
+                       exportForApiVersion1(snapshot);
             }
 
-            List<PluginWrapper> installedPlugins = Jenkins.get().getPluginManager().getPlugins();
-            Set<String> allDependencies = installedPlugins.stream().flatMap(plugin -> plugin.getDependencies().stream()).map(dependency -> dependency.shortName).collect(Collectors.toSet());
+            PluginConfigurationIndex index = snapshot.getPluginIndex();
 
             // First export those plugins that remains installed (not manually removed) which were installed using the CasC Bundle
-            Set<String> installedByIds = installedPlugins.stream().map(PluginWrapper::getShortName).collect(Collectors.toSet());
-            Set<PluginInstallConfiguration> confWithInstalledPlugins = currentBundle.getPluginConfigurations().stream().filter(conf -> CollectionUtils.containsAny(conf.getDefinedPlugins(), installedByIds)).collect(Collectors.toSet());
-            Set<PluginInstallConfiguration.Plugin> stillInstalledFromPluginYaml = confWithInstalledPlugins.stream().flatMap(conf -> conf.getPlugins().stream()).filter(plugin -> {
-                try {
-                    return installedByIds.contains(plugin.getId());
-                } catch (InvalidBundleException e) {
-                    // Cannot happen at this point. Bundle already validated
-                    return false;
-                }
-            }).collect(Collectors.toSet());
-            Set<String> stillInstalledFromPluginYamlIds = stillInstalledFromPluginYaml.stream().map(plugin -> {
-                try {
-                    return plugin.getId();
-                } catch (InvalidBundleException e) {
-                    // Cannot happen at this point. Bundle already validated
-                    return null;
-                }
-            }).filter(Objects::nonNull).collect(Collectors.toSet());
-
-            // For those still installed plugins, get the potential repositories. As the repository configuration might be in a plugins.yaml whose plugins are not more installed, we need to check all configurations
-            Set<String> repoIds = stillInstalledFromPluginYaml.stream().filter(plugin -> StringUtils.isNotBlank(plugin.getRepositoryId())).map(PluginInstallConfiguration.Plugin::getRepositoryId).collect(Collectors.toSet());
-            Set<PluginInstallConfiguration.Repository> repoForInstalledPlugins = currentBundle.getPluginConfigurations().stream().flatMap(config -> config.getRepositories().stream()).filter(repository -> {
-                try {
-                    return repoIds.contains(repository.getId());
-                } catch (InvalidBundleException e) {
-                    // Cannot happen at this point. Bundle already validated
-                    return false;
+            List<PluginInstallConfiguration.Plugin> finalList = new ArrayList<>();
+            Set<String> repoIds = new HashSet<>();
+            Set<String> credIds = new HashSet<>();
+            for (Map.Entry<String, PluginInstallConfiguration.Plugin> entry : index.getPlugins().entrySet()) {
+                if (index.getInstalled().contains(entry.getKey())) {
+                    PluginInstallConfiguration.Plugin plugin = entry.getValue();
+                    finalList.add(plugin);
+                    if (StringUtils.isNotBlank(plugin.getRepositoryId())) {
+                        repoIds.add(plugin.getRepositoryId());
+                    }
+                    if (StringUtils.isNotBlank(plugin.getCredentialsId())) {
+                        credIds.add(plugin.getCredentialsId());
+                    }
                 }
-            }).collect(Collectors.toSet());
+            }
 
-            // For those still installed plugins or their repositories, get the credentials. As the credentials might be in a plugins.yaml whose plugins are not more installed, we need to check all configurations
-            Set<String> credIds = new HashSet<>();
-            credIds.addAll(stillInstalledFromPluginYaml.stream().filter(plugin -> StringUtils.isNotBlank(plugin.getCredentialsId())).map(PluginInstallConfiguration.Plugin::getCredentialsId).collect(Collectors.toSet()));
-            credIds.addAll(repoForInstalledPlugins.stream().filter(repo -> StringUtils.isNotBlank(repo.getCredentialsId())).map(PluginInstallConfiguration.Repository::getCredentialsId).collect(Collectors.toSet()));
-            Set<PluginInstallConfiguration.Credential> credForInstalledPlugins = currentBundle.getPluginConfigurations().stream().flatMap(conf -> conf.getCredentials().stream()).filter(credential -> {
-                try {
-                    return credIds.contains(credential.getId());
-                } catch (InvalidBundleException e) {
-                    // Cannot happen at this point. Bundle already validated
-                    return false;
+            // For those still installed plugins, get the potential repositories and credentials. As they might be in a plugins.yaml whose plugins are not more installed, all configurations are indexed
+            List<PluginInstallConfiguration.Repository> repositories = new ArrayList<>();
+            for (String repoId : repoIds) {
+                PluginInstallConfiguration.Repository repository = index.getRepository(repoId);
+                if (repository != null) {
+                    repositories.add(repository);
+                    if (StringUtils.isNotBlank(repository.getCredentialsId())) {
+                        credIds.add(repository.getCredentialsId());
+                    }
                 }
-            }).collect(Collectors.toSet());
+            }
+            List<PluginInstallConfiguration.Credential> credentials = credIds.stream().map(index::getCredential).filter(Objects::nonNull).collect(Collectors.toList());
 
             // Next, those installed plugins that weren't installed using the bundle (manually or as a dependency).
             // Best effort: We cannot know if they were installed uploading the hpi file or through the UC, so we will suppose the Plugin Manager (UC)
             // Note: UC means either CAP plugins, or non CAP plugins from a plugin catalog or a non CAP plugin not in the plugin catalog. In all cases, the configuration is the same (just the id)
-            Set<String> installedManually = installedPlugins.stream().filter(pluginWrapper -> !stillInstalledFromPluginYamlIds.contains(pluginWrapper.getShortName())).map(PluginWrapper::getShortName).collect(Collectors.toSet());
-            Map<String, EnvelopePlugin> fromEnvelope = CloudBeesAssurance.get().getBeekeeper().getEnvelope().getPlugins();
-            Set<PluginInstallConfiguration.Plugin> installedManuallyConfig = installedManually.stream().filter(pluginId -> {
+            Map<String, EnvelopePlugin> fromEnvelope = snapshot.getEnvelopePlugins();
+            for (String pluginId : index.getInstalled()) {
+                if (index.getPlugins().containsKey(pluginId)) {
+                    // Already exported from the plugins.yaml files
+                    continue;
+                }
                 // If bootstrap, no need to have it there
                 if (fromEnvelope.containsKey(pluginId) && fromEnvelope.get(pluginId).getScope().equals(Scope.BOOTSTRAP)) {
-                    return false;
+                    continue;
                 }
-
                 // If it is a dependency, no need to have it there
-                if (allDependencies.contains(pluginId)) {
-                    return false;
+                if (index.isDependency(pluginId)) {
+                    continue;
                 }
+                finalList.add(PluginInstallConfiguration.Plugin.fromUC(pluginId));
+            }
 
-                return true;
-            }).map(PluginInstallConfiguration.Plugin::fromUC).collect(Collectors.toSet());
-
-            List<PluginInstallConfiguration.Plugin> finalList = new ArrayList<>();
-            finalList.addAll(stillInstalledFromPluginYaml);
-            finalList.addAll(installedManuallyConfig);
+            // Sorted, so the same plugins are always exported the same way
+            finalList.sort(Comparator.comparing(plugin -> sortKey(plugin::getId)));
+            repositories.sort(Comparator.comparing(repository -> sortKey(repository::getId)));
+            credentials.sort(Comparator.comparing(credential -> sortKey(credential::getId)));
 
             try {
                 return "# Those plugins manually installed (not using a CasC bundle) might not be installable using the exported CasC bundle if they were uploaded instead of installed through the Plugin Manager\n" +
-                       PluginInstallConfiguration.from(finalList, new ArrayList<>(repoForInstalledPlugins), new ArrayList<>(credForInstalledPlugins)).toYaml();
+                       PluginInstallConfiguration.from(finalList, repositories, credentials).toYaml();
             } catch (InvalidBundleException | IOException e) {
                 LOG.log(Level.WARNING, "Plugins could not be exported. Returning an empty export", e);
                 return "";
             }
         }
 
-        private String exportForApiVersion1() {
+        @NonNull
+        private static String sortKey(@NonNull PluginConfigurationIndex.Id id) {
+            return StringUtils.defaultString(PluginConfigurationIndex.idOf(id));
+        }
+
+        private String exportForApiVersion1(ExportSnapshot snapshot) {
             List<String> plugins = new ArrayList<>();
 
             // get the list of installed plugins
-            List<PluginWrapper> installedPlugins = Jenkins.get().getPluginManager().getPlugins();
+            List<PluginWrapper> installedPlugins = snapshot.getInstalledPlugins();
             for (PluginWrapper p : installedPlugins) {
                 plugins.add(p.getShortName());
             }
@@ -336,6 +395,10 @@ public abstract class BundleExporter implements ExtensionPoint {
     @SuppressRestrictedWarnings(value = {GlobalRbac.class})
     @Extension(ordinal = 2)
     public static final class GlobalRbacExporter extends BundleExporter {
+
+        static final String ROLES_FILE = "rbac-roles.yaml";
+        static final String GROUPS_FILE = "rbac-groups.yaml";
+
         @NonNull
         @Override
         public String getYamlFile() {
@@ -345,19 +408,56 @@ public abstract class BundleExporter implements ExtensionPoint {
         @Override
         @CheckForNull
         public String getExport() {
-            GlobalRbac rbac = new GlobalRbac(Jenkins.get());
-            Map<String, Object> yaml = rbac.toYaml();
+            StringWriter writer = new StringWriter();
+            try {
+                export(writer);
+            } catch (IOException e) {
+                // Not thrown by StringWriter
+                throw new UncheckedIOException(e);
+            }
+            return writer.toString();
+        }
+
+        @Override
+        public boolean export(@NonNull Writer writer) throws IOException {
+            Map<String, Object> yaml = ExportSnapshot.get().getGlobalRbac();
             if (!yaml.isEmpty()) {
                 DumperOptions options = new DumperOptions();
                 options.setDefaultFlowStyle(DumperOptions.FlowStyle.BLOCK);
                 Yaml output = YamlClientUtils.Builder.create().setDumperOptions(options).build();
-                StringWriter writer = new StringWriter();
                 output.dump(yaml, writer);
-                return writer.toString();
             } else {
                 LOG.log(Level.FINE, "There is no global role or group to export.");
-                return "";
             }
+            return true;
+        }
+
+        /**
+         * The roles and the groups are exported in different files
+         */
+        @NonNull
+        @Override
+        public List<String> getShardFiles() {
+            return Arrays.asList(ROLES_FILE, GROUPS_FILE);
+        }
+
+        @Override
+        public boolean exportShard(@NonNull String file, @NonNull Writer writer) throws IOException {
+            Map<String, Object> yaml = ExportSnapshot.get().getGlobalRbac();
+            Map<String, Object> shard = new LinkedHashMap<>();
+            if (GROUPS_FILE.equals(file)) {
+                if (yaml.containsKey("groups")) {
+                    copyIfPresent(yaml, shard, "removeStrategy");
+                    shard.put("groups", yaml.get("groups"));
+                }
+            } else {
+                shard.putAll(yaml);
+                shard.remove("groups");
+            }
+            if (!shard.isEmpty()) {
+                newYaml().dump(shard, writer);
+            }
+            return true;
         }
 
         @NonNull
@@ -378,6 +478,7 @@ public abstract class BundleExporter implements ExtensionPoint {
     @SuppressRestrictedWarnings(value = {Items.class})
     @Extension(ordinal = 1)
     public static final class ItemsExporter extends BundleExporter {
+
         @NonNull
         @Override
         public String getYamlFile() {
@@ -387,21 +488,163 @@ public abstract class BundleExporter implements ExtensionPoint {
         @Override
         @CheckForNull
         public String getExport() {
-            Items items = new Items(Jenkins.get());
-            Map<String, Object> yaml = items.toYaml();
+            StringWriter writer = new StringWriter();
+            try {
+                export(writer);
+            } catch (IOException e) {
+                // Not thrown by StringWriter
+                throw new UncheckedIOException(e);
+            }
+            return writer.toString();
+        }
+
+        @Override
+        public boolean export(@NonNull Writer writer) throws IOException {
+            Map<String, Object> yaml = toYaml();
 
             if (!yaml.isEmpty()) {
-                DumperOptions options = new DumperOptions();
-                options.setDefaultFlowStyle(DumperOptions.FlowStyle.BLOCK);
-                Yaml output = YamlClientUtils.Builder.create().setDumperOptions(options).build();
-                StringWriter writer = new StringWriter();
-                output.dump(yaml, writer);
-                return writer.toString();
+                newYaml().dump(yaml, writer);
             } else {
                 LOG.log(Level.FINE, "There is no folder to export.");
-                return "";
+            }
+            return true;
+        }
+
+        /**
+         * Each top level folder is exported in its own file, and the rest of top level items in items.yaml
+         */
+        @NonNull
+        @Override
+        public List<String> getShardFiles() {
+            List<String> files = new ArrayList<>();
+            files.add(getYamlFile());
+            for (Map<String, Object> folder : topLevel(toYaml(), true)) {
+                files.add(folderFile(folder));
+            }
+            return files;
+        }
+
+        @Override
+        public boolean exportShard(@NonNull String file, @NonNull Writer writer) throws IOException {
+            Map<String, Object> yaml = toYaml();
+            Map<String, Object> shard = new LinkedHashMap<>();
+            copyIfPresent(yaml, shard, "removeStrategy");
+            if (getYamlFile().equals(file)) {
+                shard.put("items", topLevel(yaml, false));
+            } else {
+                List<Map<String, Object>> folder = topLevel(yaml, true).stream().filter(item -> file.equals(folderFile(item))).collect(Collectors.toList());
+                if (folder.isEmpty()) {
+                    return false;
+                }
+                shard.put("items", folder);
+            }
+            newYaml().dump(shard, writer);
+            return true;
+        }
+
+        /**
+         * @param folders true for the folders, false for the rest of items
+         * @return the top level items, sorted by name
+         */
+        @SuppressWarnings("unchecked")
+        private static List<Map<String, Object>> topLevel(Map<String, Object> yaml, boolean folders) {
+            if (!(yaml.get("items") instanceof List)) {
+                return Collections.emptyList();
+            }
+            return ((List<Object>) yaml.get("items")).stream()
+                                                     .filter(Map.class::isInstance)
+                                                     .map(item -> (Map<String, Object>) item)
+                                                     .filter(item -> folders == item.get("items") instanceof List)
+                                                     .sorted(Comparator.comparing(item -> String.valueOf(item.get("name"))))
+                                                     .collect(Collectors.toList());
+        }
+
+        private static String folderFile(Map<String, Object> folder) {
+            return folderFile(String.valueOf(folder.get("name")));
+        }
+
+        private static String folderFile(String name) {
+            return "items-" + name + ".yaml";
+        }
+
+        /**
+         * Evicts the cached files of a folder when it's deleted or moved, as they're not requested again: the items of the
+         * folder for the paged export and, for a top level folder, its file of the sharded export
+         */
+        @Extension
+        public static final class ShardEviction extends ItemListener {
+            @Override
+            public void onDeleted(Item item) {
+                if (item instanceof ItemGroup) {
+                    ExportCache.INSTANCE.evict(ItemsExportScope.cacheName(item.getFullName()));
+                    if (item.getParent() == Jenkins.get()) {
+                        ExportCache.INSTANCE.evictShard(folderFile(item.getName()));
+                    }
+                }
             }
 
+            @Override
+            public void onLocationChanged(Item item, String oldFullName, String newFullName) {
+                if (item instanceof ItemGroup) {
+                    ExportCache.INSTANCE.evict(ItemsExportScope.cacheName(oldFullName));
+                    if (!oldFullName.contains("/")) {
+                        ExportCache.INSTANCE.evictShard(folderFile(oldFullName));
+                    }
+                }
+            }
+        }
+
+        /**
+         * Selects the items in a scope. The folder is checked before converting anything, and its items are kept by the
+         * {@link ExportCache} until an item or the configuration changes, so the pages of a folder share a single conversion
+         * and each page only reads the items of the folder.
+         * The items API only converts the whole instance, with no way to start at a folder, so the first page requested
+         * after a change still costs the conversion of the whole instance.
+         * @param scope the folder, depth and page to export
+         * @return the page of items, null if the folder doesn't exist
+         * @throws IOException if the items of the folder cannot be cached
+         */
+        @CheckForNull
+        ItemsExportScope.Page select(@NonNull ItemsExportScope scope) throws IOException {
+            if (!scope.isFolderFound()) {
+                return null;
+            }
+            try (ExportCache.Entry folder = ExportCache.INSTANCE.export(scope.getCacheName(), writer -> exportFolder(scope, writer), ExportSnapshot.capture())) {
+                if (!folder.isExported()) {
+                    return null;
+                }
+                Map<String, Object> folderYaml;
+                try (Reader reader = Files.newBufferedReader(folder.getFile(), StandardCharsets.UTF_8)) {
+                    folderYaml = YamlClientUtils.createDefault().load(reader);
+                }
+                return folderYaml != null ? scope.selectInFolder(folderYaml) : null;
+            }
+        }
+
+        private static boolean exportFolder(ItemsExportScope scope, Writer writer) {
+            Map<String, Object> folderYaml = scope.folderOf(toYaml());
+            if (folderYaml == null) {
+                return false;
+            }
+            newYaml().dump(folderYaml, writer);
+            return true;
+        }
+
+        /**
+         * Writes a page of items
+         * @param writer where the file is written. It's not closed.
+         * @param page the page selected by {@link #select(ItemsExportScope)}
+         * @throws IOException if the file cannot be written
+         */
+        void export(@NonNull Writer writer, @NonNull ItemsExportScope.Page page) throws IOException {
+            page.writeTo(writer, newYaml());
+        }
+
+        /**
+         * @return the items export of the instance, converted once per export. Not to be modified.
+         */
+        private static Map<String, Object> toYaml() {
+            return ExportSnapshot.get().getItems();
         }
 
         @NonNull
@@ -416,6 +659,103 @@ public abstract class BundleExporter implements ExtensionPoint {
         }
     }
 
+    private static Yaml newYaml() {
+        DumperOptions options = new DumperOptions();
+        options.setDefaultFlowStyle(DumperOptions.FlowStyle.BLOCK);
+        return YamlClientUtils.Builder.create().setDumperOptions(options).build();
+    }
+
+    private static void copyIfPresent(Map<String, Object> from, Map<String, Object> to, String key) {
+        if (from.containsKey(key)) {
+            to.put(key, from.get(key));
+        }
+    }
+
+    /**
+     * Writer of an exported file in a response containing several files. The header of the file is written right before
+     * the first content, so the files without content can be left out of the response.
+     */
+    static final class SectionWriter extends Writer {
+
+        /**
+         * Writes the header of the file
+         */
+        @FunctionalInterface
+        interface Header {
+            void write() throws IOException;
+        }
+
+        private final Writer out;
+        private final Header header;
+        private final boolean skipBlank;
+        /**
+         * Leading whitespaces, kept until some content is written
+         */
+        private final StringBuilder pending = new StringBuilder();
+        private boolean started;
+
+        /**
+         * @param out where the file is written
+         * @param header writing the header of the file
+         * @param skipBlank true to consider the whitespaces as no content
+         */
+        SectionWriter(@NonNull Writer out, @NonNull Header header, boolean skipBlank) {
+            this.out = out;
+            this.header = header;
+            this.skipBlank = skipBlank;
+        }
+
+        @Override
+        public void write(@NonNull char[] cbuf, int off, int len) throws IOException {
+            if (started) {
+                out.write(cbuf, off, len);
+                return;
+            }
+            for (int i = off; i < off + len; i++) {
+                if (!skipBlank || !Character.isWhitespace(cbuf[i])) {
+                    pending.append(cbuf, off, i - off);
+                    start();
+                    out.write(cbuf, i, off + len - i);
+                    return;
+                }
+            }
+            pending.append(cbuf, off, len);
+        }
+
+        /**
+         * Writes the header, if not written yet, even if there is no content
+         * @throws IOException if the header cannot be written
+         */
+        void start() throws IOException {
+            if (!started) {
+                started = true;
+                header.write();
+                out.write(pending.toString());
+                pending.setLength(0);
+            }
+        }
+
+        /**
+         * @return true if the header has been written
+         */
+        boolean isStarted() {
+            return started;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+
+        /**
+         * Flushes the content, but the underlying writer is not closed as it is used for the next files
+         */
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+
     protected String getInstanceName() {
         if (StringUtils.isNotBlank(System.getProperty("MASTER_NAME"))) {
             return System.getProperty("MASTER_NAME").trim();
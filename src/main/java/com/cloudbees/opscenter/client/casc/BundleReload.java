@@ -10,23 +10,27 @@ import com.cloudbees.jenkins.cjp.installmanager.casc.plugin.management.PluginLis
 import com.cloudbees.jenkins.cjp.installmanager.casc.plugin.management.report.InstalledPluginsReport;
 import com.cloudbees.jenkins.plugins.assurance.CloudBeesAssurance;
 import com.cloudbees.jenkins.plugins.assurance.model.Beekeeper;
-import com.cloudbees.jenkins.plugins.assurance.remote.extensionparser.ParsedEnvelopeExtension;
 import com.cloudbees.jenkins.plugins.assurance.remote.extensionparser.plugin.PluginEntry;
 import com.cloudbees.jenkins.plugins.casc.Bootstrap;
 import com.cloudbees.jenkins.plugins.casc.CasCException;
 import com.cloudbees.jenkins.plugins.casc.YamlClientUtils;
 import com.cloudbees.jenkins.plugins.casc.comparator.BundleComparator;
+import com.cloudbees.jenkins.plugins.casc.comparator.BundleSnapshot;
 import com.cloudbees.jenkins.plugins.casc.items.ItemsProcessor;
 import com.cloudbees.jenkins.plugins.casc.items.RemoveStrategyProcessor;
+import com.cloudbees.jenkins.plugins.casc.rbac.GlobalRbac;
 import com.cloudbees.jenkins.plugins.updates.envelope.EnvelopePlugin;
 
-import com.google.common.collect.Sets;
+import hudson.BulkChange;
 import hudson.Extension;
 import hudson.ExtensionList;
 import hudson.ExtensionPoint;
 import hudson.Plugin;
+import hudson.PluginWrapper;
+import hudson.model.Saveable;
 import hudson.model.UpdateCenter;
 import hudson.model.UpdateSite;
+import hudson.util.FormValidation;
 import hudson.util.VersionNumber;
 import jenkins.model.Jenkins;
 
@@ -40,7 +44,10 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -54,6 +61,8 @@ import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import net.sf.json.JSONObject;
 
@@ -81,22 +90,80 @@ public abstract class BundleReload implements ExtensionPoint {
     /**
      * Check if the bundle can be partially reloaded. If so, then only those sections with changes will be reloaded.
      * If the differences between the new version and the current installed version cannot be calculated ({@link ConfigurationStatus#getChangesInNewVersion()} returns null)
-     * or if there are changes in the variables, then the partial reload is not allowed and a full reload is performed.
+     * or if there are changes in the variables and the sections using them cannot be calculated, then the partial reload is not allowed and a full reload is performed.
+     * Otherwise, sections using variables with changes are reloaded as if they had changes.
      * @param bundle to reload
      * @throws CasCException if an error happens when reloading a section
      */
     public static void reload(ConfigurationBundle bundle) throws CasCException {
-        BundleComparator.Result comparisonResult = ConfigurationStatus.INSTANCE.getChangesInNewVersion();
-        boolean fullReload = comparisonResult == null || comparisonResult.getVariables().withChanges();
-        reload(bundle, fullReload);
+        reload(bundle, isFullReload(ConfigurationStatus.INSTANCE.getChangesInNewVersion()));
+    }
+
+    /**
+     * @param comparisonResult differences between the new version and the current installed version
+     * @return true if all the sections must be reloaded, as the sections with changes cannot be calculated
+     */
+    static boolean isFullReload(@CheckForNull BundleComparator.Result comparisonResult) {
+        return comparisonResult == null || (comparisonResult.getVariables().withChanges() && !comparisonResult.isVariablesImpactKnown());
     }
 
     private static void reload(ConfigurationBundle bundle, boolean fullReload) throws CasCException {
-        for (BundleReload bundleReload : BundleReload.all()) {
-            if (fullReload || bundleReload.isReloadable()) {
-                LOGGER.fine("Reloading bundle section " + bundleReload.getClass().getName());
-                bundleReload.doReload(bundle);
+        ReloadMetrics.INSTANCE.reloadStarted();
+        try {
+            for (BundleReload bundleReload : BundleReload.all()) {
+                if (fullReload || bundleReload.isReloadable()) {
+                    LOGGER.fine("Reloading bundle section " + bundleReload.getClass().getName());
+                    ReloadProgress.INSTANCE.sectionStarted(bundleReload.getSection());
+                    try {
+                        reloadSection(bundleReload, bundle, fullReload);
+                    } catch (CasCException | RuntimeException e) {
+                        ReloadProgress.INSTANCE.error(bundleReload.getSection(), e.getMessage());
+                        throw e;
+                    }
+                    ReloadProgress.INSTANCE.sectionFinished(bundleReload.getSection());
+                } else {
+                    ReloadProgress.INSTANCE.sectionSkipped(bundleReload.getSection());
+                }
+            }
+        } finally {
+            ReloadMetrics.INSTANCE.reloadFinished();
+            ReloadMetrics.Reload metrics = ReloadMetrics.INSTANCE.getLast();
+            if (metrics != null) {
+                LOGGER.log(Level.INFO, "Bundle reloaded in {0} ms with {1} configuration files written", new Object[]{metrics.getDurationMillis(), metrics.getSaves()});
+            }
+        }
+    }
+
+    /**
+     * Reloads a section inside a {@link BulkChange} scope for the global configuration and for each of the {@link #getSaveables()}
+     * of the section, so they are written once at the end of the section instead of once per change.
+     * The changes are written even if the section fails, as they are already applied in memory.
+     * Items are not included, as they are created and updated by the items processor, so each item is still written when it's applied.
+     */
+    private static void reloadSection(BundleReload bundleReload, ConfigurationBundle bundle, boolean fullReload) throws CasCException {
+        long start = System.currentTimeMillis();
+        long savesBefore = ReloadMetrics.INSTANCE.getSaves();
+        Deque<BulkChange> bulkChanges = new ArrayDeque<>();
+        bulkChanges.push(new BulkChange(Jenkins.get()));
+        for (Saveable saveable : bundleReload.getSaveables()) {
+            bulkChanges.push(new BulkChange(saveable));
+        }
+        try {
+            bundleReload.doReload(bundle, fullReload);
+        } finally {
+            long commitStart = System.currentTimeMillis();
+            // Nested scopes, committed in reverse order
+            while (!bulkChanges.isEmpty()) {
+                try {
+                    bulkChanges.pop().commit();
+                } catch (IOException e) {
+                    LOGGER.log(Level.WARNING, "Configuration cannot be saved after reloading the bundle section {0}: {1}", new Object[]{bundleReload.getSection(), e.getMessage()});
+                    LOGGER.log(Level.FINE, "Configuration cannot be saved after reloading the bundle section", e);
+                }
             }
+            long writeMillis = System.currentTimeMillis() - commitStart;
+            ReloadMetrics.INSTANCE.sectionReloaded(bundleReload.getSection(), System.currentTimeMillis() - start, writeMillis,
+                                                   ReloadMetrics.INSTANCE.getSaves() - savesBefore);
         }
     }
 
@@ -106,6 +173,26 @@ public abstract class BundleReload implements ExtensionPoint {
      */
     public abstract void doReload(ConfigurationBundle bundle) throws CasCException;
 
+    /**
+     * Configuration written by the section besides the global configuration, which is saved once at the end of the section.
+     * Thought to be overridden, empty by default.
+     * @return the configuration objects changed by the section
+     */
+    @NonNull
+    protected List<Saveable> getSaveables() {
+        return Collections.emptyList();
+    }
+
+    /**
+     * Reload the bundle section, knowing if the whole bundle is being reloaded or only the sections with changes.
+     * Thought to be overridden by sections able to apply only the changes. By default, it reloads the whole section.
+     * @param bundle to reload
+     * @param fullReload true if the whole bundle is reloaded, so the section must be completely applied
+     */
+    public void doReload(ConfigurationBundle bundle, boolean fullReload) throws CasCException {
+        doReload(bundle);
+    }
+
     /**
      * Method to check if the section has to be reloaded
      * Thought to be overridden, returns true by default
@@ -115,6 +202,15 @@ public abstract class BundleReload implements ExtensionPoint {
         return true;
     }
 
+    /**
+     * Name of the bundle section reloaded by this extension, used to report the reload progress
+     * Thought to be overridden, returns the simple class name by default
+     * @return the name of the section
+     */
+    public String getSection() {
+        return getClass().getSimpleName();
+    }
+
     /**
      * Reload / Install the plugins
      */
@@ -124,58 +220,67 @@ public abstract class BundleReload implements ExtensionPoint {
 
         private static final Logger LOGGER = Logger.getLogger(PluginsReload.class.getName());
 
+        /**
+         * Update sites whose data was retrieved within this period are not refreshed before installing the plugins
+         */
+        static long UPDATE_SITE_FRESHNESS_SECONDS = Long.getLong(PluginsReload.class.getName() + ".updateSiteFreshnessSeconds", 60);
+
+        @Override
+        public String getSection() {
+            return "plugins";
+        }
+
         @Override
         public void doReload(ConfigurationBundle bundle) throws CasCException {
-            doReloadFromCatalogAndExtension(bundle);
+            // Plugins in the envelope and in the installed plugin catalog
+            InstalledPluginsSnapshot installed = InstalledPluginsSnapshot.get();
+            doReloadFromCatalogAndExtension(bundle, installed.getIndex());
             if ("2".equals(bundle.getApiVersion())) {
-                doReloadFromUrlAndMavenPlugins(bundle);
+                doReloadFromUrlAndMavenPlugins(bundle, installed);
             }
         }
 
-        private void doReloadFromCatalogAndExtension(ConfigurationBundle bundle) {
-            Set<String> beekperPlugins = Sets.newHashSet(CloudBeesAssurance.get().getBeekeeper().getEnvelope().getPlugins().keySet());
-            ParsedEnvelopeExtension.Expanded expanded =  CloudBeesAssurance.get().getBeekeeper().getInstalledExtension();
-            Set<String> expandedPlugins = new HashSet<>();
-            if (expanded != null) {
-                expandedPlugins.addAll(expanded.getConfiguration().getInclude().keySet());
-            }
-            beekperPlugins.addAll(expandedPlugins);
-            Set<String> plugins = ConfigurationUpdaterHelper.getOnlyPluginsInEnvelope(bundle.getPlugins(), beekperPlugins);
+        private void doReloadFromCatalogAndExtension(ConfigurationBundle bundle, PluginConfigurationIndex index) {
+            Set<String> plugins = ConfigurationUpdaterHelper.getOnlyPluginsInEnvelope(bundle.getPlugins(), index.getAvailablePlugins().keySet());
 
-            updateDirectlyUpdateSites();
+            updateDirectlyUpdateSites(plugins);
             downloadPluginsFromUC(plugins);
-            updatePluginReportV1(plugins, expandedPlugins);
+            updatePluginReportV1(plugins, index);
         }
 
         private void downloadPluginsFromUC(Set<String> plugins) {
             List<UpdateSite.Plugin> pluginsToInstall = Jenkins.get().getUpdateCenter().getAvailables().stream().filter(p -> plugins.contains(p.name)).collect(Collectors.toList());
             List<Future<UpdateCenter.UpdateCenterJob>> status = pluginsToInstall.stream().map(p -> p.deploy(true)).collect(Collectors.toList());
 
-            for (Future<UpdateCenter.UpdateCenterJob> s : status) {
+            for (int i = 0; i < status.size(); i++) {
+                String name = pluginsToInstall.get(i).name;
                 try {
-                    s.get(1, TimeUnit.MINUTES);
+                    status.get(i).get(1, TimeUnit.MINUTES);
+                    ReloadProgress.INSTANCE.pluginInstalled(name, i + 1, status.size());
                 } catch (InterruptedException | ExecutionException e) {
                     LOGGER.log(Level.WARNING, "Plugin installation failed {0}", e.getMessage());
                     LOGGER.log(Level.FINE, "Plugin installation failed", e);
+                    ReloadProgress.INSTANCE.error(getSection(), String.format("Plugin %s installation failed: %s", name, e.getMessage()));
                 } catch (TimeoutException e) {
                     LOGGER.log(Level.WARNING, "Plugin installation timeout");
                     LOGGER.log(Level.FINE, "Plugin installation timeout", e);
+                    ReloadProgress.INSTANCE.error(getSection(), String.format("Plugin %s installation timeout", name));
                 }
             }
         }
 
         // Will deploy plugins that are indicated via url / coordinates and update the report
         @SuppressFBWarnings(value = "NP_NULL_ON_SOME_PATH_FROM_RETURN_VALUE", justification = "Path is known to exist")
-        private void doReloadFromUrlAndMavenPlugins(ConfigurationBundle bundle) throws CasCException {
+        private void doReloadFromUrlAndMavenPlugins(ConfigurationBundle bundle, InstalledPluginsSnapshot installed) throws CasCException {
             Set<String> capDependenciesToInstall = new HashSet<>();
             Map<String, Path> pluginsToinstall = new HashMap<>();
             try {
-                Path newPluginsList = PluginListExpander.expand(bundle, CloudBeesAssurance.get().getBeekeeper().getEnvelope(), CloudBeesAssurance.get().getBeekeeper().getInstalledExtension());
+                Path newPluginsList = PluginListExpander.expand(bundle, installed.getEnvelope(), installed.getInstalledExtension());
                 if (newPluginsList != null && newPluginsList.toFile().exists()) {
                     List<String> plugins = FileUtils.readLines(newPluginsList.toFile());
                     for (String plugin : plugins) {
-                        Plugin install = Jenkins.get().getPlugin(plugin);
-                        if (install == null) {
+                        PluginWrapper install = installed.getInstalledPlugin(plugin);
+                        if (install == null || install.getPlugin() == null) {
                             // For performance reasons, only install new plugins (Updates won't be allowed as they will need a restart)
                             File pluginFile = PluginListExpander.getExpandedFile(plugin).toFile();
                             if (pluginFile.exists()) {
@@ -186,8 +291,13 @@ public abstract class BundleReload implements ExtensionPoint {
                         }
                     }
                     downloadPluginsFromUC(capDependenciesToInstall);
-                    pluginsToinstall.forEach(this::deployDownloadedPlugins);
-                    updatePluginReportV2(newPluginsList);
+                    int total = pluginsToinstall.size();
+                    int processed = 0;
+                    for (Map.Entry<String, Path> entry : pluginsToinstall.entrySet()) {
+                        deployDownloadedPlugins(entry.getKey(), entry.getValue());
+                        ReloadProgress.INSTANCE.pluginInstalled(entry.getKey(), ++processed, total);
+                    }
+                    updatePluginReportV2(newPluginsList, installed.getIndex());
                 }
             } catch (InvalidBundleException e) {
                 LOGGER.log(Level.WARNING, String.format("Invalid bundle, could not process plugins: %s", e.getMessage()));
@@ -213,39 +323,29 @@ public abstract class BundleReload implements ExtensionPoint {
             }
         }
 
-        private void updatePluginReportV1(Set<String> plugins, Set<String> expandedPlugins){
+        private void updatePluginReportV1(Set<String> plugins, PluginConfigurationIndex index){
             // Plugins are already filtered and have been installed, only needed check is if they're in the catalog (non-CAP) or not (CAP)
             // On this point all plugins are requested, bootstrap plugins should already be installed before reaching reload
             InstalledPluginsReport report = ConfigurationBundleManager.get().getReport();
-            Map<String, EnvelopePlugin> beekeeperPlugins = new HashMap<>(CloudBeesAssurance.get().getBeekeeper().getEnvelope().getPlugins());
-            ParsedEnvelopeExtension.Expanded expanded =  CloudBeesAssurance.get().getBeekeeper().getInstalledExtension();
-            if (expanded != null) {
-                expanded.getConfiguration().getInclude().forEach((k, v) -> beekeeperPlugins.put(k, v.asEnvelopePlugin()));
-            }
+            Map<String, EnvelopePlugin> beekeeperPlugins = index.getAvailablePlugins();
             for (String plugin : plugins) {
                 if (!report.getBootstrap().containsKey(plugin)) {
-                    boolean cap = !expandedPlugins.contains(plugin);
+                    boolean cap = !index.getCatalogPlugins().contains(plugin);
                     report.addRequestedPlugin(plugin, beekeeperPlugins.get(plugin).getVersionNumber(), cap, "requested", beekeeperPlugins.get(plugin).getDependencies());
                 }
             }
 
         }
 
-        private void updatePluginReportV2(Path pluginList){
+        private void updatePluginReportV2(Path pluginList, PluginConfigurationIndex index){
             InstalledPluginsReport report = ConfigurationBundleManager.get().getReport();
-            Map<String, EnvelopePlugin> beekeeperPlugins = new HashMap(CloudBeesAssurance.get().getBeekeeper().getEnvelope().getPlugins());
-            ParsedEnvelopeExtension.Expanded expanded =  CloudBeesAssurance.get().getBeekeeper().getInstalledExtension();
-            if (expanded != null) {
-                expanded.getConfiguration().getInclude().forEach((k, v) -> beekeeperPlugins.put(k, v.asEnvelopePlugin()));
-            }
+            Map<String, EnvelopePlugin> beekeeperPlugins = index.getAvailablePlugins();
             // On this point all plugins are requested, bootstrap plugins should already be installed before reaching reload
             try {
                 for (String plugin : Files.readAllLines(pluginList).stream().filter(p -> !report.getBootstrap().containsKey(p)).collect(Collectors.toSet())) {
                     if (beekeeperPlugins.containsKey(plugin)) { // We can get the dependencies from the envelope
-                        boolean cap = true;
-                        if (expanded != null && expanded.getConfiguration().getInclude().containsKey(plugin)) {
-                            cap = false; // If it's added by the catalog it's not in CAP
-                        }
+                        // If it's added by the catalog it's not in CAP
+                        boolean cap = !index.getCatalogPlugins().contains(plugin);
                         report.addRequestedPlugin(plugin, beekeeperPlugins.get(plugin).getVersionNumber(), cap, "requested", beekeeperPlugins.get(plugin).getDependencies());
                     } else {
                         // We need to go into the expanded plugin folder and check it's dependencies
@@ -275,19 +375,56 @@ public abstract class BundleReload implements ExtensionPoint {
         @Override
         public boolean isReloadable() {
             BundleComparator.Result comparisonResult = ConfigurationStatus.INSTANCE.getChangesInNewVersion();
-            return comparisonResult != null && comparisonResult.getPlugins().withChanges();
+            return comparisonResult != null && (comparisonResult.getPlugins().withChanges() || comparisonResult.isAffectedByVariables(getSection()));
         }
 
-        private void updateDirectlyUpdateSites() {
-            Jenkins.get().getUpdateCenter().getSites().stream().map(s -> s.updateDirectly()).collect(Collectors.toList()).stream().forEach(f -> {
+        /**
+         * Refreshes the update sites data before installing the plugins.
+         * Sites whose data was retrieved within the last {@link #UPDATE_SITE_FRESHNESS_SECONDS} seconds are not refreshed,
+         * unless some of the requested plugins is not offered by any of them. The rest are refreshed in parallel, waiting
+         * for all of them to complete up to {@link ConfigurationBundleService#TIMEOUT_CATALOG_SECONDS} seconds in total.
+         * @param plugins to be installed
+         */
+        private void updateDirectlyUpdateSites(Set<String> plugins) {
+            List<UpdateSite> sites = Jenkins.get().getUpdateCenter().getSites();
+            long now = System.currentTimeMillis();
+            long freshness = TimeUnit.SECONDS.toMillis(UPDATE_SITE_FRESHNESS_SECONDS);
+            List<UpdateSite> toRefresh = sites.stream().filter(s -> now - s.getDataTimestamp() > freshness).collect(Collectors.toList());
+            if (toRefresh.size() < sites.size() && !allPluginsOffered(plugins)) {
+                LOGGER.log(Level.FINE, "Some requested plugins are not offered by the update sites. Refreshing all of them");
+                toRefresh = sites;
+            }
+            if (toRefresh.isEmpty()) {
+                LOGGER.log(Level.FINE, "Update sites data is up to date. Skipping refresh");
+                return;
+            }
+
+            long start = System.nanoTime();
+            long deadline = start + TimeUnit.SECONDS.toNanos(ConfigurationBundleService.TIMEOUT_CATALOG_SECONDS);
+            // updateDirectly returns immediately with a future completing when the data is retrieved, so sites are refreshed in parallel
+            Map<String, Future<FormValidation>> refreshes = new HashMap<>();
+            for (UpdateSite site : toRefresh) {
+                Future<FormValidation> f = site.updateDirectly();
+                if (f != null) {
+                    refreshes.put(site.getId(), f);
+                }
+            }
+            for (Map.Entry<String, Future<FormValidation>> refresh : refreshes.entrySet()) {
                 try {
-                    if (f != null) {
-                        f.get();
-                    }
+                    refresh.getValue().get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
                 } catch (InterruptedException | ExecutionException e) {
                     LOGGER.log(Level.WARNING, "Fail to update update sites data because of " + e.getMessage());
+                } catch (TimeoutException e) {
+                    LOGGER.log(Level.WARNING, "Timeout updating the update site {0} data. Using the data already available", refresh.getKey());
                 }
-            });
+            }
+            LOGGER.log(Level.FINE, "{0} of {1} update sites refreshed in {2} ms",
+                       new Object[]{refreshes.size(), sites.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)});
+        }
+
+        private boolean allPluginsOffered(Set<String> plugins) {
+            UpdateCenter updateCenter = Jenkins.get().getUpdateCenter();
+            return plugins.stream().allMatch(p -> Jenkins.get().getPluginManager().getPlugin(p) != null || updateCenter.getPlugin(p) != null);
         }
 
     }
@@ -295,14 +432,51 @@ public abstract class BundleReload implements ExtensionPoint {
     /**
      * Reload Items and RBAC.
      */
+    @SuppressRestrictedWarnings(value = {GlobalRbac.class})
     @Extension(ordinal = 2)
     public static final class RbacReload extends BundleReload {
 
         private static final Logger LOGGER = Logger.getLogger(RbacReload.class.getName());
 
+        /**
+         * If disabled, the RBAC configuration is always applied, even if it is already in place
+         */
+        static boolean INCREMENTAL = Boolean.parseBoolean(System.getProperty(RbacReload.class.getName() + ".incremental", "true"));
+
+        @Override
+        public String getSection() {
+            return "rbac";
+        }
+
+        /**
+         * The global RBAC configuration is kept by the RBAC plugin. Groups in folders are written with the items.
+         */
+        @NonNull
+        @Override
+        protected List<Saveable> getSaveables() {
+            Plugin rbac = Jenkins.get().getPlugin("nectar-rbac");
+            return rbac != null ? Collections.singletonList(rbac) : Collections.emptyList();
+        }
+
         @Override
         public void doReload(ConfigurationBundle bundle) throws CasCException {
             if (bundle.hasItems() || bundle.getRbac() != null) {
+                long start = System.currentTimeMillis();
+                RbacDelta delta = INCREMENTAL ? calculateDelta(bundle) : null;
+                long calculated = System.currentTimeMillis();
+                if (delta != null) {
+                    LOGGER.log(Level.INFO, "RBAC changes calculated in {0} ms: {1}", new Object[]{calculated - start, delta});
+                    // Only skipped if nothing changes without assuming any default. The RBAC plugin only applies the
+                    // whole configuration, so any change is applied with a full synchronization.
+                    if (delta.isEmpty() && delta.isExact()) {
+                        ReloadProgress.INSTANCE.progress(getSection(), 0, 0, "RBAC configuration already up to date");
+                        return;
+                    }
+                    if (delta.isEmpty()) {
+                        LOGGER.log(Level.INFO, "RBAC configuration might differ in default values or order, applying the whole configuration");
+                    }
+                    ReloadProgress.INSTANCE.progress(getSection(), 0, delta.getSize(), delta.toString());
+                }
                 try {
                     Bootstrap.initializeRbac();
                 } catch (IOException | CasCException e) {
@@ -310,9 +484,66 @@ public abstract class BundleReload implements ExtensionPoint {
                     LOGGER.log(Level.SEVERE, "Configuration as Code RBAC processing failed: {0}", e);
                     throw new CasCException("Configuration as Code RBAC processing failed", e);
                 }
+                LOGGER.log(Level.INFO, "RBAC configuration applied in {0} ms", System.currentTimeMillis() - calculated);
+                if (delta != null) {
+                    ReloadProgress.INSTANCE.progress(getSection(), delta.getSize(), delta.getSize(), delta.toString());
+                }
             }
         }
 
+        /**
+         * Calculates the changes to apply in the RBAC configuration
+         * @param bundle to reload
+         * @return the delta or null if it cannot be calculated, so the configuration must be applied
+         */
+        @CheckForNull
+        @SuppressFBWarnings(value = "NP_NULL_ON_SOME_PATH_FROM_RETURN_VALUE", justification = "bundle.getRbac() already checked")
+        static RbacDelta calculateDelta(ConfigurationBundle bundle) {
+            if (bundle.getRbac() == null) {
+                return null;
+            }
+            try {
+                List<Map<String, Object>> desired = new ArrayList<>();
+                for (String content : bundle.getRbac()) {
+                    Map<String, Object> parsed = YamlClientUtils.createDefault().load(content);
+                    if (parsed != null) {
+                        desired.add(parsed);
+                    }
+                }
+                Map<String, Object> current = new GlobalRbac(Jenkins.get()).toYaml();
+                return RbacDelta.calculate(current, desired, "sync".equalsIgnoreCase(getRemoveStrategy(bundle)));
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.WARNING, "RBAC changes cannot be calculated, applying the whole configuration: {0}", e.getMessage());
+                LOGGER.log(Level.FINE, "RBAC changes cannot be calculated", e);
+                return null;
+            }
+        }
+
+        /**
+         * Remove strategy from bundle prevails over remove strategy from yaml files
+         */
+        @CheckForNull
+        @SuppressFBWarnings(value = "NP_NULL_ON_SOME_PATH_FROM_RETURN_VALUE", justification = "False positive in bundle.getRbac(). Already checked with hasRBAC()")
+        private static String getRemoveStrategy(ConfigurationBundle bundle) {
+            String removeStrategy = bundle.getRbacRemoveStrategy();
+            if (StringUtils.isEmpty(removeStrategy)) {
+                BundleSnapshot snapshot = ConfigurationBundleManager.isSet() && bundle == ConfigurationBundleManager.get().getConfigurationBundle()
+                                          ? BundleSnapshot.read(ConfigurationBundleManager.getBundleFolder()) : null;
+                if (snapshot != null) {
+                    // Already parsed when the bundle was promoted
+                    return bundle.hasRBAC() ? StringUtils.defaultIfEmpty(snapshot.getRbacRemoveStrategy(), "update") : null;
+                }
+                if (bundle.hasRBAC()) {
+                    Map<String, Object> parsed = YamlClientUtils.createDefault().load(bundle.getRbac().get(0));
+                    if (parsed != null) {
+                        Map<String, Object> fromFile = (Map<String, Object>) parsed.getOrDefault("removeStrategy", new HashMap<>());
+                        removeStrategy = (String) fromFile.getOrDefault("rbac", "update"); // If no present, then let's consider update so it's not reloaded
+                    }
+                }
+            }
+            return removeStrategy;
+        }
+
         /**
          * Check if RBAC configuration should be reloaded
          * - If remove strategy is sync, then the groups and roles must be recreated, as if the bundle is applied in a restart
@@ -321,23 +552,12 @@ public abstract class BundleReload implements ExtensionPoint {
          * @return true if RBAC configuration must be reloaded
          */
         @Override
-        @SuppressFBWarnings(value = "NP_NULL_ON_SOME_PATH_FROM_RETURN_VALUE", justification = "False positive in newBundleVersion.getRbac(). Already checked with hasRBAC()")
         public boolean isReloadable() {
             ConfigurationBundle newBundleVersion = ConfigurationBundleManager.get().getConfigurationBundle();
-            String removeStrategy = newBundleVersion.getRbacRemoveStrategy();
-            if (StringUtils.isEmpty(removeStrategy)) {
-                if (newBundleVersion.hasRBAC()) {
-                    Map<String, Object> parsed = YamlClientUtils.createDefault().load(newBundleVersion.getRbac().get(0));
-                    if (parsed != null) {
-                        Map<String, Object> fromFile = (Map<String, Object>) parsed.getOrDefault("removeStrategy", new HashMap<>());
-                        removeStrategy = (String) fromFile.getOrDefault("rbac", "update"); // If no present, then let's consider update so it's not reloaded
-                    }
-                }
-            }
-            boolean isRemoveStrategyWithRemoval = "sync".equalsIgnoreCase(removeStrategy);
+            boolean isRemoveStrategyWithRemoval = "sync".equalsIgnoreCase(getRemoveStrategy(newBundleVersion));
 
             BundleComparator.Result comparisonResult = ConfigurationStatus.INSTANCE.getChangesInNewVersion();
-            boolean withChangesInItems = comparisonResult != null && comparisonResult.getRbac().withChanges();
+            boolean withChangesInItems = comparisonResult != null && (comparisonResult.getRbac().withChanges() || comparisonResult.isAffectedByVariables(getSection()));
 
             return isRemoveStrategyWithRemoval || withChangesInItems;
         }
@@ -351,15 +571,25 @@ public abstract class BundleReload implements ExtensionPoint {
 
         private static final Logger LOGGER = Logger.getLogger(ItemsReload.class.getName());
 
+        @Override
+        public String getSection() {
+            return "items";
+        }
+
         @Override
         public void doReload(ConfigurationBundle bundle) throws CasCException {
             if (bundle.hasItems() || bundle.getRbac() != null) {
+                ItemsReloadThrottle.start();
+                ItemsReloadProgress.start(getSection(), bundle);
                 try {
                     Bootstrap.initializeItems();
                 } catch (IOException | CasCException e) {
                     // TODO: let the exception to bubble up to fail fast (when we make the overall change about that)
                     LOGGER.log(Level.SEVERE, "Configuration as Code items processing failed: {0}", e);
                     throw new CasCException("Configuration as Code items processing failed", e);
+                } finally {
+                    ItemsReloadProgress.stop();
+                    ItemsReloadThrottle.stop();
                 }
             }
         }
@@ -380,13 +610,19 @@ public abstract class BundleReload implements ExtensionPoint {
                 if (fromDescriptor != null) {
                     removeStrategy = fromDescriptor.getItems();
                 } else {
-                    removeStrategy = !newBundleVersion.hasItems() || ItemsProcessor.from(newBundleVersion.getItems()).getRemoveStrategy() instanceof RemoveStrategyProcessor.None ?
-                                     "none" : "sync"; // We don't care of the exact value. It's only to check if the remove strategy exists and implies a removal
+                    BundleSnapshot snapshot = ConfigurationBundleManager.isSet() ? BundleSnapshot.read(ConfigurationBundleManager.getBundleFolder()) : null;
+                    if (snapshot != null) {
+                        // Already parsed when the bundle was promoted, so the items files are not parsed again
+                        removeStrategy = newBundleVersion.hasItems() ? StringUtils.defaultIfEmpty(snapshot.getItemsRemoveStrategy(), "none") : "none";
+                    } else {
+                        removeStrategy = !newBundleVersion.hasItems() || ItemsProcessor.from(newBundleVersion.getItems()).getRemoveStrategy() instanceof RemoveStrategyProcessor.None ?
+                                         "none" : "sync"; // We don't care of the exact value. It's only to check if the remove strategy exists and implies a removal
+                    }
                 }
                 boolean isRemoveStrategyWithRemoval = !"none".equalsIgnoreCase(removeStrategy);
 
                 BundleComparator.Result comparisonResult = ConfigurationStatus.INSTANCE.getChangesInNewVersion();
-                boolean withChangesInItems = comparisonResult != null && comparisonResult.getItems().withChanges();
+                boolean withChangesInItems = comparisonResult != null && (comparisonResult.getItems().withChanges() || comparisonResult.isAffectedByVariables(getSection()));
 
                 return isRemoveStrategyWithRemoval || withChangesInItems;
             } catch (CasCException e) {
@@ -17,7 +17,6 @@ import hudson.ExtensionList;
 import hudson.FilePath;
 import hudson.model.RootAction;
 import jenkins.model.Jenkins;
-import jenkins.util.Timer;
 
 import net.sf.json.JSONObject;
 import org.apache.commons.io.FileUtils;
@@ -30,14 +29,16 @@ import org.kohsuke.stapler.json.JsonHttpResponse;
 import org.kohsuke.stapler.verb.GET;
 import org.kohsuke.stapler.verb.POST;
 
+import edu.umd.cs.findbugs.annotations.NonNull;
+
 import javax.annotation.CheckForNull;
 import javax.servlet.http.HttpServletResponse;
 import java.io.BufferedInputStream;
 import java.io.IOException;
+import java.io.PrintWriter;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.List;
-import java.util.TimerTask;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -91,7 +92,8 @@ public class BundleReloadAction implements RootAction {
                 if (configuration.isAutomaticReload()) {
                     return new JsonHttpResponse(new JSONObject().accumulate("reloaded", false).accumulate("reason", "Automatic reload configured. It's not possible to manually reload the bundle. If there is any issue, proceed with a restart"));
                 } else {
-                    if (ConfigurationStatus.INSTANCE.isCurrentlyReloading()) {
+                    // The candidate cannot be promoted while the current bundle is being applied
+                    if (BundleReloadQueue.INSTANCE.isBusy()) {
                         LOGGER.log(Level.INFO, "Reload bundle configuration requested by {0}.  Ignored as a reload is already in progress", Jenkins.getAuthentication2().getName());
                         return new JsonHttpResponse(new JSONObject().accumulate("reloaded", false).accumulate("reason", "A reload is already in progress, please wait for it to complete"));
                     }
@@ -159,16 +161,9 @@ public class BundleReloadAction implements RootAction {
 
     public JSONObject executeReload(boolean async) throws CasCException, IOException {
         String username = Jenkins.getAuthentication2().getName();
-        if (ConfigurationStatus.INSTANCE.isCurrentlyReloading()) {
-            LOGGER.log(Level.INFO, "Reload bundle configuration requested by {0}.  Ignored as a reload is already in progress", username);
-            return new JSONObject().accumulate("reloaded", false).accumulate("reason", "A reload is already in progress, please wait for it to complete");
-        }
-        if (tryReload(async)) {
-            JSONObject response = new JSONObject().accumulate("reloaded", true);
-            if (async) {
-                response.accumulate("completed", !ConfigurationStatus.INSTANCE.isCurrentlyReloading());
-            }
-            return response;
+        ReloadTicket ticket = reloadIfHotReloadable(async);
+        if (ticket != null) {
+            return reloadResponse(ticket, async);
         } else {
             LOGGER.log(Level.WARNING, "Reload request by {0} could not be completed. The updated configuration bundle cannot be hot reloaded.", username);
             return new JSONObject().accumulate("reloaded", false).accumulate("reason", "Bundle is not hot reloadable");
@@ -187,21 +182,27 @@ public class BundleReloadAction implements RootAction {
     }
 
     public JSONObject executeForceReload(boolean async) throws CasCException, IOException {
-        String username = Jenkins.getAuthentication2().getName();
-        if (ConfigurationStatus.INSTANCE.isCurrentlyReloading()) {
-            LOGGER.log(Level.INFO, "Reload bundle configuration requested by {0}.  Ignored as a reload is already in progress", username);
-            return new JSONObject().accumulate("reloaded", false).accumulate("reason", "A reload is already in progress, please wait for it to complete");
+        Jenkins.get().checkPermission(CascPermission.CASC_ADMIN);
+        if (!ConfigurationBundleManager.isSet()) {
+            LOGGER.log(Level.WARNING, "Reload request by {0} could not be completed. There is no configuration bundle.", Jenkins.getAuthentication2().getName());
+            return new JSONObject().accumulate("reloaded", false).accumulate("reason", "Bundle is not configured");
         }
-        if (forceReload(async)) {
-            JSONObject response = new JSONObject().accumulate("reloaded", true);
-            if (async) {
-                response.accumulate("completed", !ConfigurationStatus.INSTANCE.isCurrentlyReloading());
-            }
-            return response;
-        } else {
-            LOGGER.log(Level.WARNING, "Reload request by {0} could not be completed. The updated configuration bundle cannot be hot reloaded.", username);
-            return new JSONObject().accumulate("reloaded", false).accumulate("reason", "Bundle is not hot reloadable");
+        // Checked once, so the bundle is either hot reloaded or force reloaded, never marked as failed before the forced reload
+        ReloadTicket ticket = isHotReloadable() ? launchHotReload(async) : launchForcedReload(async);
+        return reloadResponse(ticket, async);
+    }
+
+    private JSONObject reloadResponse(ReloadTicket ticket, boolean async) {
+        JSONObject response = new JSONObject().accumulate("reloaded", true);
+        if (async) {
+            response.accumulate("completed", ticket.isDone());
+        }
+        response.accumulate("ticket", ticket.getId());
+        if (ticket.isQueued()) {
+            // Coalesced with other requests received during the running reload, applying the latest bundle once it finishes
+            response.accumulate("queued", true);
         }
+        return response;
     }
 
     /**
@@ -216,21 +217,20 @@ public class BundleReloadAction implements RootAction {
     }
 
     public boolean tryReload(boolean async) {
+        return reloadIfHotReloadable(async) != null;
+    }
+
+    /**
+     * Requests a reload if the bundle is hot reloadable
+     * @param async true to return immediately, false to wait for the reload to finish
+     * @return the ticket of the reload, null if the bundle is not hot reloadable
+     */
+    @CheckForNull
+    private ReloadTicket reloadIfHotReloadable(boolean async) {
         Jenkins.get().checkPermission(CascPermission.CASC_ADMIN);
         String username = Jenkins.getAuthentication2().getName();
         if (ConfigurationBundleManager.isSet() && isHotReloadable()) {
-            LOGGER.log(Level.INFO, "Reloading bundle configuration, requested by {0}.", username);
-            if (async){
-                launchAsynchronousReload(false);
-            } else {
-                launchSynchronousReload(false);
-            }
-            LOGGER.log(Level.INFO, "Reloading bundle configuration requested by {0} completed", username);
-            ConfigurationStatus.INSTANCE.setUpdateAvailable(false);
-            ConfigurationStatus.INSTANCE.setOutdatedVersion(null);
-            ConfigurationStatus.INSTANCE.setOutdatedBundleInformation(null);
-            CasCPublisherHelper.publishCasCUpdate();
-            return true;
+            return launchHotReload(async);
         } else {
             if (!ConfigurationBundleManager.isSet()) {
                 BundleUpdateLog.BundleUpdateStatus.failCurrentAction(BundleUpdateLogAction.RELOAD, "Bundle is not configured");
@@ -238,7 +238,7 @@ public class BundleReloadAction implements RootAction {
                 BundleUpdateLog.BundleUpdateStatus.failCurrentAction(BundleUpdateLogAction.RELOAD, "Bundle is not hot reloadable");
             }
         }
-        return false;
+        return null;
     }
 
     /**
@@ -252,39 +252,79 @@ public class BundleReloadAction implements RootAction {
 
     public boolean forceReload(boolean async) {
         Jenkins.get().checkPermission(CascPermission.CASC_ADMIN);
-        if (ConfigurationBundleManager.isSet() && isHotReloadable()) {
-            return tryReload(async);
-        } else if (ConfigurationBundleManager.isSet() && !isHotReloadable()) {
-            String username = Jenkins.getAuthentication2().getName();
-            LOGGER.log(Level.INFO, "Reloading bundle configuration, requested by {0}.", username);
-            if (async) {
-                launchAsynchronousReload(true);
-            } else {
-                launchSynchronousReload(true);
-            }
-            LOGGER.log(Level.INFO, "Reloading bundle configuration requested by {0} completed", username);
+        if (!ConfigurationBundleManager.isSet()) {
+            return false;
+        }
+        if (isHotReloadable()) {
+            launchHotReload(async);
+            return true;
         }
+        launchForcedReload(async);
         return false;
     }
 
+    /**
+     * Requests a reload of a bundle which is hot reloadable, clearing the pending update
+     * @return the ticket of the reload
+     */
+    @NonNull
+    private ReloadTicket launchHotReload(boolean async) {
+        String username = Jenkins.getAuthentication2().getName();
+        LOGGER.log(Level.INFO, "Reloading bundle configuration, requested by {0}.", username);
+        ReloadTicket ticket = launchReload(async, false);
+        LOGGER.log(Level.INFO, "Reloading bundle configuration requested by {0} completed", username);
+        ConfigurationStatus.INSTANCE.setUpdateAvailable(false);
+        ConfigurationStatus.INSTANCE.setOutdatedVersion(null);
+        ConfigurationStatus.INSTANCE.setOutdatedBundleInformation(null);
+        CasCPublisherHelper.publishCasCUpdate();
+        return ticket;
+    }
+
+    /**
+     * Requests a reload of a bundle which is not hot reloadable
+     * @return the ticket of the reload
+     */
+    @NonNull
+    private ReloadTicket launchForcedReload(boolean async) {
+        String username = Jenkins.getAuthentication2().getName();
+        LOGGER.log(Level.INFO, "Reloading bundle configuration, requested by {0}.", username);
+        ReloadTicket ticket = launchReload(async, true);
+        LOGGER.log(Level.INFO, "Reloading bundle configuration requested by {0} completed", username);
+        return ticket;
+    }
+
     @Deprecated
     public boolean forceReload() {
         return forceReload(false);
     }
 
-    private void launchAsynchronousReload(boolean force) {
-        Timer.get().submit(new TimerTask (){
-            @Override
-            public void run() {
-                launchSynchronousReload(force);
+    /**
+     * Sends the reload to the {@link BundleReloadQueue}
+     * @param async true to return immediately, false to wait for the reload to finish
+     * @param force true to reload the bundle even if it's not hot reloadable
+     * @return the ticket of the reload
+     */
+    private ReloadTicket launchReload(boolean async, boolean force) {
+        ReloadTicket ticket = BundleReloadQueue.INSTANCE.submit(force, this::runReload);
+        if (!async) {
+            try {
+                ticket.await();
+            } catch (InterruptedException e) {
+                LOGGER.log(Level.WARNING, "Interrupted while waiting for the reload to complete");
+                Thread.currentThread().interrupt();
             }
-        });
+        }
+        return ticket;
     }
 
-    private void launchSynchronousReload(boolean force) {
+    /**
+     * Reloads the bundle currently promoted. Run by the {@link BundleReloadQueue}, which keeps the reloading status.
+     * @param force true to reload the bundle even if it's not hot reloadable
+     * @return true if the reload was successful
+     */
+    private boolean runReload(boolean force) {
         ConfigurationBundleService service = ExtensionList.lookupSingleton(ConfigurationBundleService.class);
         ConfigurationBundle bundle = ConfigurationBundleManager.get().getConfigurationBundle();
-        ConfigurationStatus.INSTANCE.setCurrentlyReloading(true);
         ConfigurationStatus.INSTANCE.setErrorInReload(false);
         ConfigurationStatus.INSTANCE.setShowSuccessfulInstallMonitor(false);
         CasCPublisherHelper.publishCasCUpdate();
@@ -295,13 +335,13 @@ public class BundleReloadAction implements RootAction {
                 service.reloadIfIsHotReloadable(bundle);
             }
             ConfigurationStatus.INSTANCE.setShowSuccessfulInstallMonitor(true);
+            return true;
         } catch (IOException | CasCException ex) {
             LOGGER.log(Level.WARNING, String.format("Error while executing hot reload %s", ex.getMessage()), ex);
             ConfigurationStatus.INSTANCE.setErrorInReload(true);
             BundleUpdateLog.BundleUpdateStatus.failCurrentAction(BundleUpdateLogAction.RELOAD, ex.getMessage());
-        } finally {
-            ConfigurationStatus.INSTANCE.setCurrentlyReloading(false);
-            CasCPublisherHelper.publishCasCUpdate();
+            ReloadProgress.INSTANCE.reloadFailed(ex.getMessage());
+            return false;
         }
     }
 
@@ -348,15 +388,142 @@ public class BundleReloadAction implements RootAction {
      * Check if there's a reload operation running
      * <p>
      * {@code JENKINS_URL/casc-bundle-mgnt/check-bundle-reload-running }
+     * Parameters: {@code ticket=[NUMBER] } optional ticket returned when requesting the reload, to check that specific reload.
      * Permission required: READ
      * </p>
      * @return 200 and a boolean in-progress field indicating if a reload operation is running or not.
+     *         If a ticket is requested, its status is added in the "ticket" field: "queued", "completed" and "successful" once completed.
+     *         404 if the ticket doesn't exist or it is too old.
      */
     @GET
     @WebMethod(name = "check-bundle-reload-running")
-    public HttpResponse doCheckReloadInProgress() {
+    public HttpResponse doCheckReloadInProgress(@QueryParameter Long ticket) {
         Jenkins.get().checkPermission(CascPermission.CASC_ADMIN);
-        return new JsonHttpResponse(new JSONObject().accumulate("reload-in-progress", ConfigurationStatus.INSTANCE.isCurrentlyReloading()));
+        JSONObject response = new JSONObject().accumulate("reload-in-progress", ConfigurationStatus.INSTANCE.isCurrentlyReloading());
+        if (ticket != null) {
+            ReloadTicket reloadTicket = BundleReloadQueue.INSTANCE.getTicket(ticket);
+            if (reloadTicket == null) {
+                return new JsonHttpResponse(new JSONObject().accumulate("error", "Unknown reload ticket " + ticket), HttpServletResponse.SC_NOT_FOUND);
+            }
+            response.accumulate("ticket", reloadTicket.toJSON());
+        }
+        return new JsonHttpResponse(response);
+    }
+
+    /**
+     * Dry run of the reload: what would change in the instance if the bundle is reloaded, without applying anything
+     * <p>
+     * {@code JENKINS_URL/casc-bundle-mgnt/reload-plan }
+     * Permission required: CASC_ADMIN
+     * </p>
+     * @return 200 and a JSON object with the plan (see {@link ReloadPlan#toJSON()}):
+     *              "hot-reloadable": if the bundle can be reloaded without a restart
+     *              "sections": sections to reload, with the time they took in average in the previous reloads ("estimated-millis", -1 if unknown)
+     *              "skipped-sections": sections without changes
+     *              "items": items to create, update and delete
+     *              "plugins": plugins to install
+     *              "jcasc": JCasC root elements to apply ("all" if the whole configuration is applied)
+     *              "rbac": roles and groups to add, update and remove
+     *              "estimation": total estimated time to reload
+     *         403 - Not authorized. CASC_ADMIN permission required.
+     *         404 - No bundle configured
+     */
+    @GET
+    @WebMethod(name = "reload-plan")
+    public HttpResponse doReloadPlan() {
+        Jenkins.get().checkPermission(CascPermission.CASC_ADMIN);
+        if (!ConfigurationBundleManager.isSet()) {
+            return new JsonHttpResponse(new JSONObject().accumulate("error", "Bundle is not configured"), HttpServletResponse.SC_NOT_FOUND);
+        }
+        return new JsonHttpResponse(ReloadPlan.calculate().toJSON());
+    }
+
+    /**
+     * Metrics about the last reloads
+     * <p>
+     * {@code JENKINS_URL/casc-bundle-mgnt/reload-metrics }
+     * Permission required: CASC_ADMIN
+     * </p>
+     * @return 200 and a JSON object with the metrics of the last reload ("last") and the previous ones ("history"):
+     *              "duration-millis": time reloading the bundle
+     *              "saves": number of configuration files written during the reload
+     *              "write-millis": time spent writing the configuration coalesced at the end of each section
+     *              "sections": the same metrics per reloaded section
+     */
+    @GET
+    @WebMethod(name = "reload-metrics")
+    public HttpResponse doReloadMetrics() {
+        Jenkins.get().checkPermission(CascPermission.CASC_ADMIN);
+        return new JsonHttpResponse(ReloadMetrics.INSTANCE.toJSON());
+    }
+
+    /**
+     * Streams the progress of the running reload as server-sent events, so clients don't need to poll
+     * {@code check-bundle-reload-running}
+     * <p>
+     * {@code JENKINS_URL/casc-bundle-mgnt/reload-events }
+     * Parameters: {@code since=[NUMBER] } optional id of the last event already received. The {@code Last-Event-ID} header
+     *                                     is honored as well. If not present, the events from the start of the running (or last) reload are sent.
+     * Permission required: CASC_ADMIN
+     * </p>
+     * @return 200 and a {@code text/event-stream} response with one event per reload step:
+     *              "id": sequence of the event
+     *              "type": reload-started, section-started, section-finished, section-skipped, progress, plugin-installed, error or reload-finished
+     *              "section": Optional, the bundle section the event is about
+     *              "message": Optional, details about the event
+     *              "processed" / "total": Optional, progress of the section
+     *         The stream is closed when the reload finishes, or right after the pending events if no reload is running.
+     */
+    @GET
+    @WebMethod(name = "reload-events")
+    public HttpResponse doReloadEvents(StaplerRequest req, @QueryParameter String since) {
+        Jenkins.get().checkPermission(CascPermission.CASC_ADMIN);
+        long from = parseEventId(StringUtils.defaultIfBlank(since, req.getHeader("Last-Event-ID")));
+        return (request, rsp, node) -> {
+            rsp.setStatus(HttpServletResponse.SC_OK);
+            rsp.setContentType("text/event-stream;charset=UTF-8");
+            rsp.setHeader("Cache-Control", "no-cache");
+            // Avoid proxies buffering the stream
+            rsp.setHeader("X-Accel-Buffering", "no");
+            PrintWriter writer = rsp.getWriter();
+            try {
+                ReloadProgress.INSTANCE.follow(from, new ReloadProgress.Follower() {
+                    @Override
+                    public void onEvent(@NonNull ReloadProgress.Event event) throws IOException {
+                        writer.write("id: " + event.getSequence() + "\n");
+                        writer.write("event: " + event.toJSON().getString("type") + "\n");
+                        writer.write("data: " + event.toJSON() + "\n\n");
+                        flush(writer);
+                    }
+
+                    @Override
+                    public void heartbeat() throws IOException {
+                        writer.write(": keep-alive\n\n");
+                        flush(writer);
+                    }
+                });
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+    }
+
+    private static void flush(PrintWriter writer) throws IOException {
+        writer.flush();
+        if (writer.checkError()) {
+            throw new IOException("Client disconnected while following the reload events");
+        }
+    }
+
+    private static long parseEventId(@CheckForNull String id) {
+        if (StringUtils.isBlank(id)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(id.trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
     }
 
     /**
@@ -0,0 +1,151 @@
+package com.cloudbees.opscenter.client.casc;
+
+import com.cloudbees.jenkins.cjp.installmanager.casc.ConfigurationBundleManager;
+import com.cloudbees.jenkins.plugins.casc.listener.CasCPublisherHelper;
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import jenkins.util.Timer;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Single consumer queue of bundle reloads.
+ * Only one reload runs at a time. Requests arriving while a reload is running are coalesced into a single follow-up reload,
+ * which applies the bundle promoted at the moment it starts, so the latest bundle is always applied once.
+ * The follow-up reload is forced if any of the coalesced requests was forced.
+ * All the state transitions happen under the queue lock, so two requests cannot start two reloads.
+ */
+@Restricted(NoExternalUse.class)
+public enum BundleReloadQueue {
+    INSTANCE;
+
+    private static final Logger LOGGER = Logger.getLogger(BundleReloadQueue.class.getName());
+
+    /**
+     * Number of finished tickets kept to be checked by their id
+     */
+    private static final int MAX_FINISHED_TICKETS = 50;
+
+    /**
+     * Performs the reload
+     */
+    @FunctionalInterface
+    public interface Reload {
+        /**
+         * @param force true to reload the bundle even if it is not hot reloadable
+         * @return true if the reload was successful
+         */
+        boolean run(boolean force);
+    }
+
+    private long lastTicketId = 0;
+
+    @CheckForNull
+    private ReloadTicket running;
+
+    @CheckForNull
+    private ReloadTicket pending;
+
+    private boolean pendingForce;
+
+    @CheckForNull
+    private Reload pendingReload;
+
+    private final Map<Long, ReloadTicket> tickets = new LinkedHashMap<Long, ReloadTicket>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, ReloadTicket> eldest) {
+            return size() > MAX_FINISHED_TICKETS && eldest.getValue().isDone();
+        }
+    };
+
+    /**
+     * Requests a reload. If there is no reload running, it starts immediately. Otherwise, it is coalesced with the rest
+     * of requests received during the running reload into a single follow-up reload.
+     * @param force true to reload the bundle even if it is not hot reloadable
+     * @param reload performing the reload
+     * @return the ticket to follow the reload
+     */
+    @NonNull
+    public synchronized ReloadTicket submit(boolean force, @NonNull Reload reload) {
+        if (running == null) {
+            running = register(false);
+            start(running, force, reload);
+            return running;
+        }
+        if (pending == null) {
+            pending = register(true);
+            pendingForce = false;
+        }
+        pendingForce |= force;
+        pendingReload = reload;
+        LOGGER.log(Level.INFO, "Reload requested while another one is running. Queued as ticket {0}", pending.getId());
+        return pending;
+    }
+
+    /**
+     * @return true if there is a reload running or queued
+     */
+    public synchronized boolean isBusy() {
+        return running != null;
+    }
+
+    /**
+     * @param id of the ticket
+     * @return the ticket, or null if it doesn't exist or it is too old
+     */
+    @CheckForNull
+    public synchronized ReloadTicket getTicket(long id) {
+        return tickets.get(id);
+    }
+
+    private ReloadTicket register(boolean queued) {
+        ReloadTicket ticket = new ReloadTicket(++lastTicketId, queued);
+        tickets.put(ticket.getId(), ticket);
+        return ticket;
+    }
+
+    /**
+     * Marks the reload as running and executes it in background. Called holding the lock.
+     */
+    private void start(ReloadTicket ticket, boolean force, Reload reload) {
+        ConfigurationStatus.INSTANCE.setCurrentlyReloading(true);
+        // Announced before scheduling, so clients following the progress right after the request don't miss the reload
+        ReloadProgress.INSTANCE.reloadStarted(ConfigurationBundleManager.isSet() ? ConfigurationStatus.INSTANCE.bundleInfo(ConfigurationBundleManager.get().getConfigurationBundle()) : null);
+        Timer.get().submit(() -> consume(ticket, force, reload));
+    }
+
+    private void consume(ReloadTicket ticket, boolean force, Reload reload) {
+        boolean successful = false;
+        try {
+            successful = reload.run(force);
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Unexpected error while reloading the bundle", e);
+            ReloadProgress.INSTANCE.error(null, e.getMessage());
+        } finally {
+            ReloadProgress.INSTANCE.reloadFinished(successful);
+            ticket.complete(successful);
+            next();
+        }
+    }
+
+    private void next() {
+        synchronized (this) {
+            if (pending != null) {
+                running = pending;
+                pending = null;
+                Reload reload = pendingReload;
+                pendingReload = null;
+                start(running, pendingForce, reload);
+                return;
+            }
+            running = null;
+            ConfigurationStatus.INSTANCE.setCurrentlyReloading(false);
+        }
+        CasCPublisherHelper.publishCasCUpdate();
+    }
+}
@@ -9,7 +9,13 @@ import org.kohsuke.stapler.StaplerResponse;
 
 import javax.servlet.ServletException;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
 
 /**
  * Response object used by Core CasC export.
@@ -48,6 +54,27 @@ public class BundleResponse implements HttpResponse {
      */
     private String rbac;
 
+    /**
+     * True if the files are written by the exporters as they are generated, instead of using the contents
+     */
+    private boolean streaming;
+
+    /**
+     * Files in the order they are written in the response
+     */
+    private static final List<String> FILES = Arrays.asList("bundle.yaml", "jenkins.yaml", "plugins.yaml", "plugin-catalog.yaml", "rbac.yaml", "items.yaml");
+
+    /**
+     * @return a response where the exporters run concurrently, each one writing its file into a temporary file that is
+     * copied into the response, so the whole bundle is never kept in memory.
+     * The getters of the file contents return null.
+     */
+    public static BundleResponse streaming() {
+        BundleResponse response = new BundleResponse(null, null, null, null, null, null);
+        response.streaming = true;
+        return response;
+    }
+
     public BundleResponse(String descriptor, String jcasc, String plugins, String pluginCatalog, String items, String rbac) {
         this.jcasc = jcasc;
         this.plugins = plugins;
@@ -59,6 +86,10 @@ public class BundleResponse implements HttpResponse {
 
     @Override
     public void generateResponse(StaplerRequest req, StaplerResponse rsp, Object node) throws IOException, ServletException {
+        if (streaming) {
+            generateStreamingResponse(req, rsp);
+            return;
+        }
         rsp.setContentType("text/plain; charset=UTF-8");
         StringBuilder b = new StringBuilder();
         b.append("---\n");
@@ -94,6 +125,37 @@ public class BundleResponse implements HttpResponse {
         rsp.getOutputStream().write(content.getBytes(StandardCharsets.UTF_8));
     }
 
+    private void generateStreamingResponse(StaplerRequest req, StaplerResponse rsp) throws IOException {
+        List<BundleExporter> exporters = FILES.stream().map(BundleExporter::forYamlFile).filter(Objects::nonNull).collect(Collectors.toList());
+        try (ParallelBundleExport export = ParallelBundleExport.start(exporters)) {
+            if (BundleExport.notModified(req, rsp, export, "text")) {
+                return;
+            }
+            rsp.setContentType("text/plain; charset=UTF-8");
+            writeSections(export, rsp);
+        }
+    }
+
+    private void writeSections(ParallelBundleExport export, StaplerResponse rsp) throws IOException {
+        try (Writer out = new OutputStreamWriter(rsp.getOutputStream(), StandardCharsets.UTF_8)) {
+            for (ParallelBundleExport.Section exported : export.getSections()) {
+                String file = exported.getExporter().getYamlFile();
+                BundleExporter.SectionWriter section = new BundleExporter.SectionWriter(out, () -> {
+                    out.write("---\n");
+                    out.write("# " + file + "\n");
+                }, true);
+                exported.copyTo(section);
+                if ("bundle.yaml".equals(file)) {
+                    // Bundle descriptor is always written
+                    section.start();
+                }
+                if (section.isStarted()) {
+                    out.write("\n");
+                }
+            }
+        }
+    }
+
     public String getJcasc() {
         return jcasc;
     }
@@ -0,0 +1,346 @@
+package com.cloudbees.opscenter.client.casc;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import jenkins.util.ClassLoaderSanityThreadFactory;
+import org.apache.commons.compress.archivers.zip.Zip64Mode;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Writes the zips returned by the CasC endpoints, using a {@link ZipArchiveOutputStream} so big bundles get Zip64
+ * headers when needed. The entries are compressed concurrently on a bounded pool, each one into its own buffer, and the
+ * buffers are added as raw entries in the order the entries were added (scatter/gather).
+ * Only a few entries are compressed at the same time, so only a few buffers are kept in memory.
+ * Entries bigger than {@link #STREAMED_SIZE} are not buffered: once the previous entries are written, they are deflated
+ * while they are written into the zip, so the memory used does not depend on the size of the files.
+ * The entries can also be stored without compression, which is faster for small YAML files. The streamed entries are
+ * always deflated, as the size of a stored entry must be known before writing it.
+ * As {@link java.util.zip.ZipOutputStream}, it's not thread safe, and closing it completes the zip and closes the stream.
+ * If an entry cannot be written, closing it only closes the stream, so the zip is left incomplete instead of missing the entry.
+ */
+final class CasCZipWriter implements Closeable {
+
+    /**
+     * Max number of entries compressed at the same time, for all the zips
+     */
+    static int THREADS = Math.max(1, Integer.getInteger(CasCZipWriter.class.getName() + ".threads", 2));
+
+    /**
+     * True to store the entries without compression by default
+     */
+    static boolean STORED = Boolean.getBoolean(CasCZipWriter.class.getName() + ".stored");
+
+    /**
+     * Entries bigger than this size, in bytes, are streamed into the zip instead of being compressed concurrently
+     */
+    static long STREAMED_SIZE = Math.max(0, Long.getLong(CasCZipWriter.class.getName() + ".streamedSize", 1024 * 1024));
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private static ExecutorService executor;
+
+    private final OutputStream out;
+    private final ZipArchiveOutputStream zip;
+    private final boolean stored;
+    private final Deque<Future<CompressedEntry>> pending = new ArrayDeque<>();
+    private boolean closed;
+    private boolean failed;
+
+    /**
+     * @param out where the zip is written
+     */
+    CasCZipWriter(@NonNull OutputStream out) {
+        this(out, STORED);
+    }
+
+    /**
+     * @param out where the zip is written
+     * @param stored true to store the entries without compression
+     */
+    CasCZipWriter(@NonNull OutputStream out, boolean stored) {
+        this.out = out;
+        this.zip = new ZipArchiveOutputStream(out);
+        this.zip.setUseZip64(Zip64Mode.AsNeeded);
+        this.stored = stored;
+    }
+
+    /**
+     * Adds a file, streamed from the disk when it's compressed
+     * @param name name of the entry
+     * @param file the file
+     * @throws IOException if a previous entry cannot be written, or if the file is streamed and cannot be read
+     */
+    void addFile(@NonNull String name, @NonNull Path file) throws IOException {
+        addEntry(name, Files.getLastModifiedTime(file).toMillis(), Files.size(file), entry -> Files.copy(file, entry));
+    }
+
+    /**
+     * Adds a directory
+     * @param name name of the directory, a slash is appended if missing
+     * @param time modification time of the directory
+     * @throws IOException if a previous entry cannot be written
+     */
+    void addDirectory(@NonNull String name, long time) throws IOException {
+        checkOpen();
+        try {
+            writePending();
+            ZipArchiveEntry entry = new ZipArchiveEntry(name.endsWith("/") ? name : name + "/");
+            entry.setTime(time);
+            zip.putArchiveEntry(entry);
+            zip.closeArchiveEntry();
+        } catch (IOException | RuntimeException e) {
+            failed = true;
+            throw e;
+        }
+    }
+
+    /**
+     * Adds a small entry, which is buffered whole while it's compressed
+     * @param name name of the entry
+     * @param time modification time of the entry
+     * @param content writes the content of the entry, it's called from another thread
+     * @throws IOException if a previous entry cannot be written
+     */
+    void addEntry(@NonNull String name, long time, @NonNull Content content) throws IOException {
+        add(name, time, content);
+    }
+
+    /**
+     * Adds an entry, streamed into the zip if it's bigger than {@link #STREAMED_SIZE}
+     * @param name name of the entry
+     * @param time modification time of the entry
+     * @param size size of the content, in bytes
+     * @param content writes the content of the entry. It's called from another thread, unless the entry is streamed.
+     * @throws IOException if a previous entry cannot be written, or if the entry is streamed and cannot be written
+     */
+    void addEntry(@NonNull String name, long time, long size, @NonNull Content content) throws IOException {
+        if (size > STREAMED_SIZE) {
+            stream(name, time, size, content);
+        } else {
+            add(name, time, content);
+        }
+    }
+
+    /**
+     * @param comment comment of the zip
+     */
+    void setComment(@CheckForNull String comment) {
+        zip.setComment(comment);
+    }
+
+    private void add(String name, long time, Content content) throws IOException {
+        checkOpen();
+        try {
+            while (pending.size() >= THREADS * 2 || (!pending.isEmpty() && pending.peekFirst().isDone())) {
+                write(pending.removeFirst());
+            }
+        } catch (IOException | RuntimeException e) {
+            failed = true;
+            throw e;
+        }
+        pending.addLast(getExecutor().submit(() -> compress(name, time, content, stored)));
+    }
+
+    private static CompressedEntry compress(String name, long time, Content content, boolean store) throws IOException {
+        Buffer buffer = new Buffer();
+        Deflater deflater = store ? null : new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        try {
+            DeflaterOutputStream deflating = store ? null : new DeflaterOutputStream(buffer, deflater, BUFFER_SIZE);
+            EntryOutputStream entry = new EntryOutputStream(store ? buffer : deflating);
+            content.writeTo(entry);
+            if (deflating != null) {
+                deflating.finish();
+            }
+            ZipArchiveEntry zipEntry = new ZipArchiveEntry(name);
+            zipEntry.setTime(time);
+            zipEntry.setMethod(store ? ZipArchiveEntry.STORED : ZipArchiveEntry.DEFLATED);
+            zipEntry.setCrc(entry.crc.getValue());
+            zipEntry.setSize(entry.size);
+            zipEntry.setCompressedSize(buffer.size());
+            return new CompressedEntry(zipEntry, buffer);
+        } finally {
+            if (deflater != null) {
+                deflater.end();
+            }
+        }
+    }
+
+    private void write(Future<CompressedEntry> result) throws IOException {
+        CompressedEntry compressed = get(result);
+        zip.addRawArchiveEntry(compressed.entry, compressed.data.toInputStream());
+    }
+
+    private void writePending() throws IOException {
+        while (!pending.isEmpty()) {
+            write(pending.removeFirst());
+        }
+    }
+
+    /**
+     * Writes the pending entries, and then deflates the entry while it's written into the zip
+     */
+    private void stream(String name, long time, long size, Content content) throws IOException {
+        checkOpen();
+        try {
+            writePending();
+            ZipArchiveEntry entry = new ZipArchiveEntry(name);
+            entry.setTime(time);
+            entry.setMethod(ZipArchiveEntry.DEFLATED);
+            // Known in advance, so the local header gets the Zip64 extra field if the entry needs it
+            entry.setSize(size);
+            zip.putArchiveEntry(entry);
+            content.writeTo(new EntryOutputStream(zip));
+            zip.closeArchiveEntry();
+        } catch (IOException | RuntimeException e) {
+            failed = true;
+            throw e;
+        }
+    }
+
+    private void checkOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Zip already closed");
+        }
+    }
+
+    private static CompressedEntry get(Future<CompressedEntry> result) throws IOException {
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while compressing the zip", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Cannot compress the zip", e.getCause());
+        }
+    }
+
+    /**
+     * Writes the pending entries and the central directory, and closes the stream
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        boolean completed = false;
+        try {
+            if (!failed) {
+                writePending();
+                // Writes the central directory and closes the stream
+                zip.close();
+                completed = true;
+            }
+        } finally {
+            for (Future<CompressedEntry> result : pending) {
+                result.cancel(true);
+            }
+            pending.clear();
+            if (!completed) {
+                // Without the central directory, so the zip cannot be read as a complete one
+                out.close();
+            }
+        }
+    }
+
+    private static synchronized ExecutorService getExecutor() {
+        if (executor == null) {
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(THREADS, THREADS, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                    new ClassLoaderSanityThreadFactory(new NamingThreadFactory(new DaemonThreadFactory(), "CasC zip compression")));
+            pool.allowCoreThreadTimeOut(true);
+            executor = pool;
+        }
+        return executor;
+    }
+
+    /**
+     * Content of an entry
+     */
+    @FunctionalInterface
+    interface Content {
+        /**
+         * @param out where the content is written, it must not be closed
+         */
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    /**
+     * Computes the CRC and the size of the uncompressed content. The stream it writes into is not closed.
+     */
+    private static final class EntryOutputStream extends FilterOutputStream {
+        private final CRC32 crc = new CRC32();
+        private long size;
+
+        private EntryOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            crc.update(b);
+            size++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            crc.update(b, off, len);
+            size += len;
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+
+    /**
+     * Buffer read without copying it
+     */
+    private static final class Buffer extends ByteArrayOutputStream {
+        private InputStream toInputStream() {
+            return new ByteArrayInputStream(buf, 0, count);
+        }
+    }
+
+    /**
+     * Entry compressed in a buffer, with its CRC and sizes, added to the zip as a raw entry
+     */
+    private static final class CompressedEntry {
+        private final ZipArchiveEntry entry;
+        private final Buffer data;
+
+        private CompressedEntry(ZipArchiveEntry entry, Buffer data) {
+            this.entry = entry;
+            this.data = data;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.cloudbees.opscenter.client.casc;
+
+import com.cloudbees.jenkins.plugins.assurance.remote.BeekeeperRemote;
+import com.cloudbees.jenkins.plugins.assurance.remote.extensionparser.ParsedEnvelopeExtension;
+import com.cloudbees.jenkins.plugins.updates.envelope.Envelope;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Util;
+import hudson.security.ACL;
+import hudson.security.ACLContext;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+import org.kohsuke.accmod.restrictions.suppressions.SuppressRestrictedWarnings;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Results of the plugin catalog validations and expansions, shared by the bundle validation, the hot reload check and
+ * the catalog reload, so the same catalog is only validated and expanded once against the same envelope.
+ * The results are kept by digest of the catalog, digest of the envelope and, for the validations, the cap exceptions flag.
+ * Only the most recently used results are kept. Failures are never kept.
+ */
+@Restricted(NoExternalUse.class)
+public final class CatalogValidationMemo {
+
+    private static final Logger LOGGER = Logger.getLogger(CatalogValidationMemo.class.getName());
+
+    /**
+     * Max number of validations, and of expansions, kept
+     */
+    static int SIZE = Math.max(1, Integer.getInteger(CatalogValidationMemo.class.getName() + ".size", 8));
+
+    private static final Lru<List<String>> VALIDATIONS = new Lru<>();
+    private static final Lru<ParsedEnvelopeExtension.Expanded> EXPANSIONS = new Lru<>();
+
+    private CatalogValidationMemo() {
+    }
+
+    /**
+     * Validates a plugin catalog against the installed envelope, as {@link BeekeeperRemote#validateExtension(String, String)}
+     * does, impersonating SYSTEM
+     * @param catalog the plugin catalog in JSON format
+     * @param capExceptionsAllowed true to allow the exceptions to CAP in the catalog during the validation
+     * @return the validation errors, empty if the catalog can be installed
+     */
+    @NonNull
+    @SuppressRestrictedWarnings(value = {BeekeeperRemote.class})
+    public static List<String> validate(@NonNull String catalog, boolean capExceptionsAllowed) {
+        InstalledPluginsSnapshot installed = InstalledPluginsSnapshot.get();
+        String key = key(catalog, installed) + ":" + capExceptionsAllowed;
+        return VALIDATIONS.get(key, () -> {
+            try (ACLContext ctx = ACL.as2(ACL.SYSTEM2)) {
+                BeekeeperRemote remote = BeekeeperRemote.get();
+                boolean oldAllow = remote.isCapExceptionsAllowed();
+                remote.setCapExceptionsAllowed(capExceptionsAllowed);
+                try {
+                    return Collections.unmodifiableList(remote.validateExtension(catalog, installed.getEnvelopeJson()));
+                } finally {
+                    remote.setCapExceptionsAllowed(oldAllow);
+                }
+            }
+        });
+    }
+
+    /**
+     * Expands a plugin catalog against the installed envelope
+     * @param catalog the plugin catalog in JSON format
+     * @param installed the installed plugins, with the envelope
+     * @return the expanded catalog
+     * @throws RuntimeException if the catalog cannot be parsed or expanded
+     */
+    @NonNull
+    @SuppressRestrictedWarnings(value = {ParsedEnvelopeExtension.class})
+    public static ParsedEnvelopeExtension.Expanded expand(@NonNull String catalog, @NonNull InstalledPluginsSnapshot installed) {
+        Envelope envelope = installed.getEnvelope();
+        return EXPANSIONS.get(key(catalog, installed),
+                () -> ParsedEnvelopeExtension.loader().fromJSON(catalog).get().expand(envelope).get());
+    }
+
+    /**
+     * The digest of the envelope is calculated once per snapshot, so only the catalog is hashed on each call
+     */
+    private static String key(String catalog, InstalledPluginsSnapshot installed) {
+        return Util.toHexString(ExportCache.newDigest().digest(catalog.getBytes(StandardCharsets.UTF_8))) + ":" + installed.getEnvelopeDigest();
+    }
+
+    /**
+     * Results by key, evicting the least recently used ones. The results are computed without holding the lock, so a
+     * result requested concurrently might be computed twice, but the result is the same.
+     */
+    static final class Lru<V> {
+        private final Map<String, V> results = new LinkedHashMap<String, V>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, V> eldest) {
+                return size() > SIZE;
+            }
+        };
+
+        @NonNull
+        V get(@NonNull String key, @NonNull Supplier<V> loader) {
+            synchronized (results) {
+                V result = results.get(key);
+                if (result != null) {
+                    LOGGER.log(Level.FINE, "Plugin Catalog already processed, reusing the result");
+                    return result;
+                }
+            }
+            V result = loader.get();
+            synchronized (results) {
+                results.put(key, result);
+            }
+            return result;
+        }
+
+        int size() {
+            synchronized (results) {
+                return results.size();
+            }
+        }
+    }
+}
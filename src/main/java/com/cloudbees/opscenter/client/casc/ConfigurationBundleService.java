@@ -3,6 +3,7 @@ package com.cloudbees.opscenter.client.casc;
 import com.cloudbees.jenkins.cjp.installmanager.casc.ConfigurationBundle;
 import com.cloudbees.jenkins.cjp.installmanager.casc.ConfigurationBundleManager;
 import com.cloudbees.jenkins.cjp.installmanager.casc.InvalidBundleException;
+import com.cloudbees.jenkins.cjp.installmanager.casc.ItemRemoveStrategy;
 import com.cloudbees.jenkins.cjp.installmanager.casc.plugin.management.PluginListExpander;
 import com.cloudbees.jenkins.cjp.installmanager.casc.validation.BundleUpdateLog;
 import com.cloudbees.jenkins.cjp.installmanager.casc.validation.BundleUpdateLog.BundleUpdateLogAction;
@@ -17,13 +18,12 @@ import com.cloudbees.jenkins.plugins.casc.items.ItemsProcessor;
 import com.cloudbees.jenkins.plugins.casc.items.RemoveStrategyProcessor;
 import com.cloudbees.jenkins.plugins.casc.listener.CasCPublisherHelper;
 import com.cloudbees.jenkins.plugins.casc.permissions.CascPermission;
-import com.cloudbees.jenkins.plugins.updates.envelope.Envelope;
 import com.cloudbees.jenkins.plugins.updates.envelope.EnvelopePlugin;
-import com.cloudbees.jenkins.plugins.updates.envelope.Validation;
 import com.google.common.collect.Sets;
 import hudson.Extension;
-import hudson.Plugin;
 import hudson.PluginWrapper;
+import hudson.model.Item;
+import hudson.model.listeners.ItemListener;
 import hudson.security.ACL;
 import hudson.security.ACLContext;
 import hudson.util.VersionNumber;
@@ -39,6 +39,7 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
@@ -53,7 +54,14 @@ public class ConfigurationBundleService {
     private static final Logger LOGGER = Logger.getLogger(ConfigurationBundleService.class.getName());
 
     // timeout for update site to be refresh after catalog installation
-    static int TIMEOUT_CATALOG_SECONDS = 50;
+    static int TIMEOUT_CATALOG_SECONDS = Integer.getInteger(ConfigurationBundleService.class.getName() + ".catalogTimeoutSeconds", 50);
+
+    /**
+     * Items to delete on reload, cached by bundle and by generation of the item tree
+     */
+    private String deletionsKey;
+    private long deletionsGeneration = -1;
+    private List<String> deletions;
 
     /**
      * Checks if the bundle can be applied without a restart.
@@ -101,9 +109,8 @@ public class ConfigurationBundleService {
             return true;
         }
 
-        // As check is done with CASC_ADMIN now instead of ADMINISTER we need to impersonate SYSTEM2
-        try (ACLContext ctx = ACL.as2(ACL.SYSTEM2)){
-            List<String> errors = BeekeeperRemote.get().validateExtension(catalog.getMetadata(), null);
+        try {
+            List<String> errors = validateCatalog(catalog);
             if (!errors.isEmpty()) {
                 LOGGER.log(Level.WARNING, "Bundle cannot be reloaded as the Plugin Catalog has validation errors and it cannot be installed:\n" + errors.stream().collect(Collectors.joining("\n")));
                 return false;
@@ -114,32 +121,28 @@ public class ConfigurationBundleService {
             return false;
         }
 
+        InstalledPluginsSnapshot installed = InstalledPluginsSnapshot.get();
         Map<String, PluginConfiguration.Expanded> pluginsInCatalog;
+        Map<String, EnvelopePlugin> availablePlugins;
         try {
-            Validation<ParsedEnvelopeExtension.Provided> validation = ParsedEnvelopeExtension.loader().fromJSON(catalog.getMetadata());
-            Envelope envelope = CloudBeesAssurance.get().getBeekeeper().getEnvelope();
-            pluginsInCatalog = validation.get().expand(envelope).get().getConfiguration().getInclude();
+            ParsedEnvelopeExtension.Expanded expanded = CatalogValidationMemo.expand(catalog.getMetadata(), installed);
+            pluginsInCatalog = expanded.getConfiguration().getInclude();
+            // Plugins in the envelope and in the new catalog
+            availablePlugins = PluginConfigurationIndex.availablePlugins(installed.getEnvelopePlugins(), expanded);
         } catch (Exception e) {
             LOGGER.log(Level.WARNING, "Plugin Catalog cannot be loaded because of {0}. Configuration Bundle cannot be reloaded.", e.getMessage());
             LOGGER.log(Level.FINE, "Plugin Catalog cannot be loaded", e);
             return false;
         }
 
-        // List of plugins in the envelope
-        Map<String, EnvelopePlugin> pluginsInEnvelope = CloudBeesAssurance.get().getBeekeeper().getEnvelope().getPlugins();
-
-        Set<String> envelopeAndCatalogPlugins = Sets.newHashSet(pluginsInCatalog.keySet());
-        envelopeAndCatalogPlugins.addAll(pluginsInEnvelope.keySet());
-
         // Remove all plugins not included with the envelope or catalog (it is the same what we are doing during the startup
-        Set<String> plugins = ConfigurationUpdaterHelper.getOnlyPluginsInEnvelope(bundle.getPlugins(), envelopeAndCatalogPlugins);
+        Set<String> plugins = ConfigurationUpdaterHelper.getOnlyPluginsInEnvelope(bundle.getPlugins(), availablePlugins.keySet());
 
         Set<String> alreadyInstalledPlugins = Sets.newHashSet();
 
         // Split the list in installed/uninstalled plugins
-        Set<String> installed = Jenkins.get().getPluginManager().getPlugins().stream().map(p -> p.getShortName()).collect(Collectors.toSet());
         for (String plugin : plugins) {
-            if (installed.contains(plugin)) {
+            if (installed.getInstalledPlugin(plugin) != null) {
                 alreadyInstalledPlugins.add(plugin);
             }
         }
@@ -149,10 +152,10 @@ public class ConfigurationBundleService {
         for (String plugin : alreadyInstalledPlugins) {
             if (pluginsInCatalog.containsKey(plugin)) {
                 PluginConfiguration.Expanded pic = pluginsInCatalog.get(plugin);
-                Plugin puc = Jenkins.get().getPlugin(plugin);
-                if (puc != null) {
+                PluginWrapper puc = installed.getInstalledPlugin(plugin);
+                if (puc != null && puc.getPlugin() != null) {
                     String picVersion = pic.getPluginEntry().getVersion();
-                    String pucVersion = puc.getWrapper().getVersion();
+                    String pucVersion = puc.getVersion();
                     if (!Objects.equals(picVersion, pucVersion)) {
                         catalogDiffs.add(String.format("{plugin: %s, catalog: %s, installed: %s}",
                                                        plugin, picVersion, pucVersion));
@@ -171,19 +174,18 @@ public class ConfigurationBundleService {
 
     private boolean pluginsConfigAreHotReloadable(ConfigurationBundle bundle) {
         try {
-            Envelope envelope = CloudBeesAssurance.get().getBeekeeper().getEnvelope();
-            Map<String, VersionNumber> expandedDryRunMap = PluginListExpander.dryRun(bundle, envelope, bundle.getEnvelopeExtension());
+            InstalledPluginsSnapshot installedPlugins = InstalledPluginsSnapshot.get();
+            Map<String, VersionNumber> expandedDryRunMap = PluginListExpander.dryRun(bundle, installedPlugins.getEnvelope(), bundle.getEnvelopeExtension());
             // We need expandedDryRun below to circumvent the 'effectively final'
             // requirement of the upcoming lambda
             final Map<String, VersionNumber> expandedDryRun = expandedDryRunMap != null
                                                             ? expandedDryRunMap
                                                             : Collections.emptyMap();
             Map<String, VersionNumber> alreadyInstalled =
-                Jenkins.get().getPluginManager()
-                             .getPlugins()
-                             .stream()
-                             .filter(installed -> expandedDryRun.get(installed.getShortName()) != null)
-                             .collect(Collectors.toMap(PluginWrapper::getShortName, PluginWrapper::getVersionNumber));
+                installedPlugins.getInstalledPlugins()
+                                .stream()
+                                .filter(installed -> expandedDryRun.get(installed.getShortName()) != null)
+                                .collect(Collectors.toMap(PluginWrapper::getShortName, PluginWrapper::getVersionNumber));
 
             Set<String> pluginsDiffs = new TreeSet<>();
             alreadyInstalled.entrySet().forEach(entry -> {
@@ -253,6 +255,23 @@ public class ConfigurationBundleService {
         }
     }
 
+    /**
+     * Validates a plugin catalog against the installed envelope.
+     * The result is reused while neither the catalog nor the envelope change, so the catalog validated when the new bundle
+     * version is checked is not validated again when it is reloaded. See {@link CatalogValidationMemo}.
+     * @param catalog The plugin catalog to validate
+     * @return the validation errors, empty if the catalog can be installed
+     * @throws Exception if the catalog cannot be validated
+     */
+    public List<String> validateCatalog(EnvelopeExtension catalog) throws Exception {
+        boolean capExceptionsAllowed;
+        // As check is done with CASC_ADMIN now instead of ADMINISTER we need to impersonate SYSTEM2
+        try (ACLContext ctx = ACL.as2(ACL.SYSTEM2)) {
+            capExceptionsAllowed = BeekeeperRemote.get().isCapExceptionsAllowed();
+        }
+        return CatalogValidationMemo.validate(catalog.getMetadata(), capExceptionsAllowed);
+    }
+
     /**
      * Obtains the list of items that would be removed on bundle application
      * @param bundle The bundle to apply
@@ -260,9 +279,73 @@ public class ConfigurationBundleService {
      * @throws CasCException If the remove strategy indicated is not supported
      */
     public List<String> getDeletionsOnReload(ConfigurationBundle bundle) throws CasCException {
+        ItemRemoveStrategy strategy = bundle.getItemRemoveStrategy();
+        // Remove strategy is part of the key as it can be changed in the bundle instance
+        String key = bundle.getChecksum() == null ? null : bundle.getChecksum() + "/" + (strategy != null ? strategy.getItems() : null);
+        long generation = ItemsGeneration.get();
+        synchronized (this) {
+            if (key != null && key.equals(deletionsKey) && generation == deletionsGeneration) {
+                return deletions;
+            }
+        }
+        long start = System.currentTimeMillis();
         List<String> itemsYaml = bundle.getItems();
-        ItemsProcessor itemsProcessor = ItemsProcessor.from(itemsYaml, bundle.getItemRemoveStrategy());
+        ItemsProcessor itemsProcessor = ItemsProcessor.from(itemsYaml, strategy);
         RemoveStrategyProcessor removeStrategyProcessor = itemsProcessor.getRemoveStrategy();
-        return removeStrategyProcessor.getItemsToRemove();
+        List<String> result = Collections.unmodifiableList(removeStrategyProcessor.getItemsToRemove());
+        LOGGER.log(Level.FINE, "Deletions on reload calculated in {0} ms", System.currentTimeMillis() - start);
+        synchronized (this) {
+            deletionsKey = key;
+            deletionsGeneration = generation;
+            deletions = result;
+        }
+        return result;
+    }
+
+    /**
+     * Counts the changes in the item tree, so results depending on the existing items can be cached until an item
+     * is created, updated, deleted or moved.
+     */
+    @Extension
+    public static final class ItemsGeneration extends ItemListener {
+
+        private static final AtomicLong GENERATION = new AtomicLong();
+
+        /**
+         * @return the current generation of the item tree
+         */
+        static long get() {
+            return GENERATION.get();
+        }
+
+        @Override
+        public void onCreated(Item item) {
+            GENERATION.incrementAndGet();
+        }
+
+        @Override
+        public void onCopied(Item src, Item item) {
+            GENERATION.incrementAndGet();
+        }
+
+        @Override
+        public void onDeleted(Item item) {
+            GENERATION.incrementAndGet();
+        }
+
+        @Override
+        public void onUpdated(Item item) {
+            GENERATION.incrementAndGet();
+        }
+
+        @Override
+        public void onLocationChanged(Item item, String oldFullName, String newFullName) {
+            GENERATION.incrementAndGet();
+        }
+
+        @Override
+        public void onLoaded() {
+            GENERATION.incrementAndGet();
+        }
     }
 }
@@ -0,0 +1,140 @@
+package com.cloudbees.opscenter.client.casc;
+
+import com.cloudbees.jenkins.cjp.installmanager.casc.ConfigurationBundle;
+import com.cloudbees.jenkins.cjp.installmanager.casc.ConfigurationBundleManager;
+import com.cloudbees.jenkins.plugins.casc.comparator.BundleComparator;
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.init.InitMilestone;
+import hudson.init.Initializer;
+import jenkins.model.Jenkins;
+import net.sf.json.JSONException;
+import net.sf.json.JSONObject;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Objects;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Keeps the {@link ConfigurationStatus} on disk, so it is not calculated again after a restart.
+ * The status is restored at startup only if the applied bundle and the candidate are the ones the status was saved for,
+ * checked by their checksums. The hot reload verdicts and the diff with the new version are restored as they were
+ * calculated, so the diff does not depend on the compared bundle folders, which might have been replaced since then.
+ */
+@Restricted(NoExternalUse.class)
+public final class ConfigurationStatusStore {
+
+    private static final Logger LOGGER = Logger.getLogger(ConfigurationStatusStore.class.getName());
+
+    static final String STATUS_FILE = "cloudbees-casc-client-status.json";
+
+    private ConfigurationStatusStore() {
+    }
+
+    /**
+     * Saves the current status
+     */
+    public static synchronized void save() {
+        if (!ConfigurationBundleManager.isSet()) {
+            return;
+        }
+        ConfigurationBundle current = ConfigurationBundleManager.get().getConfigurationBundle();
+        ConfigurationBundle candidate = ConfigurationBundleManager.get().getCandidateAsConfigurationBundle();
+        ConfigurationStatus status = ConfigurationStatus.INSTANCE;
+        BundleComparator.Result changes = status.getChangesInNewVersion();
+        JSONObject json = new JSONObject();
+        json.element("checksum", current.getChecksum())
+            .element("hot-reloadable", current.isHotReloadable())
+            .element("candidate-checksum", candidate != null ? candidate.getChecksum() : null)
+            .element("candidate-hot-reloadable", candidate != null && candidate.isHotReloadable())
+            .element("update-available", status.isUpdateAvailable())
+            .element("candidate-available", status.isCandidateAvailable())
+            .element("outdated-version", status.getOutdatedVersion())
+            .element("outdated-bundle-information", status.getOutdatedBundleInformation())
+            .element("changes-in-new-version", changes != null ? changes.toJSON() : null);
+        Path file = getFile();
+        try {
+            Path tmp = file.resolveSibling(STATUS_FILE + ".tmp");
+            Files.write(tmp, json.toString().getBytes(StandardCharsets.UTF_8));
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "CasC status cannot be saved: {0}", e.getMessage());
+            LOGGER.log(Level.FINE, "CasC status cannot be saved", e);
+        }
+    }
+
+    /**
+     * Restores the saved status if it belongs to the applied bundle and the candidate
+     */
+    @Initializer(after = InitMilestone.EXTENSIONS_AUGMENTED, before = InitMilestone.JOB_LOADED)
+    public static synchronized void restore() {
+        if (!ConfigurationBundleManager.isSet()) {
+            return;
+        }
+        JSONObject json = read(getFile());
+        if (json == null) {
+            return;
+        }
+        ConfigurationBundle current = ConfigurationBundleManager.get().getConfigurationBundle();
+        ConfigurationBundle candidate = ConfigurationBundleManager.get().getCandidateAsConfigurationBundle();
+        if (current.getChecksum() == null || !current.getChecksum().equals(string(json, "checksum"))
+            || !Objects.equals(candidate != null ? candidate.getChecksum() : null, string(json, "candidate-checksum"))) {
+            LOGGER.log(Level.FINE, "Saved CasC status belongs to another bundle, so it is not restored");
+            return;
+        }
+
+        ConfigurationStatus status = ConfigurationStatus.INSTANCE;
+        current.setHotReloadable(json.optBoolean("hot-reloadable"));
+        if (candidate != null) {
+            candidate.setHotReloadable(json.optBoolean("candidate-hot-reloadable"));
+        }
+        status.setUpdateAvailable(json.optBoolean("update-available"));
+        status.setCandidateAvailable(json.optBoolean("candidate-available"));
+        status.setOutdatedVersion(string(json, "outdated-version"));
+        status.setOutdatedBundleInformation(string(json, "outdated-bundle-information"));
+        JSONObject changes = json.optJSONObject("changes-in-new-version");
+        if (changes != null && !changes.isNullObject()) {
+            try {
+                status.setChangesInNewVersion(BundleComparator.Result.fromJSON(changes));
+            } catch (JSONException e) {
+                LOGGER.log(Level.FINE, "Saved changes in the new version cannot be restored", e);
+            }
+        }
+        LOGGER.log(Level.INFO, "CasC status restored for bundle {0}", status.bundleInfo(current));
+    }
+
+    @CheckForNull
+    private static JSONObject read(@NonNull Path file) {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try {
+            return JSONObject.fromObject(new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+        } catch (IOException | JSONException e) {
+            LOGGER.log(Level.WARNING, "Saved CasC status cannot be read: {0}", e.getMessage());
+            LOGGER.log(Level.FINE, "Saved CasC status cannot be read", e);
+            return null;
+        }
+    }
+
+    /**
+     * @return the string value of the key, null if it is absent or null
+     */
+    @CheckForNull
+    private static String string(@NonNull JSONObject json, @NonNull String key) {
+        Object value = json.opt(key);
+        return value instanceof String ? (String) value : null;
+    }
+
+    @NonNull
+    static Path getFile() {
+        return Jenkins.get().getRootDir().toPath().resolve(STATUS_FILE);
+    }
+}
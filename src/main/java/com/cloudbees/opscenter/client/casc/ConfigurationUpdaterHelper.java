@@ -22,6 +22,7 @@ import com.cloudbees.jenkins.cjp.installmanager.casc.validation.YamlSchemaValida
 import com.cloudbees.jenkins.plugins.casc.CasCException;
 import com.cloudbees.jenkins.plugins.casc.analytics.BundleValidationErrorGatherer;
 import com.cloudbees.jenkins.plugins.casc.comparator.BundleComparator;
+import com.cloudbees.jenkins.plugins.casc.comparator.BundleSnapshot;
 import com.cloudbees.jenkins.plugins.casc.config.BundleUpdateTimingConfiguration;
 import com.cloudbees.jenkins.plugins.casc.config.udpatetiming.PromotionErrorMonitor;
 import com.cloudbees.jenkins.plugins.casc.config.udpatetiming.SafeRestartMonitor;
@@ -95,6 +96,24 @@ public final class ConfigurationUpdaterHelper {
                     BundleUpdateLog.CandidateBundle newCandidate = ConfigurationBundleManager.get().getUpdateLog().getCandidateBundle();
                     boolean newVersionIsValid = newCandidate != null && !BundleValidator.shouldBeRejected(newCandidate.getValidations().getValidations().stream().map(serialized -> Validation.deserialize(serialized)).collect(Collectors.toList()));
 
+                    if (newCandidate != null) {
+                        // Compiled once, so the comparisons and the reload don't read the candidate files again
+                        BundleSnapshot.write(BundleUpdateLog.getHistoricalRecordsFolder().resolve(newCandidate.getFolder()).resolve("bundle"));
+                    }
+                    // Compared once, the result is used to promote metadata only changes and to know what the reload applies
+                    BundleComparator.Result comparison = null;
+                    if (newVersionIsValid) {
+                        try {
+                            Path candidatePath = BundleUpdateLog.getHistoricalRecordsFolder().resolve(newCandidate.getFolder());
+                            comparison = BundleComparator.compare(ConfigurationBundleManager.getBundleFolder(), candidatePath.resolve("bundle"));
+                        } catch (IllegalArgumentException | IOException e) {
+                            LOGGER.log(Level.WARNING, "Unexpected error comparing the candidate bundle and the current applied version", e);
+                        }
+                    }
+                    if (comparison != null && promoteIfOnlyMetadataChanged(newCandidate, comparison)) {
+                        return false;
+                    }
+
                     if (newVersionIsValid) {
                         // Runtime validations
                         try {
@@ -112,14 +131,7 @@ public final class ConfigurationUpdaterHelper {
 
                     boolean newVersionAvailable = false;
                     if (newVersionIsValid) {
-                        try {
-                            Path candidatePath = BundleUpdateLog.getHistoricalRecordsFolder().resolve(newCandidate.getFolder());
-                            BundleComparator.Result result = BundleComparator.compare(ConfigurationBundleManager.getBundleFolder(), candidatePath.resolve("bundle"));
-                            ConfigurationStatus.INSTANCE.setChangesInNewVersion(result);
-                        } catch (IllegalArgumentException | IOException e) {
-                            ConfigurationStatus.INSTANCE.setChangesInNewVersion(null);
-                            LOGGER.log(Level.WARNING, "Unexpected error comparing the candidate bundle and the current applied version", e);
-                        }
+                        ConfigurationStatus.INSTANCE.setChangesInNewVersion(comparison);
 
                         // promote method already has the logic for promoting and skipping when it corresponds, so just a matter of performing the
                         // Hot Reload / Safe Restart
@@ -134,6 +146,7 @@ public final class ConfigurationUpdaterHelper {
                         } else {
                             // If bundle update timing is disabled, then we have to promote
                             ConfigurationBundle promoted = ConfigurationBundleManager.promote(true); // Plugin is ready, so the instance is up and running
+                            snapshotAppliedBundle();
                             newVersionAvailable = !versionBeforeUpdate.equals(promoted.getVersion());
                         }
                         // Send validation errors from promoted version
@@ -187,25 +200,8 @@ public final class ConfigurationUpdaterHelper {
                         }
 
                         if (automaticReload && hotReloadable) {
-                            BundleUpdateStatus.setCurrentAction(BundleUpdateLogAction.RELOAD,
-                                                                BundleUpdateLogActionSource.AUTOMATIC);
-                            // try to apply the hot reload
-                            BundleReloadAction bundleReloadAction = ExtensionList.lookupSingleton(BundleReloadAction.class);
-                            if (bundleReloadAction.executeReload(true).getBoolean("reloaded")) {
-                                LOGGER.log(Level.INFO, "New bundle version reloaded as for an automatic reload. Async reload in progress");
-                            } else {
-                                LOGGER.log(Level.WARNING, "Hot reloaded failed. If configured, an automatic safe restart will happen. Otherwise, the manual reload must be performed");
-                                if (automaticRestart) {
-                                    SafeRestartMonitor.get().show();
-                                    try {
-                                        Jenkins.get().doSafeRestart(null, "A new bundle version has been detected and as for the automatic restart configuration, a Safe Restart has been scheduled.");
-                                        ConfigurationStatus.INSTANCE.setUpdateAvailable(false);
-                                    } catch (RestartNotSupportedException | IOException | ServletException e) {
-                                        SafeRestartMonitor.get().hide();
-                                        throw new CasCException("Safe restart cannot be performed", e);
-                                    }
-                                }
-                            }
+                            // Applied right away, or once the instance is not busy if the automatic reload scheduling is enabled
+                            AutomaticReloadScheduler.get().reloadOrDefer(automaticRestart);
                         } else {
                             if (!hotReloadable) {
                                 LOGGER.log(Level.INFO, "New bundle version cannot be hot reloaded. If configured, an automatic safe restart will happen. Otherwise, the manual reload must be performed");
@@ -254,6 +250,71 @@ public final class ConfigurationUpdaterHelper {
         }
     }
 
+    /**
+     * Promotes the candidate right away if it only changes the version or the description of the bundle, as it applies
+     * the same configuration than the current bundle: the runtime validations and the reload are not needed.
+     * The candidate is not promoted while a reload is running or queued, as the reload would then apply a different version
+     * than the one it was requested for, nor if the version is skipped.
+     * @param newCandidate downloaded candidate
+     * @param comparison comparison of the current applied version and the candidate
+     * @return true if the candidate has been promoted
+     */
+    private static boolean promoteIfOnlyMetadataChanged(@NonNull BundleUpdateLog.CandidateBundle newCandidate, @NonNull BundleComparator.Result comparison) {
+        if (!comparison.isDescriptorMetadataOnlyChange()) {
+            return false;
+        }
+        if (BundleReloadQueue.INSTANCE.isBusy()) {
+            LOGGER.log(Level.FINE, "New Configuration Bundle version only changes the bundle descriptor metadata, but a reload is in progress. Not promoted");
+            return false;
+        }
+        if (BundleUpdateTimingManager.isEnabled() && BundleUpdateTimingConfiguration.get().canSkipNewVersions() && newCandidate.isSkipped()) {
+            return false;
+        }
+
+        ConfigurationBundle current = ConfigurationBundleManager.get().getConfigurationBundle();
+        boolean hotReloadable = current.isHotReloadable();
+        ConfigurationBundle promoted = ConfigurationBundleManager.promote(true); // Plugin is ready, so the instance is up and running
+        snapshotAppliedBundle();
+        // Same configuration, so nothing to check again
+        promoted.setHotReloadable(hotReloadable);
+        // Nothing is reloaded, so no action is recorded in the update log, as when the candidate is promoted without the update timing
+        ConfigurationStatus.INSTANCE.setChangesInNewVersion(null);
+        ConfigurationStatus.INSTANCE.setUpdateAvailable(false);
+        ConfigurationStatus.INSTANCE.setCandidateAvailable(false);
+        LOGGER.log(Level.INFO, "New Configuration Bundle version [{0}] only changes the bundle descriptor metadata. Promoted without reloading",
+                   promoted.getVersion());
+        return true;
+    }
+
+    /**
+     * Performs the automatic reload of the new bundle version. If the hot reload fails and the automatic restart is configured,
+     * a safe restart is scheduled.
+     * @param automaticRestart true if the automatic restart is configured
+     * @throws CasCException if the reload fails and the safe restart cannot be performed
+     * @throws IOException if there were RW operations exceptions
+     */
+    static void automaticReload(boolean automaticRestart) throws CasCException, IOException {
+        BundleUpdateStatus.setCurrentAction(BundleUpdateLogAction.RELOAD,
+                                            BundleUpdateLogActionSource.AUTOMATIC);
+        // try to apply the hot reload
+        BundleReloadAction bundleReloadAction = ExtensionList.lookupSingleton(BundleReloadAction.class);
+        if (bundleReloadAction.executeReload(true).getBoolean("reloaded")) {
+            LOGGER.log(Level.INFO, "New bundle version reloaded as for an automatic reload. Async reload in progress");
+        } else {
+            LOGGER.log(Level.WARNING, "Hot reloaded failed. If configured, an automatic safe restart will happen. Otherwise, the manual reload must be performed");
+            if (automaticRestart) {
+                SafeRestartMonitor.get().show();
+                try {
+                    Jenkins.get().doSafeRestart(null, "A new bundle version has been detected and as for the automatic restart configuration, a Safe Restart has been scheduled.");
+                    ConfigurationStatus.INSTANCE.setUpdateAvailable(false);
+                } catch (RestartNotSupportedException | IOException | ServletException e) {
+                    SafeRestartMonitor.get().hide();
+                    throw new CasCException("Safe restart cannot be performed", e);
+                }
+            }
+        }
+    }
+
     /**
      * Filters the plugins set in another new set, removing plugins not in the envelope set.
      * @param plugins Plugins provided by the configuration bundle
@@ -802,6 +863,7 @@ public final class ConfigurationUpdaterHelper {
         }
 
         ConfigurationBundle promoted = ConfigurationBundleManager.promote(true); // Plugin is active, so up and running
+        snapshotAppliedBundle();
         boolean hotReloadable = isHotReloadable(promoted);
         ConfigurationBundleManager.get().getConfigurationBundle().setHotReloadable(hotReloadable);
 
@@ -814,6 +876,13 @@ public final class ConfigurationUpdaterHelper {
         return isPromoted;
     }
 
+    /**
+     * Writes the snapshot of the applied bundle, so the reload and the comparisons don't read its files again
+     */
+    private static void snapshotAppliedBundle() {
+        BundleSnapshot.write(ConfigurationBundleManager.getBundleFolder());
+    }
+
     /**
      * Checks if the bundle is hot-reloadable
      * @param bundle to check. If null, then the method returns false
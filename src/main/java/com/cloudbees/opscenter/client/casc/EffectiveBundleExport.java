@@ -1,14 +1,16 @@
 package com.cloudbees.opscenter.client.casc;
 
 import com.cloudbees.jenkins.cjp.installmanager.casc.ConfigurationBundleManager;
+import com.cloudbees.jenkins.plugins.casc.comparator.BundleSnapshot;
 import com.cloudbees.jenkins.plugins.casc.permissions.CascPermission;
 
+import edu.umd.cs.findbugs.annotations.CheckForNull;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import hudson.Extension;
+import hudson.Util;
 import hudson.model.RootAction;
 import jenkins.model.Jenkins;
-import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang.StringUtils;
 import org.kohsuke.accmod.Restricted;
 import org.kohsuke.accmod.restrictions.NoExternalUse;
@@ -19,16 +21,30 @@ import org.kohsuke.stapler.StaplerResponse;
 import org.kohsuke.stapler.WebMethod;
 
 import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletResponse;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipFile;
 
 /**
  * Exports the installed Core CasC bundle.
@@ -132,21 +148,96 @@ public class EffectiveBundleExport implements RootAction {
             return HttpResponses.notFound();
         }
 
-        String content;
-        try {
-            content = readContentFile(filePath);
-        } catch (IOException e) {
-            LOG.log(Level.WARNING, "Error reading file " + file, e);
-            return HttpResponses.error(e);
+        LOG.fine("Downloading " + file);
+        return (req, rsp, node) -> {
+            try {
+                sendBundleFile(req, rsp, bundleFolder, filePath);
+            } catch (IOException e) {
+                LOG.log(Level.WARNING, "Error reading file " + file, e);
+                throw e;
+            }
+        };
+    }
+
+    /**
+     * Streams a file of the bundle, compressed if the client accepts it. The digest of the file is the ETag.
+     */
+    private static void sendBundleFile(StaplerRequest req, StaplerResponse rsp, Path bundleFolder, Path filePath) throws IOException {
+        boolean gzip = acceptsGzip(req);
+        String digest = fileDigest(bundleFolder, filePath);
+        rsp.setHeader("Vary", "Accept-Encoding");
+        if (BundleExport.notModified(req, rsp, gzip ? digest + "-gzip" : digest)) {
+            return;
+        }
+        rsp.setContentType("text/plain;charset=UTF-8");
+        try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+            if (gzip) {
+                rsp.setHeader("Content-Encoding", "gzip");
+                try (GZIPOutputStream out = new GZIPOutputStream(rsp.getOutputStream())) {
+                    transfer(channel, 0, channel.size(), out);
+                }
+            } else {
+                rsp.setHeader("Content-Length", String.valueOf(channel.size()));
+                transfer(channel, 0, channel.size(), rsp.getOutputStream());
+            }
         }
+    }
 
-        LOG.fine("Downloading " + file);
-        return HttpResponses.text(content);
+    /**
+     * @return the digest of the file, from the bundle snapshot if it's up to date
+     */
+    private static String fileDigest(Path bundleFolder, Path filePath) throws IOException {
+        BundleSnapshot snapshot = BundleSnapshot.read(bundleFolder);
+        String digest = snapshot != null ? snapshot.getDigest(bundleFolder.relativize(filePath).toString()) : null;
+        if (digest != null) {
+            return digest;
+        }
+        MessageDigest sha256 = newDigest();
+        try (InputStream in = new DigestInputStream(Files.newInputStream(filePath), sha256)) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        return Util.toHexString(sha256.digest());
     }
 
-    // Visible for testing
-    String readContentFile(Path filePath) throws IOException {
-        return FileUtils.readFileToString(filePath.toFile(), StandardCharsets.UTF_8);
+    private static boolean acceptsGzip(StaplerRequest req) {
+        String acceptEncoding = req.getHeader("Accept-Encoding");
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String encoding : acceptEncoding.split(",")) {
+            String[] parts = encoding.trim().split(";");
+            if ("gzip".equalsIgnoreCase(parts[0].trim())) {
+                return parts.length == 1 || !parts[1].trim().matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Sends the range of a file using {@link FileChannel#transferTo}
+     */
+    private static void transfer(FileChannel channel, long start, long count, OutputStream out) throws IOException {
+        WritableByteChannel target = Channels.newChannel(out);
+        long position = start;
+        long remaining = count;
+        while (remaining > 0) {
+            long transferred = channel.transferTo(position, remaining, target);
+            if (transferred <= 0) {
+                // The file is shorter than expected
+                break;
+            }
+            position += transferred;
+            remaining -= transferred;
+        }
+        out.flush();
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
     }
 
     @Override
@@ -159,9 +250,15 @@ public class EffectiveBundleExport implements RootAction {
         return null;
     }
 
+    /**
+     * Zip of the bundle. It's built once for each version of the bundle files and kept next to the bundle folder,
+     * so the next downloads are served from the file, with ETag and Range support.
+     */
     // Visible for testing
     static final class ZipBundleResponse implements HttpResponse {
 
+        static final String ZIP_SUFFIX = ".export.zip";
+
         final private File bundleDirectory;
 
         ZipBundleResponse(@NonNull File bundleDirectory) {
@@ -176,35 +273,143 @@ public class EffectiveBundleExport implements RootAction {
         public void generateResponse(StaplerRequest req, StaplerResponse rsp, Object node) throws IOException, ServletException {
             final String exportFileName = String.format("bundle-%s.zip", getInstanceName());
 
+            String key = contentKey();
+            if (BundleExport.notModified(req, rsp, key)) {
+                return;
+            }
+            Path zip = getZip(key);
             rsp.setContentType("application/zip");
             rsp.addHeader("Content-Disposition", String.format("inline; filename=%s;", exportFileName));
+            rsp.setHeader("Accept-Ranges", "bytes");
+
+            try (FileChannel channel = FileChannel.open(zip, StandardOpenOption.READ)) {
+                long length = channel.size();
+                String ifRange = req.getHeader("If-Range");
+                long[] range = ifRange == null || ifRange.equals("\"" + key + "\"") ? parseRange(req.getHeader("Range"), length) : null;
+                if (range == null) {
+                    rsp.setHeader("Content-Length", String.valueOf(length));
+                    transfer(channel, 0, length, rsp.getOutputStream());
+                } else if (range.length == 0) {
+                    rsp.setHeader("Content-Range", "bytes */" + length);
+                    rsp.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                } else {
+                    rsp.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                    rsp.setHeader("Content-Range", "bytes " + range[0] + "-" + range[1] + "/" + length);
+                    rsp.setHeader("Content-Length", String.valueOf(range[1] - range[0] + 1));
+                    transfer(channel, range[0], range[1] - range[0] + 1, rsp.getOutputStream());
+                }
+            }
+        }
+
+        /**
+         * @return the zip of the bundle, built if it's not built yet for the current bundle files
+         */
+        private Path getZip(String key) throws IOException {
+            Path bundlePath = bundleDirectory.toPath().toAbsolutePath().normalize();
+            Path zip = bundlePath.resolveSibling(bundlePath.getFileName() + ZIP_SUFFIX);
+            synchronized (ZipBundleResponse.class) {
+                if (!key.equals(readComment(zip))) {
+                    Path tmp = zip.resolveSibling(zip.getFileName() + ".tmp");
+                    try {
+                        try (CasCZipWriter zipFile = new CasCZipWriter(Files.newOutputStream(tmp))) {
+                            addZipEntries(zipFile);
+                            // Identifies the bundle files in the zip
+                            zipFile.setComment(key);
+                        }
+                        Files.move(tmp, zip, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                    } catch (IOException | RuntimeException e) {
+                        // An incomplete zip is never kept, so it's built again on the next request
+                        Files.deleteIfExists(tmp);
+                        throw e;
+                    }
+                    LOG.log(Level.FINE, "Zip of the bundle built in {0}", zip);
+                }
+            }
+            return zip;
+        }
+
+        @CheckForNull
+        private static String readComment(Path zip) {
+            if (!Files.isRegularFile(zip)) {
+                return null;
+            }
+            try (ZipFile zipFile = new ZipFile(zip.toFile())) {
+                return zipFile.getComment();
+            } catch (IOException e) {
+                LOG.log(Level.FINE, "Zip of the bundle cannot be read, so it is built again", e);
+                return null;
+            }
+        }
+
+        /**
+         * @return digest of the names, sizes and modification times of the bundle files, so it changes if any file changes
+         */
+        private String contentKey() throws IOException {
+            Path bundlePath = bundleDirectory.toPath();
+            MessageDigest digest = newDigest();
+            for (Path path : listFiles(bundlePath)) {
+                BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                String data = bundlePath.relativize(path) + ":" + attributes.size() + ":" + attributes.lastModifiedTime().toMillis() + "\n";
+                digest.update(data.getBytes(StandardCharsets.UTF_8));
+            }
+            return Util.toHexString(digest.digest());
+        }
+
+        private static List<Path> listFiles(Path bundlePath) throws IOException {
+            try (Stream<Path> paths = Files.walk(bundlePath)) {
+                return paths.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+            }
+        }
 
-            OutputStream out = rsp.getOutputStream();
-            try (ZipOutputStream zipFile = new ZipOutputStream(out)) {
-                addZipEntries(zipFile);
+        /**
+         * Parses a single byte range, multiple ranges are not supported and the whole file is sent
+         * @return the first and last byte of the range, an empty array if it cannot be satisfied, or null to send the whole file
+         */
+        @CheckForNull
+        static long[] parseRange(@CheckForNull String header, long length) {
+            if (header == null || !header.startsWith("bytes=") || header.contains(",")) {
+                return null;
+            }
+            String range = header.substring("bytes=".length()).trim();
+            int dash = range.indexOf('-');
+            if (dash < 0) {
+                return null;
+            }
+            try {
+                long start;
+                long end;
+                if (dash == 0) {
+                    long suffix = Long.parseLong(range.substring(1));
+                    if (suffix == 0) {
+                        return new long[0];
+                    }
+                    start = Math.max(0, length - suffix);
+                    end = length - 1;
+                } else {
+                    start = Long.parseLong(range.substring(0, dash));
+                    end = dash == range.length() - 1 ? length - 1 : Math.min(length - 1, Long.parseLong(range.substring(dash + 1)));
+                }
+                if (start >= length || start > end) {
+                    return new long[0];
+                }
+                return new long[]{start, end};
+            } catch (NumberFormatException e) {
+                return null;
             }
         }
 
+        /**
+         * Adds the bundle files to the zip
+         * @throws IOException if any file cannot be read or written, so the zip is not complete
+         */
         // Visible for testing
         @SuppressFBWarnings(value = "NP_NULL_ON_SOME_PATH_FROM_RETURN_VALUE", justification = "False positive. bundleDirectory already checked")
-        void addZipEntries(@NonNull ZipOutputStream zipFile) throws IOException {
-            try {
-                if (bundleDirectory.isDirectory()) {
-                    final Path bundlePath = bundleDirectory.toPath();
-                    Files.walk(bundlePath).filter(Files::isRegularFile).forEach(path -> {
-                        try {
-                            final String zipEntryName = bundlePath.relativize(path).toFile().getPath();
-                            final ZipEntry entry = new ZipEntry(zipEntryName);
-                            zipFile.putNextEntry(entry);
-                            zipFile.write(FileUtils.readFileToByteArray(path.toFile()));
-                            zipFile.closeEntry();
-                        } catch (IOException e) {
-                            LOG.log(Level.WARNING, "Error walking the tree directory", e);
-                        }
-                    });
+        void addZipEntries(@NonNull CasCZipWriter zipFile) throws IOException {
+            if (bundleDirectory.isDirectory()) {
+                final Path bundlePath = bundleDirectory.toPath();
+                for (Path path : listFiles(bundlePath)) {
+                    zipFile.addFile(bundlePath.relativize(path).toFile().getPath(), path);
                 }
-            } catch (IOException e) {
-                LOG.log(Level.WARNING, "Error walking the tree directory", e);
             }
         }
     }
@@ -0,0 +1,291 @@
+package com.cloudbees.opscenter.client.casc;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.Util;
+import hudson.XmlFile;
+import hudson.model.Fingerprint;
+import hudson.model.Queue;
+import hudson.model.Run;
+import hudson.model.Saveable;
+import hudson.model.listeners.SaveableListener;
+import jenkins.model.Jenkins;
+import org.apache.commons.io.FileUtils;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Cache of the exported files, so an export is only generated again if something that might change it has changed.
+ * Each exported file is kept on disk with its digest, and it is valid while:
+ * <ul>
+ *     <li>No configuration is saved, except build records, queue and fingerprints</li>
+ *     <li>No item is created, updated, deleted or moved, see {@link ConfigurationBundleService.ItemsGeneration}</li>
+ *     <li>The installed plugins, the envelope, the plugin catalog and the applied bundle are the same, see {@link ExportSnapshot#getFingerprint()}</li>
+ *     <li>It is requested by the same user</li>
+ * </ul>
+ * As the exports are deterministic, the digest is used as strong ETag of the exported files.
+ * The returned entries are leased, so a replaced file is only deleted once the responses copying it release it.
+ */
+@Restricted(NoExternalUse.class)
+public enum ExportCache {
+
+    INSTANCE;
+
+    private static final Logger LOGGER = Logger.getLogger(ExportCache.class.getName());
+
+    /**
+     * True to generate the exports on each request
+     */
+    static boolean DISABLED = Boolean.getBoolean(ExportCache.class.getName() + ".disabled");
+
+    static final String CACHE_FOLDER = "cloudbees-casc-client-export-cache";
+
+    private static final AtomicLong GENERATION = new AtomicLong();
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<String, Object> locks = new ConcurrentHashMap<>();
+    private final AtomicLong files = new AtomicLong();
+    private Path folder;
+
+    /**
+     * Returns the cached export of an exporter, exporting it again if the cached one is outdated.
+     * Must be called with the authentication of the user requesting the export.
+     * @param exporter the exporter
+     * @param snapshot the snapshot used by the export
+     * @return the exported file, to be closed once it's copied
+     * @throws IOException if the file cannot be exported
+     */
+    @NonNull
+    Entry export(@NonNull BundleExporter exporter, @NonNull ExportSnapshot snapshot) throws IOException {
+        return export(exporter, null, snapshot);
+    }
+
+    /**
+     * Returns the cached export of a file of a sharded export, exporting it again if the cached one is outdated.
+     * Must be called with the authentication of the user requesting the export.
+     * @param exporter the exporter
+     * @param shard the file of {@link BundleExporter#getShardFiles()}, or null for the file of a non sharded export
+     * @param snapshot the snapshot used by the export
+     * @return the exported file, to be closed once it's copied
+     * @throws IOException if the file cannot be exported
+     */
+    @NonNull
+    Entry export(@NonNull BundleExporter exporter, @CheckForNull String shard, @NonNull ExportSnapshot snapshot) throws IOException {
+        String yamlFile = shard == null ? exporter.getYamlFile() : "sharded-" + shard;
+        return export(yamlFile, writer -> shard == null ? exporter.export(writer) : exporter.exportShard(shard, writer), snapshot);
+    }
+
+    /**
+     * Returns a cached file, exporting it again if the cached one is outdated.
+     * Must be called with the authentication of the user requesting the export.
+     * @param name name of the cached file, unique for each export
+     * @param export writes the file, returning false if there is nothing to export
+     * @param snapshot the snapshot used by the export
+     * @return the exported file, to be closed once it's read
+     * @throws IOException if the file cannot be exported
+     */
+    @NonNull
+    Entry export(@NonNull String name, @NonNull Export export, @NonNull ExportSnapshot snapshot) throws IOException {
+        String key = getChangesKey() + "/" + snapshot.getFingerprint();
+        synchronized (locks.computeIfAbsent(name, file -> new Object())) {
+            Entry cached = entries.get(name);
+            if (!DISABLED && cached != null && cached.key.equals(key) && Files.isRegularFile(cached.file)) {
+                LOGGER.log(Level.FINE, "Cached export of {0} is used", name);
+                return cached.lease();
+            }
+            Entry entry = write(name, export, snapshot, key);
+            entries.put(name, entry);
+            if (cached != null) {
+                // Deleted once the responses copying it are complete
+                cached.retire();
+            }
+            return entry.lease();
+        }
+    }
+
+    /**
+     * Removes the cached file of a sharded export that is not exported anymore. The file is deleted once it's not
+     * being copied.
+     * @param shard the file of {@link BundleExporter#getShardFiles()}
+     */
+    void evictShard(@NonNull String shard) {
+        evict("sharded-" + shard);
+    }
+
+    /**
+     * Removes a cached file that is not exported anymore. The file is deleted once it's not being copied.
+     * @param name name of the cached file
+     */
+    void evict(@NonNull String name) {
+        synchronized (locks.computeIfAbsent(name, file -> new Object())) {
+            Entry cached = entries.remove(name);
+            if (cached != null) {
+                LOGGER.log(Level.FINE, "Cached export of {0} is evicted", name);
+                cached.retire();
+            }
+        }
+    }
+
+    private Entry write(String name, Export export, ExportSnapshot snapshot, String key) throws IOException {
+        Path file = getFolder().resolve(name + "." + files.incrementAndGet());
+        MessageDigest digest = newDigest();
+        boolean exported;
+        try (OutputStream out = new DigestOutputStream(Files.newOutputStream(file), digest);
+             Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8)) {
+            exported = snapshot.run(() -> export.to(writer));
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+        return new Entry(key, file, exported, Util.toHexString(digest.digest()));
+    }
+
+    /**
+     * Removes the cached files of the previous executions
+     */
+    private synchronized Path getFolder() throws IOException {
+        if (folder == null) {
+            Path path = Jenkins.get().getRootDir().toPath().resolve(CACHE_FOLDER);
+            FileUtils.deleteDirectory(path.toFile());
+            Files.createDirectories(path);
+            folder = path;
+        }
+        return folder;
+    }
+
+    /**
+     * @return a key that changes if the configuration or the items change, or if it's requested by another user
+     */
+    @NonNull
+    static String getChangesKey() {
+        return GENERATION.get() + "/" + ConfigurationBundleService.ItemsGeneration.get() + "/" + Jenkins.getAuthentication2().getName();
+    }
+
+    /**
+     * Invalidates all the cached exports
+     */
+    static void invalidate() {
+        GENERATION.incrementAndGet();
+    }
+
+    static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Writes an exported file
+     */
+    @FunctionalInterface
+    interface Export {
+        boolean to(Writer writer) throws IOException;
+    }
+
+    /**
+     * An exported file. It's deleted once it's replaced by a newer export and not leased by any response.
+     */
+    static final class Entry implements AutoCloseable {
+        private final String key;
+        private final Path file;
+        private final boolean exported;
+        private final String digest;
+        private int leases;
+        private boolean retired;
+
+        private Entry(String key, Path file, boolean exported, String digest) {
+            this.key = key;
+            this.file = file;
+            this.exported = exported;
+            this.digest = digest;
+        }
+
+        /**
+         * @return the file containing the export
+         */
+        @NonNull
+        Path getFile() {
+            return file;
+        }
+
+        /**
+         * @return false if there was nothing to export
+         */
+        boolean isExported() {
+            return exported;
+        }
+
+        /**
+         * @return SHA-256 of the exported file
+         */
+        @NonNull
+        String getDigest() {
+            return digest;
+        }
+
+        private synchronized Entry lease() {
+            leases++;
+            return this;
+        }
+
+        private synchronized void retire() {
+            retired = true;
+            deleteIfUnused();
+        }
+
+        /**
+         * Releases the lease taken when the entry was returned by the cache
+         */
+        @Override
+        public synchronized void close() {
+            leases--;
+            deleteIfUnused();
+        }
+
+        private void deleteIfUnused() {
+            if (retired && leases <= 0) {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException e) {
+                    LOGGER.log(Level.FINE, "Replaced export cannot be deleted", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Invalidates the cache when any configuration is saved. The runtime records are ignored as they are not exported.
+     */
+    @Extension
+    public static final class ConfigurationChanges extends SaveableListener {
+        @Override
+        public void onChange(Saveable o, XmlFile file) {
+            if (!isRuntimeRecord(o)) {
+                invalidate();
+            }
+        }
+
+        private static boolean isRuntimeRecord(@CheckForNull Saveable o) {
+            return o instanceof Run || o instanceof Queue || o instanceof Fingerprint;
+        }
+    }
+}
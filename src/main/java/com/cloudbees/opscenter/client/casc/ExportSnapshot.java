@@ -0,0 +1,258 @@
+package com.cloudbees.opscenter.client.casc;
+
+import com.cloudbees.jenkins.cjp.installmanager.casc.ConfigurationBundle;
+import com.cloudbees.jenkins.cjp.installmanager.casc.ConfigurationBundleManager;
+import com.cloudbees.jenkins.plugins.assurance.CloudBeesAssurance;
+import com.cloudbees.jenkins.plugins.assurance.model.Beekeeper;
+import com.cloudbees.jenkins.plugins.assurance.model.PluginItem;
+import com.cloudbees.jenkins.plugins.assurance.model.Plugins;
+import com.cloudbees.jenkins.plugins.assurance.remote.BeekeeperRemote;
+import com.cloudbees.jenkins.plugins.assurance.remote.extensionparser.ParsedEnvelopeExtension;
+import com.cloudbees.jenkins.plugins.casc.items.Items;
+import com.cloudbees.jenkins.plugins.casc.rbac.GlobalRbac;
+import com.cloudbees.jenkins.plugins.updates.envelope.EnvelopePlugin;
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.PluginWrapper;
+import hudson.Util;
+import jenkins.model.Jenkins;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+import org.kohsuke.accmod.restrictions.suppressions.SuppressRestrictedWarnings;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Plugin and envelope data read by the exporters, captured once per export so all the exported files are generated
+ * from the same state, even if the exporters run concurrently or a plugin is installed in the middle of the export.
+ * The exporters get it from {@link #get()}, which returns the snapshot of the running export, or a new one if the
+ * exporter is called on its own.
+ */
+@Restricted(NoExternalUse.class)
+public final class ExportSnapshot {
+
+    private static final ThreadLocal<ExportSnapshot> CURRENT = new ThreadLocal<>();
+
+    private final boolean cap;
+    private final ConfigurationBundle bundle;
+    private final List<PluginWrapper> installedPlugins;
+    private final Map<String, EnvelopePlugin> envelopePlugins;
+    @CheckForNull
+    private final ParsedEnvelopeExtension.Expanded installedExtension;
+    private final boolean anyBeekeeperWarning;
+    private final List<String> beekeeperWarnings;
+    private final List<String> beekeeperExtensionWarnings;
+    private String fingerprint;
+    private PluginConfigurationIndex pluginIndex;
+    private final Object itemsLock = new Object();
+    private Map<String, Object> items;
+    private final Object rbacLock = new Object();
+    private Map<String, Object> globalRbac;
+
+    private ExportSnapshot(boolean cap, @NonNull ConfigurationBundle bundle, @NonNull List<PluginWrapper> installedPlugins,
+                           @NonNull Map<String, EnvelopePlugin> envelopePlugins, @CheckForNull ParsedEnvelopeExtension.Expanded installedExtension,
+                           boolean anyBeekeeperWarning, @NonNull List<String> beekeeperWarnings, @NonNull List<String> beekeeperExtensionWarnings) {
+        this.cap = cap;
+        this.bundle = bundle;
+        this.installedPlugins = installedPlugins;
+        this.envelopePlugins = envelopePlugins;
+        this.installedExtension = installedExtension;
+        this.anyBeekeeperWarning = anyBeekeeperWarning;
+        this.beekeeperWarnings = beekeeperWarnings;
+        this.beekeeperExtensionWarnings = beekeeperExtensionWarnings;
+    }
+
+    /**
+     * @return a new snapshot of the current state
+     */
+    @NonNull
+    @SuppressRestrictedWarnings(value = {CloudBeesAssurance.class, Beekeeper.class, ParsedEnvelopeExtension.class,
+            Plugins.class, PluginItem.class})
+    public static ExportSnapshot capture() {
+        Beekeeper beekeeper = CloudBeesAssurance.get().getBeekeeper();
+        Plugins plugins = beekeeper.getPlugins();
+        boolean anyWarning = plugins.isThereAnyWarning();
+        InstalledPluginsSnapshot installed = InstalledPluginsSnapshot.get();
+        return new ExportSnapshot(
+                BeekeeperRemote.get().getStatus().isCap(),
+                ConfigurationBundleManager.get().getConfigurationBundle(),
+                installed.getInstalledPlugins(),
+                installed.getEnvelopePlugins(),
+                installed.getInstalledExtension(),
+                anyWarning,
+                anyWarning ? plugins.getWarnings().stream().map(p -> p.getName() + ". " + p.getDescription()).collect(Collectors.toList()) : Collections.emptyList(),
+                anyWarning ? plugins.getWarningsExtension().stream().map(p -> p.getName() + ". " + p.getDescription()).collect(Collectors.toList()) : Collections.emptyList());
+    }
+
+    /**
+     * @return the snapshot of the running export, or a new snapshot if there is no export running in this thread
+     */
+    @NonNull
+    public static ExportSnapshot get() {
+        ExportSnapshot snapshot = CURRENT.get();
+        return snapshot != null ? snapshot : capture();
+    }
+
+    /**
+     * Runs an export using this snapshot
+     * @param export the export to run
+     * @return the result of the export
+     * @throws IOException if the export fails
+     */
+    <T> T run(@NonNull Export<T> export) throws IOException {
+        ExportSnapshot previous = CURRENT.get();
+        CURRENT.set(this);
+        try {
+            return export.run();
+        } finally {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+
+    /**
+     * @return true if CAP is enabled
+     */
+    public boolean isCap() {
+        return cap;
+    }
+
+    /**
+     * @return the applied bundle
+     */
+    @NonNull
+    public ConfigurationBundle getBundle() {
+        return bundle;
+    }
+
+    /**
+     * @return the installed plugins
+     */
+    @NonNull
+    public List<PluginWrapper> getInstalledPlugins() {
+        return installedPlugins;
+    }
+
+    /**
+     * @return the plugins in the envelope, by id
+     */
+    @NonNull
+    public Map<String, EnvelopePlugin> getEnvelopePlugins() {
+        return envelopePlugins;
+    }
+
+    /**
+     * @return the installed envelope extension (plugin catalog), null if there is none
+     */
+    @CheckForNull
+    public ParsedEnvelopeExtension.Expanded getInstalledExtension() {
+        return installedExtension;
+    }
+
+    /**
+     * @return true if Beekeeper reports any warning on the plugins
+     */
+    public boolean isAnyBeekeeperWarning() {
+        return anyBeekeeperWarning;
+    }
+
+    /**
+     * @return the Beekeeper warnings on the plugins, as "name. description"
+     */
+    @NonNull
+    public List<String> getBeekeeperWarnings() {
+        return beekeeperWarnings;
+    }
+
+    /**
+     * @return the Beekeeper warnings on the plugins of the envelope extension, as "name. description"
+     */
+    @NonNull
+    public List<String> getBeekeeperExtensionWarnings() {
+        return beekeeperExtensionWarnings;
+    }
+
+    /**
+     * @return the index of the plugins configuration of the applied bundle and the installed plugins
+     */
+    @NonNull
+    public synchronized PluginConfigurationIndex getPluginIndex() {
+        if (pluginIndex == null) {
+            pluginIndex = new PluginConfigurationIndex(bundle.getPluginConfigurations(), installedPlugins, envelopePlugins, installedExtension);
+        }
+        return pluginIndex;
+    }
+
+    /**
+     * Converts the items of the instance the first time they are requested in this export, so the files of a sharded
+     * export share the conversion. It's not kept after the export.
+     * @return the items export of the instance, not to be modified
+     */
+    @NonNull
+    @SuppressRestrictedWarnings(value = {Items.class})
+    public Map<String, Object> getItems() {
+        synchronized (itemsLock) {
+            if (items == null) {
+                items = new Items(Jenkins.get()).toYaml();
+            }
+            return items;
+        }
+    }
+
+    /**
+     * Converts the global roles and groups the first time they are requested in this export, so the files of a sharded
+     * export share the conversion
+     * @return the RBAC export of the instance, not to be modified
+     */
+    @NonNull
+    @SuppressRestrictedWarnings(value = {GlobalRbac.class})
+    public Map<String, Object> getGlobalRbac() {
+        synchronized (rbacLock) {
+            if (globalRbac == null) {
+                globalRbac = new GlobalRbac(Jenkins.get()).toYaml();
+            }
+            return globalRbac;
+        }
+    }
+
+    /**
+     * @return digest of the captured data, the same for two snapshots if the exports generated from them are the same
+     */
+    @NonNull
+    @SuppressRestrictedWarnings(value = {ParsedEnvelopeExtension.class})
+    public synchronized String getFingerprint() {
+        if (fingerprint == null) {
+            StringBuilder data = new StringBuilder();
+            data.append(cap).append('\n');
+            data.append(bundle.getChecksum()).append('/').append(bundle.getApiVersion()).append('\n');
+            installedPlugins.stream()
+                            .map(plugin -> plugin.getShortName() + ':' + plugin.getVersion() + ':' + plugin.isActive())
+                            .sorted()
+                            .forEach(plugin -> data.append(plugin).append('\n'));
+            envelopePlugins.entrySet().stream()
+                           .map(plugin -> plugin.getKey() + ':' + plugin.getValue().getScope())
+                           .sorted()
+                           .forEach(plugin -> data.append(plugin).append('\n'));
+            data.append(installedExtension != null ? installedExtension.getOriginalMetadata() : null).append('\n');
+            beekeeperWarnings.forEach(warning -> data.append(warning).append('\n'));
+            beekeeperExtensionWarnings.forEach(warning -> data.append(warning).append('\n'));
+            fingerprint = Util.getDigestOf(data.toString());
+        }
+        return fingerprint;
+    }
+
+    /**
+     * An export run with a snapshot
+     */
+    @FunctionalInterface
+    interface Export<T> {
+        T run() throws IOException;
+    }
+}
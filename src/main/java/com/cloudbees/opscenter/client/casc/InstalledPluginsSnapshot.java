@@ -0,0 +1,204 @@
+package com.cloudbees.opscenter.client.casc;
+
+import com.cloudbees.jenkins.plugins.assurance.CloudBeesAssurance;
+import com.cloudbees.jenkins.plugins.assurance.model.Beekeeper;
+import com.cloudbees.jenkins.plugins.assurance.remote.extensionparser.ParsedEnvelopeExtension;
+import com.cloudbees.jenkins.plugins.updates.envelope.Envelope;
+import com.cloudbees.jenkins.plugins.updates.envelope.EnvelopePlugin;
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.PluginWrapper;
+import hudson.Util;
+import hudson.XmlFile;
+import hudson.model.Saveable;
+import hudson.model.listeners.SaveableListener;
+import jenkins.model.Jenkins;
+import org.jenkinsci.plugins.variant.OptionalExtension;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+import org.kohsuke.accmod.restrictions.suppressions.SuppressRestrictedWarnings;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Immutable snapshot of the installed plugins, the envelope plugins and the plugins in the installed plugin catalog,
+ * shared by the exports and the hot reload instead of building the same sets and maps on each call.
+ * The snapshot is read without locking, and it is checked on each call against the live state, so it is built again when:
+ * <ul>
+ *     <li>A plugin is loaded, or its version, active or enabled state changes, see {@link #checksum(List)}</li>
+ *     <li>Beekeeper has another envelope or installed plugin catalog, whatever installed it (hot reload, CLI or UI)</li>
+ *     <li>It is explicitly invalidated, see {@link #invalidate()}, or the configuration of CloudBees Assurance is saved</li>
+ * </ul>
+ */
+@Restricted(NoExternalUse.class)
+public final class InstalledPluginsSnapshot {
+
+    private static final AtomicLong VERSION = new AtomicLong();
+
+    private static volatile InstalledPluginsSnapshot current;
+
+    private final long version;
+    private final List<PluginWrapper> installedPlugins;
+    private final long pluginsChecksum;
+    private final Map<String, PluginWrapper> installedById;
+    private final Envelope envelope;
+    private final Map<String, EnvelopePlugin> envelopePlugins;
+    @CheckForNull
+    private final ParsedEnvelopeExtension.Expanded installedExtension;
+    private final PluginConfigurationIndex index;
+    private volatile String envelopeJson;
+    private volatile String envelopeDigest;
+
+    private InstalledPluginsSnapshot(long version, @NonNull List<PluginWrapper> installedPlugins, @NonNull Envelope envelope,
+                                     @CheckForNull ParsedEnvelopeExtension.Expanded installedExtension) {
+        this.version = version;
+        this.installedPlugins = Collections.unmodifiableList(installedPlugins);
+        this.pluginsChecksum = checksum(installedPlugins);
+        Map<String, PluginWrapper> byId = new HashMap<>();
+        for (PluginWrapper plugin : installedPlugins) {
+            byId.put(plugin.getShortName(), plugin);
+        }
+        this.installedById = Collections.unmodifiableMap(byId);
+        this.envelope = envelope;
+        this.envelopePlugins = Collections.unmodifiableMap(new HashMap<>(envelope.getPlugins()));
+        this.installedExtension = installedExtension;
+        this.index = new PluginConfigurationIndex(null, installedPlugins, envelopePlugins, installedExtension);
+    }
+
+    /**
+     * @return the current snapshot, built again if something changed since the last one
+     */
+    @NonNull
+    @SuppressRestrictedWarnings(value = {CloudBeesAssurance.class, Beekeeper.class, ParsedEnvelopeExtension.class})
+    public static InstalledPluginsSnapshot get() {
+        // The version is read before the data, so a snapshot built while it's invalidated is built again on the next call
+        long version = VERSION.get();
+        List<PluginWrapper> plugins = Jenkins.get().getPluginManager().getPlugins();
+        Beekeeper beekeeper = CloudBeesAssurance.get().getBeekeeper();
+        Envelope envelope = beekeeper.getEnvelope();
+        ParsedEnvelopeExtension.Expanded installedExtension = beekeeper.getInstalledExtension();
+        InstalledPluginsSnapshot snapshot = current;
+        // Beekeeper replaces the envelope and the installed catalog when they change, so comparing the references is enough
+        if (snapshot == null || snapshot.version != version || snapshot.envelope != envelope
+            || snapshot.installedExtension != installedExtension || snapshot.pluginsChecksum != checksum(plugins)) {
+            snapshot = new InstalledPluginsSnapshot(version, new ArrayList<>(plugins), envelope, installedExtension);
+            current = snapshot;
+        }
+        return snapshot;
+    }
+
+    /**
+     * Cheap checksum of the installed plugins, calculated on each call to {@link #get()} without building any collection
+     * @return checksum of the id, version, active and enabled state of the plugins, in the order of the plugin manager
+     */
+    static long checksum(@NonNull List<PluginWrapper> plugins) {
+        long checksum = plugins.size();
+        for (PluginWrapper plugin : plugins) {
+            checksum = 31 * checksum + Objects.hash(plugin.getShortName(), plugin.getVersion(), plugin.isActive(), plugin.isEnabled());
+        }
+        return checksum;
+    }
+
+    /**
+     * Builds the snapshot again on the next call to {@link #get()}
+     */
+    public static void invalidate() {
+        VERSION.incrementAndGet();
+    }
+
+    /**
+     * @return the installed plugins
+     */
+    @NonNull
+    public List<PluginWrapper> getInstalledPlugins() {
+        return installedPlugins;
+    }
+
+    /**
+     * @return the installed plugin with this id, null if it's not installed
+     */
+    @CheckForNull
+    public PluginWrapper getInstalledPlugin(@NonNull String id) {
+        return installedById.get(id);
+    }
+
+    /**
+     * @return the envelope
+     */
+    @NonNull
+    public Envelope getEnvelope() {
+        return envelope;
+    }
+
+    /**
+     * @return the envelope in JSON format, serialized only once
+     */
+    @NonNull
+    public String getEnvelopeJson() {
+        String json = envelopeJson;
+        if (json == null) {
+            // Serialized again if requested concurrently, but the result is the same
+            json = envelope.toJSON().toString();
+            envelopeJson = json;
+        }
+        return json;
+    }
+
+    /**
+     * @return SHA-256 of the envelope in JSON format, calculated only once
+     */
+    @NonNull
+    public String getEnvelopeDigest() {
+        String digest = envelopeDigest;
+        if (digest == null) {
+            digest = Util.toHexString(ExportCache.newDigest().digest(getEnvelopeJson().getBytes(StandardCharsets.UTF_8)));
+            envelopeDigest = digest;
+        }
+        return digest;
+    }
+
+    /**
+     * @return the plugins in the envelope, by id
+     */
+    @NonNull
+    public Map<String, EnvelopePlugin> getEnvelopePlugins() {
+        return envelopePlugins;
+    }
+
+    /**
+     * @return the installed plugin catalog, null if there is none
+     */
+    @CheckForNull
+    public ParsedEnvelopeExtension.Expanded getInstalledExtension() {
+        return installedExtension;
+    }
+
+    /**
+     * @return the index of the installed plugins, their dependencies and the plugins in the envelope and the installed catalog
+     */
+    @NonNull
+    public PluginConfigurationIndex getIndex() {
+        return index;
+    }
+
+    /**
+     * Invalidates the snapshot when the configuration of CloudBees Assurance is saved, as the envelope or the plugin catalog might have changed
+     */
+    @OptionalExtension(requirePlugins = "cloudbees-assurance")
+    public static final class BeekeeperChanges extends SaveableListener {
+        @Override
+        @SuppressRestrictedWarnings(value = {CloudBeesAssurance.class})
+        public void onChange(Saveable o, XmlFile file) {
+            if (o != null && o.getClass().getName().startsWith(CloudBeesAssurance.class.getPackage().getName() + ".")) {
+                invalidate();
+            }
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package com.cloudbees.opscenter.client.casc;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Util;
+import hudson.model.ItemGroup;
+import jenkins.model.Jenkins;
+import org.apache.commons.lang.StringUtils;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+import org.kohsuke.stapler.StaplerRequest;
+import org.yaml.snakeyaml.Yaml;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Scope of a partial items export: the items of a folder, up to a depth, in pages.
+ * The items are sorted by name in each folder, and the page cursor is the name of the last item of the previous page,
+ * so the pages are stable even if items are created or removed between requests.
+ * Requested with the query parameters of {@code core-casc-export/items.yaml}:
+ * <ul>
+ *     <li>{@code folder}: full name of the folder, the whole instance by default</li>
+ *     <li>{@code depth}: levels of items exported, 1 for the items in the folder without their children. All by default</li>
+ *     <li>{@code limit}: max number of items in the folder exported in a page. All by default</li>
+ *     <li>{@code cursor}: cursor returned in the {@link #NEXT_CURSOR_HEADER} header of the previous page</li>
+ * </ul>
+ */
+@Restricted(NoExternalUse.class)
+public final class ItemsExportScope {
+
+    /**
+     * Header containing the cursor of the next page, absent in the last page
+     */
+    public static final String NEXT_CURSOR_HEADER = "X-CasC-Items-Next-Cursor";
+
+    private final List<String> folder;
+    private final int depth;
+    private final int limit;
+    @CheckForNull
+    private final String cursor;
+
+    ItemsExportScope(@CheckForNull String folder, int depth, int limit, @CheckForNull String cursor) {
+        this.folder = StringUtils.isBlank(folder) ? Collections.emptyList()
+                : Collections.unmodifiableList(Arrays.stream(folder.split("/")).filter(StringUtils::isNotBlank).collect(Collectors.toList()));
+        this.depth = depth;
+        this.limit = limit;
+        this.cursor = StringUtils.defaultIfBlank(cursor, null);
+    }
+
+    /**
+     * @return the scope requested, or null if the whole instance is requested
+     * @throws IllegalArgumentException if a parameter is not valid
+     */
+    @CheckForNull
+    public static ItemsExportScope from(@NonNull StaplerRequest req) {
+        String folder = req.getParameter("folder");
+        String depth = req.getParameter("depth");
+        String limit = req.getParameter("limit");
+        String cursor = req.getParameter("cursor");
+        if (folder == null && depth == null && limit == null && cursor == null) {
+            return null;
+        }
+        return new ItemsExportScope(folder, positive("depth", depth), positive("limit", limit), cursor);
+    }
+
+    private static int positive(String name, @CheckForNull String value) {
+        if (StringUtils.isBlank(value)) {
+            return 0;
+        }
+        try {
+            int parsed = Integer.parseInt(value.trim());
+            if (parsed > 0) {
+                return parsed;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        throw new IllegalArgumentException("Parameter " + name + " must be a positive number: " + value);
+    }
+
+    /**
+     * @return true if the requested folder is an item group of the instance, checked without converting the items
+     */
+    boolean isFolderFound() {
+        return folder.isEmpty() || Jenkins.get().getItemByFullName(String.join("/", folder)) instanceof ItemGroup;
+    }
+
+    /**
+     * @return name of the cached export of the items of the requested folder
+     */
+    @NonNull
+    String getCacheName() {
+        return cacheName(String.join("/", folder));
+    }
+
+    /**
+     * @param fullName full name of a folder, empty for the whole instance
+     * @return name of the cached export of the items of the folder
+     */
+    @NonNull
+    static String cacheName(@NonNull String fullName) {
+        return "items-scope-" + Util.getDigestOf(fullName);
+    }
+
+    /**
+     * Extracts the items of the requested folder, with all their children, from the items export of the whole instance
+     * @param yaml the items export of the whole instance, as returned by {@code Items.toYaml()}
+     * @return the remove strategy and the items of the folder, or null if the folder doesn't exist
+     */
+    @CheckForNull
+    Map<String, Object> folderOf(@NonNull Map<String, Object> yaml) {
+        List<Map<String, Object>> items = children(yaml);
+        for (String name : folder) {
+            Map<String, Object> found = items.stream().filter(item -> name.equals(nameOf(item))).findFirst().orElse(null);
+            if (found == null) {
+                return null;
+            }
+            items = children(found);
+        }
+        Map<String, Object> folderYaml = new LinkedHashMap<>();
+        if (yaml.containsKey("removeStrategy")) {
+            folderYaml.put("removeStrategy", yaml.get("removeStrategy"));
+        }
+        folderYaml.put("items", items);
+        return folderYaml;
+    }
+
+    /**
+     * Selects the page of items in the scope
+     * @param yaml the items export of the whole instance, as returned by {@code Items.toYaml()}
+     * @return the page, or null if the folder doesn't exist
+     */
+    @CheckForNull
+    Page select(@NonNull Map<String, Object> yaml) {
+        Map<String, Object> folderYaml = folderOf(yaml);
+        return folderYaml != null ? selectInFolder(folderYaml) : null;
+    }
+
+    /**
+     * Selects the page of items in the scope
+     * @param folderYaml the items of the requested folder, as returned by {@link #folderOf(Map)}
+     * @return the page
+     */
+    @NonNull
+    Page selectInFolder(@NonNull Map<String, Object> folderYaml) {
+        List<Map<String, Object>> items = children(folderYaml);
+        List<Map<String, Object>> page = new ArrayList<>();
+        String nextCursor = null;
+        for (Map<String, Object> item : sorted(items)) {
+            if (cursor != null && nameOf(item).compareTo(cursor) <= 0) {
+                continue;
+            }
+            if (limit > 0 && page.size() == limit) {
+                nextCursor = nameOf(page.get(page.size() - 1));
+                break;
+            }
+            page.add(item);
+        }
+        return new Page(folderYaml.get("removeStrategy"), page, nextCursor);
+    }
+
+    /**
+     * @return the item trimmed to the requested depth, with its children sorted by name
+     */
+    private Map<String, Object> trim(Map<String, Object> item, int level) {
+        if (!(item.get("items") instanceof List)) {
+            return item;
+        }
+        Map<String, Object> trimmed = new LinkedHashMap<>(item);
+        if (depth > 0 && level >= depth) {
+            trimmed.remove("items");
+        } else {
+            trimmed.put("items", sorted(children(item)).stream().map(child -> trim(child, level + 1)).collect(Collectors.toList()));
+        }
+        return trimmed;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> children(Map<String, Object> item) {
+        Object children = item.get("items");
+        if (!(children instanceof List)) {
+            return Collections.emptyList();
+        }
+        return ((List<Object>) children).stream().filter(Map.class::isInstance).map(child -> (Map<String, Object>) child).collect(Collectors.toList());
+    }
+
+    private static List<Map<String, Object>> sorted(List<Map<String, Object>> items) {
+        List<Map<String, Object>> sorted = new ArrayList<>(items);
+        sorted.sort(Comparator.comparing(ItemsExportScope::nameOf));
+        return sorted;
+    }
+
+    @NonNull
+    private static String nameOf(Map<String, Object> item) {
+        Object name = item.get("name");
+        return name != null ? name.toString() : "";
+    }
+
+    /**
+     * A page of items
+     */
+    final class Page {
+        @CheckForNull
+        private final Object removeStrategy;
+        private final List<Map<String, Object>> items;
+        @CheckForNull
+        private final String nextCursor;
+
+        private Page(@CheckForNull Object removeStrategy, @NonNull List<Map<String, Object>> items, @CheckForNull String nextCursor) {
+            this.removeStrategy = removeStrategy;
+            this.items = items;
+            this.nextCursor = nextCursor;
+        }
+
+        /**
+         * @return the cursor of the next page, null if this is the last one
+         */
+        @CheckForNull
+        String getNextCursor() {
+            return nextCursor;
+        }
+
+        /**
+         * Writes the page as an items.yaml file. The items are trimmed and written one by one.
+         * @param writer where the file is written
+         * @param yaml to dump the items
+         * @throws IOException if the file cannot be written
+         */
+        void writeTo(@NonNull Writer writer, @NonNull Yaml yaml) throws IOException {
+            if (removeStrategy != null) {
+                yaml.dump(Collections.singletonMap("removeStrategy", removeStrategy), writer);
+            }
+            if (items.isEmpty()) {
+                writer.write("items: []\n");
+                return;
+            }
+            writer.write("items:\n");
+            for (Map<String, Object> item : items) {
+                yaml.dump(Collections.singletonList(trim(item, 1)), writer);
+            }
+        }
+    }
+}
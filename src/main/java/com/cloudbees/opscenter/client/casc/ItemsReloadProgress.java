@@ -0,0 +1,123 @@
+package com.cloudbees.opscenter.client.casc;
+
+import com.cloudbees.jenkins.cjp.installmanager.casc.ConfigurationBundle;
+import com.cloudbees.jenkins.plugins.casc.YamlClientUtils;
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.model.Item;
+import hudson.model.listeners.ItemListener;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Reports the progress of the items section of a reload as {@link ReloadProgress.EventType#PROGRESS} events.
+ * The items are applied by the items processor in a single call, so an item is counted as processed when it's created or
+ * updated by the reloading thread. The total is the number of items defined in the bundle, including those in folders.
+ */
+@Restricted(NoExternalUse.class)
+public final class ItemsReloadProgress {
+
+    private static final Logger LOGGER = Logger.getLogger(ItemsReloadProgress.class.getName());
+
+    /**
+     * Progress of the running reload, null if the items are not being reloaded
+     */
+    @CheckForNull
+    private static volatile ItemsReloadProgress current;
+
+    private final Thread thread;
+    private final String section;
+    private final int total;
+    private int processed;
+
+    private ItemsReloadProgress(@NonNull Thread thread, @NonNull String section, int total) {
+        this.thread = thread;
+        this.section = section;
+        this.total = total;
+    }
+
+    /**
+     * Starts reporting the items applied by the current thread
+     * @param section name of the section
+     * @param bundle bundle being reloaded
+     */
+    static void start(@NonNull String section, @NonNull ConfigurationBundle bundle) {
+        ItemsReloadProgress progress = new ItemsReloadProgress(Thread.currentThread(), section, countItems(bundle));
+        current = progress;
+        ReloadProgress.INSTANCE.progress(section, 0, progress.total, null);
+    }
+
+    /**
+     * Stops reporting the items applied
+     */
+    static void stop() {
+        current = null;
+    }
+
+    private synchronized void processed(@NonNull Item item) {
+        // Items created by the processed ones, as the children of an organization folder, are not in the bundle
+        processed = Math.min(processed + 1, total);
+        ReloadProgress.INSTANCE.progress(section, processed, total, item.getFullName());
+    }
+
+    /**
+     * @return number of items defined in the bundle, going into the folders recursively. 0 if they cannot be read.
+     */
+    static int countItems(@NonNull ConfigurationBundle bundle) {
+        int count = 0;
+        if (bundle.hasItems()) {
+            try {
+                for (String content : bundle.getItems()) {
+                    Map<String, Object> parsed = YamlClientUtils.createDefault().load(content);
+                    if (parsed != null) {
+                        count += countItems(parsed.get("items"));
+                    }
+                }
+            } catch (RuntimeException e) {
+                LOGGER.log(Level.FINE, "Items of the bundle cannot be counted", e);
+            }
+        }
+        return count;
+    }
+
+    private static int countItems(Object items) {
+        int count = 0;
+        if (items instanceof List) {
+            for (Object item : (List<?>) items) {
+                if (item instanceof Map && ((Map<?, ?>) item).get("name") != null) {
+                    count += 1 + countItems(((Map<?, ?>) item).get("items"));
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Counts the items created or updated by the reloading thread
+     */
+    @Extension
+    public static final class ProgressListener extends ItemListener {
+        @Override
+        public void onCreated(Item item) {
+            onApplied(item);
+        }
+
+        @Override
+        public void onUpdated(Item item) {
+            onApplied(item);
+        }
+
+        private static void onApplied(Item item) {
+            ItemsReloadProgress progress = current;
+            if (progress != null && progress.thread == Thread.currentThread()) {
+                progress.processed(item);
+            }
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.cloudbees.opscenter.client.casc;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.model.Item;
+import hudson.model.Queue;
+import hudson.model.listeners.ItemListener;
+import jenkins.model.Jenkins;
+import jenkins.util.Timer;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Paces the items applied while the items section of a bundle is reloaded, so a large items bundle doesn't saturate the disk
+ * and the Jenkins lock while builds are running.
+ * The items are created and updated by the items processor in a single call, so the throttle waits after each item is
+ * applied by the reloading thread, when it's notified as created or updated. It never waits while the thread holds the
+ * lock of the item, of its parent or of Jenkins. In that case the wait is added to the next one.
+ * The rate starts at {@link #ITEMS_PER_SECOND} and adapts to the latency acquiring the queue lock, sampled from another
+ * thread every {@link #SAMPLE_PERIOD_MILLIS}: it's halved when the latency is above {@link #TARGET_LATENCY_MILLIS}, and
+ * increased by one item per second otherwise.
+ * Disabled by default.
+ */
+@Restricted(NoExternalUse.class)
+public final class ItemsReloadThrottle {
+
+    private static final Logger LOGGER = Logger.getLogger(ItemsReloadThrottle.class.getName());
+
+    /**
+     * Max number of items applied per second while reloading. 0 to disable the throttle.
+     */
+    static int ITEMS_PER_SECOND = Integer.getInteger(ItemsReloadThrottle.class.getName() + ".itemsPerSecond", 0);
+
+    /**
+     * Latency acquiring the queue lock above which the rate is reduced
+     */
+    static long TARGET_LATENCY_MILLIS = Long.getLong(ItemsReloadThrottle.class.getName() + ".targetLatencyMillis", 100);
+
+    /**
+     * The rate is never reduced below this number of items per second
+     */
+    static int MIN_ITEMS_PER_SECOND = Math.max(1, Integer.getInteger(ItemsReloadThrottle.class.getName() + ".minItemsPerSecond", 1));
+
+    /**
+     * Period to sample the latency acquiring the queue lock
+     */
+    static long SAMPLE_PERIOD_MILLIS = Math.max(100, Long.getLong(ItemsReloadThrottle.class.getName() + ".samplePeriodMillis", 1000));
+
+    /**
+     * Throttle of the running reload, null if the items are not being reloaded or the throttle is disabled
+     */
+    @CheckForNull
+    private static volatile ItemsReloadThrottle current;
+
+    private final Thread thread;
+    private final int maxRate;
+    private final int minRate;
+    private final long targetLatencyMillis;
+    @CheckForNull
+    private ScheduledFuture<?> sampler;
+
+    private double rate;
+    private long nextSlot;
+    private long items;
+    private long waitedMillis;
+
+    ItemsReloadThrottle(@NonNull Thread thread, int maxRate, int minRate, long targetLatencyMillis) {
+        this.thread = thread;
+        this.maxRate = maxRate;
+        this.minRate = Math.min(minRate, maxRate);
+        this.targetLatencyMillis = targetLatencyMillis;
+        this.rate = maxRate;
+        this.nextSlot = System.nanoTime();
+    }
+
+    /**
+     * Starts throttling the items applied by the current thread, if the throttle is enabled
+     */
+    static void start() {
+        if (ITEMS_PER_SECOND > 0) {
+            ItemsReloadThrottle throttle = new ItemsReloadThrottle(Thread.currentThread(), ITEMS_PER_SECOND, MIN_ITEMS_PER_SECOND, TARGET_LATENCY_MILLIS);
+            // Fixed rate tasks never overlap, so a slow sample delays the next one
+            throttle.sampler = Timer.get().scheduleAtFixedRate(() -> throttle.adjust(queueLockLatency()),
+                                                               SAMPLE_PERIOD_MILLIS, SAMPLE_PERIOD_MILLIS, TimeUnit.MILLISECONDS);
+            current = throttle;
+        }
+    }
+
+    /**
+     * Stops throttling and logs the summary
+     */
+    static void stop() {
+        ItemsReloadThrottle throttle = current;
+        current = null;
+        if (throttle != null) {
+            if (throttle.sampler != null) {
+                throttle.sampler.cancel(false);
+            }
+            synchronized (throttle) {
+                LOGGER.log(Level.INFO, "{0} items reloaded, {1} ms waited to protect running builds. Final rate {2} items/s",
+                           new Object[]{throttle.items, throttle.waitedMillis, String.format("%.1f", throttle.rate)});
+            }
+        }
+    }
+
+    /**
+     * Reserves the next slot for an item applied and, if allowed, waits until the slot
+     * @param canWait false if the thread is holding some lock, so the wait is added to the next one
+     * @return the time waited in milliseconds
+     */
+    long acquire(boolean canWait) {
+        long wait;
+        synchronized (this) {
+            items++;
+            long now = System.nanoTime();
+            wait = nextSlot - now;
+            nextSlot = Math.max(nextSlot, now) + (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+            if (!canWait || wait <= 0) {
+                return 0;
+            }
+        }
+        // Not holding the throttle lock, so the rate can be adjusted meanwhile
+        try {
+            TimeUnit.NANOSECONDS.sleep(wait);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        long waited = TimeUnit.NANOSECONDS.toMillis(wait);
+        synchronized (this) {
+            waitedMillis += waited;
+        }
+        return waited;
+    }
+
+    /**
+     * Additive increase, multiplicative decrease of the rate
+     * @param latencyMillis latency measured
+     */
+    synchronized void adjust(long latencyMillis) {
+        if (latencyMillis > targetLatencyMillis) {
+            rate = Math.max(minRate, rate / 2);
+        } else {
+            rate = Math.min(maxRate, rate + 1);
+        }
+    }
+
+    synchronized double getRate() {
+        return rate;
+    }
+
+    /**
+     * Measured from the sampling thread, never from the reloading one
+     * @return time to acquire the queue lock, contended by the scheduling of builds and by the item changes
+     */
+    private static long queueLockLatency() {
+        long start = System.nanoTime();
+        Queue.withLock(() -> {});
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+
+    /**
+     * Throttles the items applied by the reloading thread
+     */
+    @Extension
+    public static final class ThrottlingListener extends ItemListener {
+        @Override
+        public void onCreated(Item item) {
+            onApplied(item);
+        }
+
+        @Override
+        public void onUpdated(Item item) {
+            onApplied(item);
+        }
+
+        private static void onApplied(Item item) {
+            ItemsReloadThrottle throttle = current;
+            if (throttle != null && throttle.thread == Thread.currentThread()) {
+                throttle.acquire(!holdsLock(item));
+            }
+        }
+
+        private static boolean holdsLock(Item item) {
+            return Thread.holdsLock(item) || Thread.holdsLock(item.getParent()) || Thread.holdsLock(Jenkins.get());
+        }
+    }
+}
@@ -6,9 +6,14 @@ import io.jenkins.plugins.casc.ConfigurationAsCode;
 import org.jenkinsci.plugins.variant.OptionalExtension;
 import org.kohsuke.accmod.restrictions.suppressions.SuppressRestrictedWarnings;
 
-import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.OutputStream;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.io.Writer;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -29,18 +34,49 @@ public final class JCasCExporter extends BundleExporter {
     /**
      * Calls {@link ConfigurationAsCode#export(OutputStream)} to generate the JCasC config file content.
      */
-    @SuppressRestrictedWarnings(value = {ConfigurationAsCode.class})
     @Override
     @CheckForNull
     public String getExport() {
-        try (ByteArrayOutputStream out = new ByteArrayOutputStream()) {
-            ConfigurationAsCode.get().export(out);
-            out.flush();
-            return new String(out.toByteArray(), StandardCharsets.UTF_8);
-        } catch (Exception e) {
-            LOG.log(Level.WARNING, "Cannot export JCasC file", e);
-            return "Cannot export JCasC file. See Jenkins logs for more details.";
+        StringWriter writer = new StringWriter();
+        try {
+            export(writer);
+        } catch (IOException e) {
+            // Only thrown if the export fails, as StringWriter does not throw it
+            return getFailedExport();
+        }
+        return writer.toString();
+    }
+
+    @NonNull
+    @Override
+    public String getFailedExport() {
+        return "Cannot export JCasC file. See Jenkins logs for more details.";
+    }
+
+    /**
+     * Calls {@link ConfigurationAsCode#export(OutputStream)} writing the JCasC config file content into a temporary file,
+     * which is copied once the export is complete. If the export fails, nothing is written, so a partial file is never
+     * returned nor cached.
+     * @throws IOException if the export fails
+     */
+    @SuppressRestrictedWarnings(value = {ConfigurationAsCode.class})
+    @Override
+    public boolean export(@NonNull Writer writer) throws IOException {
+        Path tmp = Files.createTempFile("jcasc-export", ".yaml");
+        try {
+            try (OutputStream out = Files.newOutputStream(tmp)) {
+                ConfigurationAsCode.get().export(out);
+            } catch (Exception e) {
+                LOG.log(Level.WARNING, "Cannot export JCasC file", e);
+                throw new IOException("Cannot export JCasC file", e);
+            }
+            try (Reader reader = Files.newBufferedReader(tmp, StandardCharsets.UTF_8)) {
+                reader.transferTo(writer);
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
         }
+        return true;
     }
 
     @NonNull
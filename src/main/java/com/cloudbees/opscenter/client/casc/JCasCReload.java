@@ -2,15 +2,32 @@ package com.cloudbees.opscenter.client.casc;
 
 import com.cloudbees.jenkins.cjp.installmanager.casc.ConfigurationBundle;
 import com.cloudbees.jenkins.plugins.casc.CasCException;
+import com.cloudbees.jenkins.plugins.casc.YamlClientUtils;
 import com.cloudbees.jenkins.plugins.casc.comparator.BundleComparator;
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
 import io.jenkins.plugins.casc.ConfigurationAsCode;
 import io.jenkins.plugins.casc.ConfiguratorException;
+import io.jenkins.plugins.casc.yaml.YamlSource;
+import org.apache.commons.io.FileUtils;
 import org.jenkinsci.plugins.variant.OptionalExtension;
+import org.yaml.snakeyaml.DumperOptions;
 
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Reload JCasC configuration.
@@ -20,12 +37,30 @@ public final class JCasCReload extends BundleReload {
 
     private static final Logger LOGGER = Logger.getLogger(JCasCReload.class.getName());
 
+    @Override
+    public String getSection() {
+        return "jcasc";
+    }
+
+    /**
+     * If disabled, the whole JCasC configuration is applied even if only some root elements changed
+     */
+    static boolean PARTIAL_APPLY = Boolean.parseBoolean(System.getProperty(JCasCReload.class.getName() + ".partialApply", "true"));
+
     @Override
     public void doReload(ConfigurationBundle bundle) throws CasCException {
+        doReload(bundle, true);
+    }
+
+    @Override
+    public void doReload(ConfigurationBundle bundle, boolean fullReload) throws CasCException {
         if (bundle.hasJCasCConfig()) {
             setCasCPath(bundle.getJCasCFilePath());
+            Set<String> roots = fullReload ? null : getRootsToApply();
             try {
-                ConfigurationAsCode.get().configure();
+                if (roots == null || !configureRoots(bundle.getJCasCFilePath(), roots)) {
+                    ConfigurationAsCode.get().configure();
+                }
             } catch (ConfiguratorException e) {
                 LOGGER.log(Level.WARNING, "Configuration as Code file cannot be applied: {0}", e.getMessage());
                 LOGGER.log(Level.FINE, "Configuration as code file cannot be applied", e);
@@ -34,10 +69,94 @@ public final class JCasCReload extends BundleReload {
 
     }
 
+    /**
+     * @return the JCasC root elements to apply, or null if the whole configuration must be applied
+     */
+    @CheckForNull
+    private Set<String> getRootsToApply() {
+        BundleComparator.Result comparisonResult = ConfigurationStatus.INSTANCE.getChangesInNewVersion();
+        if (!PARTIAL_APPLY || comparisonResult == null) {
+            return null;
+        }
+        Set<String> changed = comparisonResult.getJcascChangedRoots();
+        Set<String> removed = comparisonResult.getJcascRemovedRoots();
+        if (changed == null || removed == null || !removed.isEmpty()) {
+            // Unknown changes or configuration removed, so let's behave as in a restart
+            return null;
+        }
+        return changed;
+    }
+
+    /**
+     * Applies only some root elements of the JCasC configuration
+     * @param jCasCFilePath JCasC file or folder
+     * @param roots to apply
+     * @return true if the root elements were applied, false if the partial configuration cannot be generated, so the whole configuration must be applied
+     * @throws ConfiguratorException if the configuration cannot be applied
+     */
+    private boolean configureRoots(@CheckForNull Path jCasCFilePath, @NonNull Set<String> roots) throws ConfiguratorException {
+        if (jCasCFilePath == null) {
+            return false;
+        }
+        if (roots.isEmpty()) {
+            LOGGER.log(Level.INFO, "No changes in the JCasC root elements. Skipping JCasC configuration");
+            return true;
+        }
+        Path partial = null;
+        try {
+            partial = Files.createTempDirectory("casc-jcasc-reload");
+            List<YamlSource> sources = new ArrayList<>();
+            for (Path file : listYamlFiles(jCasCFilePath)) {
+                Map<String, Object> parsed = YamlClientUtils.createDefault().load(new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+                if (parsed == null) {
+                    continue;
+                }
+                Map<String, Object> filtered = new LinkedHashMap<>(parsed);
+                filtered.keySet().retainAll(roots);
+                if (!filtered.isEmpty()) {
+                    Path target = partial.resolve(sources.size() + "-" + file.getFileName());
+                    DumperOptions options = new DumperOptions();
+                    options.setDefaultFlowStyle(DumperOptions.FlowStyle.BLOCK);
+                    try (Writer writer = Files.newBufferedWriter(target, StandardCharsets.UTF_8)) {
+                        YamlClientUtils.Builder.create().setDumperOptions(options).build().dump(filtered, writer);
+                    }
+                    sources.add(YamlSource.of(target));
+                }
+            }
+            if (sources.isEmpty()) {
+                return false;
+            }
+            long start = System.currentTimeMillis();
+            ConfigurationAsCode.get().configureWith(sources.toArray(new YamlSource[0]));
+            LOGGER.log(Level.INFO, "JCasC root elements {0} applied in {1} ms", new Object[]{roots, System.currentTimeMillis() - start});
+            return true;
+        } catch (IOException | RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Partial JCasC configuration cannot be generated, applying the whole configuration: {0}", e.getMessage());
+            LOGGER.log(Level.FINE, "Partial JCasC configuration cannot be generated", e);
+            return false;
+        } finally {
+            if (partial != null) {
+                FileUtils.deleteQuietly(partial.toFile());
+            }
+        }
+    }
+
+    private static List<Path> listYamlFiles(Path jCasCFilePath) throws IOException {
+        if (!Files.isDirectory(jCasCFilePath)) {
+            return Collections.singletonList(jCasCFilePath);
+        }
+        try (Stream<Path> files = Files.walk(jCasCFilePath)) {
+            return files.filter(Files::isRegularFile)
+                        .filter(f -> f.toString().endsWith(".yaml") || f.toString().endsWith(".yml"))
+                        .sorted()
+                        .collect(Collectors.toList());
+        }
+    }
+
     @Override
     public boolean isReloadable() {
         BundleComparator.Result comparisonResult = ConfigurationStatus.INSTANCE.getChangesInNewVersion();
-        return comparisonResult != null && comparisonResult.getJcasc().withChanges();
+        return comparisonResult != null && (comparisonResult.getJcasc().withChanges() || comparisonResult.isAffectedByVariables(getSection()));
     }
 
     private void setCasCPath(Path jCasCFilePath) {
@@ -0,0 +1,297 @@
+package com.cloudbees.opscenter.client.casc;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Util;
+import hudson.security.ACL;
+import hudson.security.ACLContext;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import jenkins.model.Jenkins;
+import jenkins.util.ClassLoaderSanityThreadFactory;
+import org.springframework.security.core.Authentication;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs the exporters of a bundle concurrently on a bounded pool. Each exporter writes its file into the {@link ExportCache},
+ * so the files can be copied into the response in a stable order as they are completed.
+ * All the exporters use the same {@link ExportSnapshot}, and run with the authentication of the user requesting the export.
+ */
+final class ParallelBundleExport implements Closeable {
+
+    /**
+     * Max number of exporters running at the same time, for all the exports
+     */
+    static int THREADS = Math.max(1, Integer.getInteger(ParallelBundleExport.class.getName() + ".threads", 3));
+
+    private static ExecutorService executor;
+
+    private final List<Section> sections;
+
+    private ParallelBundleExport(@NonNull List<Section> sections) {
+        this.sections = sections;
+    }
+
+    /**
+     * Starts the export
+     * @param exporters exporters to run, in the order the files are read
+     * @return the running export, to be closed once the files are read
+     * @throws IOException if the export cannot be started
+     */
+    @NonNull
+    static ParallelBundleExport start(@NonNull List<BundleExporter> exporters) throws IOException {
+        return start(exporters, false);
+    }
+
+    /**
+     * Starts the export
+     * @param exporters exporters to run, in the order the files are read
+     * @param sharded true to export the files returned by {@link BundleExporter#getShardFiles()}
+     * @return the running export, to be closed once the files are read
+     * @throws IOException if the files of a sharded export cannot be listed
+     */
+    @NonNull
+    static ParallelBundleExport start(@NonNull List<BundleExporter> exporters, boolean sharded) throws IOException {
+        ExportSnapshot snapshot = ExportSnapshot.capture();
+        Authentication authentication = Jenkins.getAuthentication2();
+        List<Section> sections = new ArrayList<>();
+        ParallelBundleExport export = new ParallelBundleExport(sections);
+        try {
+            for (BundleExporter exporter : exporters) {
+                List<String> shards = sharded ? snapshot.run(exporter::getShardFiles) : Collections.singletonList(null);
+                for (String shard : shards) {
+                    Section section = new Section(exporter, shard);
+                    sections.add(section);
+                    section.start(snapshot, authentication);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            export.close();
+            throw e;
+        }
+        return export;
+    }
+
+    private static synchronized ExecutorService getExecutor() {
+        if (executor == null) {
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(THREADS, THREADS, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                    new ClassLoaderSanityThreadFactory(new NamingThreadFactory(new DaemonThreadFactory(), "CasC bundle export")));
+            pool.allowCoreThreadTimeOut(true);
+            executor = pool;
+        }
+        return executor;
+    }
+
+    /**
+     * @return the files of the export, in the order of the exporters
+     */
+    @NonNull
+    List<Section> getSections() {
+        return Collections.unmodifiableList(sections);
+    }
+
+    /**
+     * @return true if all the exporters are complete, so {@link #getDigest(String)} does not wait
+     */
+    boolean isDone() {
+        return sections.stream().allMatch(section -> section.result.isDone());
+    }
+
+    /**
+     * Waits for all the exporters to complete
+     * @param variant identifies the response the files are written to
+     * @return digest of the response, derived from the digests of the exported files
+     * @throws IOException if any exporter failed
+     */
+    @NonNull
+    String getDigest(@NonNull String variant) throws IOException {
+        MessageDigest digest = ExportCache.newDigest();
+        digest.update(variant.getBytes(StandardCharsets.UTF_8));
+        for (Section section : sections) {
+            String failedExport = section.getFailedExport();
+            String data;
+            if (failedExport != null) {
+                data = "\n" + section.getYamlFile() + ":failed:" + failedExport;
+            } else {
+                ExportCache.Entry entry = section.getEntry();
+                data = "\n" + section.getYamlFile() + ":" + entry.isExported() + ":" + entry.getDigest();
+            }
+            digest.update(data.getBytes(StandardCharsets.UTF_8));
+        }
+        return Util.toHexString(digest.digest());
+    }
+
+    /**
+     * Cancels the exporters still running, and releases the exported files
+     */
+    @Override
+    public void close() {
+        for (Section section : sections) {
+            section.close();
+        }
+    }
+
+    /**
+     * File exported by an exporter
+     */
+    static final class Section {
+        private final BundleExporter exporter;
+        @CheckForNull
+        private final String shard;
+        private final AtomicBoolean released = new AtomicBoolean();
+        private volatile boolean closed;
+        private Future<ExportCache.Entry> result;
+
+        private Section(BundleExporter exporter, @CheckForNull String shard) {
+            this.exporter = exporter;
+            this.shard = shard;
+        }
+
+        private void start(ExportSnapshot snapshot, Authentication authentication) {
+            result = getExecutor().submit(() -> {
+                ExportCache.Entry entry;
+                try (ACLContext ctx = ACL.as2(authentication)) {
+                    entry = ExportCache.INSTANCE.export(exporter, shard, snapshot);
+                }
+                if (closed) {
+                    // Cancelled while it was being exported
+                    release(entry);
+                }
+                return entry;
+            });
+        }
+
+        private void close() {
+            closed = true;
+            if (result != null && !result.cancel(true) && !result.isCancelled()) {
+                try {
+                    release(result.get());
+                } catch (ExecutionException e) {
+                    // Nothing exported, so nothing to release
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        private void release(ExportCache.Entry entry) {
+            if (released.compareAndSet(false, true)) {
+                entry.close();
+            }
+        }
+
+        @NonNull
+        BundleExporter getExporter() {
+            return exporter;
+        }
+
+        /**
+         * @return name of the exported file
+         */
+        @NonNull
+        String getYamlFile() {
+            return shard != null ? shard : exporter.getYamlFile();
+        }
+
+        /**
+         * Waits for the exporter to complete. If it failed, the content of {@link BundleExporter#getFailedExport()} is
+         * returned instead of the file, so a response already started is still complete.
+         * @return the result of {@link BundleExporter#export(Writer)}, false if there is nothing to export
+         * @throws IOException if the exporter failed and there is no content to return instead
+         */
+        boolean await() throws IOException {
+            return getFailedExport() != null || getEntry().isExported();
+        }
+
+        /**
+         * Waits for the exporter to complete
+         * @return the content returned instead of the file if the exporter failed, null if it did not fail
+         * @throws IOException if the exporter failed and there is no content to return instead
+         */
+        @CheckForNull
+        private String getFailedExport() throws IOException {
+            try {
+                getEntry();
+                return null;
+            } catch (IOException e) {
+                String failedExport = exporter.getFailedExport();
+                if (failedExport == null) {
+                    throw e;
+                }
+                return failedExport;
+            }
+        }
+
+        @NonNull
+        private ExportCache.Entry getEntry() throws IOException {
+            try {
+                return result.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while exporting " + getYamlFile(), e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException) {
+                    throw (IOException) e.getCause();
+                }
+                throw new IOException("Cannot export " + getYamlFile(), e.getCause());
+            }
+        }
+
+        /**
+         * @return size of the exported file in bytes, waiting for the exporter to complete
+         * @throws IOException if the exporter failed
+         */
+        long getSize() throws IOException {
+            String failedExport = getFailedExport();
+            return failedExport != null ? failedExport.getBytes(StandardCharsets.UTF_8).length : Files.size(getEntry().getFile());
+        }
+
+        /**
+         * Copies the exported file, waiting for the exporter to complete
+         * @param out where the file is copied
+         * @throws IOException if the exporter failed or the file cannot be copied
+         */
+        void copyTo(@NonNull Writer out) throws IOException {
+            String failedExport = getFailedExport();
+            if (failedExport != null) {
+                out.write(failedExport);
+                return;
+            }
+            try (Reader reader = Files.newBufferedReader(getEntry().getFile(), StandardCharsets.UTF_8)) {
+                reader.transferTo(out);
+            }
+        }
+
+        /**
+         * Copies the exported file, waiting for the exporter to complete
+         * @param out where the file is copied, in UTF-8
+         * @throws IOException if the exporter failed or the file cannot be copied
+         */
+        void copyTo(@NonNull OutputStream out) throws IOException {
+            String failedExport = getFailedExport();
+            if (failedExport != null) {
+                out.write(failedExport.getBytes(StandardCharsets.UTF_8));
+                return;
+            }
+            Files.copy(getEntry().getFile(), out);
+        }
+    }
+}
@@ -2,16 +2,12 @@ package com.cloudbees.opscenter.client.casc;
 
 import com.cloudbees.jenkins.cjp.installmanager.CJPPluginManager;
 import com.cloudbees.jenkins.cjp.installmanager.casc.ConfigurationBundle;
-import com.cloudbees.jenkins.cjp.installmanager.casc.ConfigurationBundleManager;
 import com.cloudbees.jenkins.plugins.assurance.CloudBeesAssurance;
 import com.cloudbees.jenkins.plugins.assurance.model.Beekeeper;
 import com.cloudbees.jenkins.plugins.assurance.model.PluginItem;
 import com.cloudbees.jenkins.plugins.assurance.model.Plugins;
-import com.cloudbees.jenkins.plugins.assurance.remote.BeekeeperRemote;
 import com.cloudbees.jenkins.plugins.assurance.remote.EnvelopeExtension;
-import com.cloudbees.jenkins.plugins.assurance.remote.Status;
 import com.cloudbees.jenkins.plugins.assurance.remote.extensionparser.ParsedEnvelopeExtension;
-import com.cloudbees.jenkins.plugins.assurance.remote.extensionparser.PluginConfiguration;
 import com.cloudbees.jenkins.plugins.casc.YamlClientUtils;
 import com.cloudbees.jenkins.plugins.license.nectar.utils.ProductDescriptionUtils;
 import com.cloudbees.jenkins.plugins.updates.envelope.EnvelopePlugin;
@@ -20,7 +16,6 @@ import edu.umd.cs.findbugs.annotations.CheckForNull;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import edu.umd.cs.findbugs.annotations.Nullable;
 import hudson.PluginWrapper;
-import jenkins.model.Jenkins;
 import net.sf.json.JSONArray;
 import net.sf.json.JSONException;
 import net.sf.json.JSONObject;
@@ -37,9 +32,7 @@ import java.io.InputStream;
 import java.io.StringWriter;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.Comparator;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.logging.Level;
@@ -106,15 +99,15 @@ public final class PluginCatalogExporter extends BundleExporter {
             return null;
         }
 
+        ExportSnapshot snapshot = ExportSnapshot.get();
         // check if the CAP is enabled
-        Status status = BeekeeperRemote.get().getStatus();
-        if (!status.isCap()) {
+        if (!snapshot.isCap()) {
             String msg = "Cannot export catalog because CAP is not enabled";
             LOG.log(Level.WARNING, msg);
             return msg;
         }
 
-        ConfigurationBundle configurationBundle = ConfigurationBundleManager.get().getConfigurationBundle();
+        ConfigurationBundle configurationBundle = snapshot.getBundle();
         String apiVersion = configurationBundle.getApiVersion();
 
         EnvelopeExtension envelopeExtension = configurationBundle.getEnvelopeExtension();
@@ -131,11 +124,11 @@ public final class PluginCatalogExporter extends BundleExporter {
         String content;
         if (apiVersion == null) {
             // Fallback to apiVersion 1 export if no bundle is configured
-            content = getApiVersion1Export();
+            content = getApiVersion1Export(snapshot);
         } else {
             switch (apiVersion){
                 case "1":
-                    content = getApiVersion1Export();
+                    content = getApiVersion1Export(snapshot);
                     break;
                 case "2":
                     content = getApiVersion2Export(bundleCatalog);
@@ -152,15 +145,15 @@ public final class PluginCatalogExporter extends BundleExporter {
         }
 
         StringBuilder sb = new StringBuilder();
-        if (CloudBeesAssurance.get().getBeekeeper().getPlugins().isThereAnyWarning()) {
+        if (snapshot.isAnyBeekeeperWarning()) {
             sb.append("--- There are Beekeeper warnings. This makes the bundle export a \"best effort\".\n");
             sb.append("--- Exported plugin catalog and plugins list might be incorrect and might need manual fixing before use.\n");
-            sb.append(CloudBeesAssurance.get().getBeekeeper().getPlugins().getWarnings().stream()
-                                        .map(p -> "--- " + p.getName() + ". " + p.getDescription())
+            sb.append(snapshot.getBeekeeperWarnings().stream()
+                                        .map(warning -> "--- " + warning)
                                         .collect(Collectors.joining("\n")));
             sb.append("\n");
-            sb.append(CloudBeesAssurance.get().getBeekeeper().getPlugins().getWarningsExtension().stream()
-                                        .map(p -> "--- " + p.getName() + ". " + p.getDescription())
+            sb.append(snapshot.getBeekeeperExtensionWarnings().stream()
+                                        .map(warning -> "--- " + warning)
                                         .collect(Collectors.joining("\n")));
             sb.append("\n");
         }
@@ -198,12 +191,12 @@ public final class PluginCatalogExporter extends BundleExporter {
     @SuppressRestrictedWarnings(value = {CloudBeesAssurance.class, ParsedEnvelopeExtension.class, Beekeeper.class,
             Plugins.class, Plugins.PluginItemList.class, PluginItem.class})
     @CheckForNull
-    private String getApiVersion1Export() {
-        final List<PluginEntry> addToCatalog = addToCatalog();
+    private String getApiVersion1Export(ExportSnapshot snapshot) {
+        final List<PluginEntry> addToCatalog = addToCatalog(snapshot);
 
         // get current catalog
         String jsonCatalog = null;
-        ParsedEnvelopeExtension.Expanded installedExtension = CloudBeesAssurance.get().getBeekeeper().getInstalledExtension();
+        ParsedEnvelopeExtension.Expanded installedExtension = snapshot.getInstalledExtension();
         if (installedExtension != null) {
             jsonCatalog = installedExtension.getOriginalMetadata();
         } else if (!addToCatalog.isEmpty()) {
@@ -261,22 +254,12 @@ public final class PluginCatalogExporter extends BundleExporter {
      * @return List of plugins that are installed and active and which are not in the envelope or in the active plugin catalog.
      */
     @SuppressRestrictedWarnings(value = {CloudBeesAssurance.class, Beekeeper.class})
-    private List<PluginEntry> addToCatalog() {
+    private List<PluginEntry> addToCatalog(ExportSnapshot snapshot) {
         List<PluginEntry> toAdd = new ArrayList<>();
 
-        List<PluginWrapper> installedPlugins = Jenkins.get().getPluginManager().getPlugins();
-        // get plugins in the envelope and plugins in the plugin catalog
-        Map<String, EnvelopePlugin> envelopePlugins = CloudBeesAssurance.get().getBeekeeper().getEnvelope().getPlugins();
-        ParsedEnvelopeExtension.Expanded installedExtension = CloudBeesAssurance.get().getBeekeeper().getInstalledExtension();
-        Map<String, PluginConfiguration.Expanded> extensionPlugins =
-                installedExtension != null ? installedExtension.getConfiguration().getInclude() : Collections.emptyMap();
-
-        Map<String, EnvelopePlugin> capPlugins = new HashMap<>(envelopePlugins);
-
-        // envelope plugins and extended are the same
-        for (PluginConfiguration.Expanded plugin : extensionPlugins.values()) {
-            capPlugins.put(plugin.getPluginId(), plugin.asEnvelopePlugin());
-        }
+        List<PluginWrapper> installedPlugins = snapshot.getInstalledPlugins();
+        // get plugins in the envelope and plugins in the plugin catalog, envelope plugins and extended are the same
+        Map<String, EnvelopePlugin> capPlugins = snapshot.getPluginIndex().getAvailablePlugins();
 
         for (PluginWrapper p : installedPlugins) {
             if (!(p.isActive() && capPlugins.containsKey(p.getShortName()))) {
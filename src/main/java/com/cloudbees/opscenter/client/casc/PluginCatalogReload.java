@@ -7,7 +7,7 @@ import com.cloudbees.jenkins.plugins.assurance.remote.BeekeeperRemote;
 import com.cloudbees.jenkins.plugins.assurance.remote.EnvelopeExtension;
 import com.cloudbees.jenkins.plugins.casc.CasCException;
 import com.cloudbees.jenkins.plugins.casc.comparator.BundleComparator;
-import com.cloudbees.jenkins.plugins.updates.envelope.Envelope;
+import hudson.ExtensionList;
 import jenkins.util.SystemProperties;
 import org.jenkinsci.plugins.variant.OptionalExtension;
 import org.kohsuke.accmod.restrictions.suppressions.SuppressRestrictedWarnings;
@@ -26,6 +26,12 @@ public final class PluginCatalogReload extends BundleReload {
     private static final Logger LOGGER = Logger.getLogger(PluginCatalogReload.class.getName());
 
     private static final boolean FIPS_COMPLIANCE_MODE_ENABLED = SystemProperties.getBoolean("jenkins.security.FIPS140.COMPLIANCE");
+
+    @Override
+    public String getSection() {
+        return "catalog";
+    }
+
     @Override
     public void doReload(ConfigurationBundle bundle) throws CasCException {
         if(FIPS_COMPLIANCE_MODE_ENABLED) {
@@ -35,12 +41,11 @@ public final class PluginCatalogReload extends BundleReload {
         EnvelopeExtension extension = bundle.getEnvelopeExtension();
         if (extension != null) {
 
-            Envelope envelope = CloudBeesAssurance.get().getBeekeeper().getEnvelope();
-
             List<String> errors;
 
             try {
-                errors = BeekeeperRemote.get().validateExtension(extension.getMetadata(), envelope.toJSON().toString());
+                // Usually validated already when the new version was checked
+                errors = ExtensionList.lookupSingleton(ConfigurationBundleService.class).validateCatalog(extension);
             } catch (Exception e) {
                 LOGGER.log(Level.WARNING, "The Plugin Catalog cannot be validated because of " + e.getMessage());
                 throw new CasCException("The Plugin Catalog cannot be validated", e);
@@ -61,7 +66,7 @@ public final class PluginCatalogReload extends BundleReload {
             return false;
         }
         BundleComparator.Result comparisonResult = ConfigurationStatus.INSTANCE.getChangesInNewVersion();
-        return comparisonResult != null && comparisonResult.getCatalog().withChanges();
+        return comparisonResult != null && (comparisonResult.isCatalogEffectivelyChanged() || comparisonResult.isAffectedByVariables(getSection()));
     }
 
     /**
@@ -71,6 +76,15 @@ public final class PluginCatalogReload extends BundleReload {
      * @return true if the catalog has been installed properly and the update site refreshed
      */
     private boolean installCatalog(EnvelopeExtension pluginCatalog) throws CasCException {
+        try {
+            return doInstallCatalog(pluginCatalog);
+        } finally {
+            // The plugins in the catalog might have changed
+            InstalledPluginsSnapshot.invalidate();
+        }
+    }
+
+    private boolean doInstallCatalog(EnvelopeExtension pluginCatalog) throws CasCException {
         if (pluginCatalog == null) {
             LOGGER.log(Level.INFO, "No catalog to be installed. Checking if removal is required.");
 
@@ -0,0 +1,189 @@
+package com.cloudbees.opscenter.client.casc;
+
+import com.cloudbees.jenkins.cjp.installmanager.casc.InvalidBundleException;
+import com.cloudbees.jenkins.cjp.installmanager.casc.plugin.management.PluginInstallConfiguration;
+import com.cloudbees.jenkins.plugins.assurance.remote.extensionparser.Configuration;
+import com.cloudbees.jenkins.plugins.assurance.remote.extensionparser.ParsedEnvelopeExtension;
+import com.cloudbees.jenkins.plugins.assurance.remote.extensionparser.PluginConfiguration;
+import com.cloudbees.jenkins.plugins.updates.envelope.EnvelopePlugin;
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.PluginWrapper;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+import org.kohsuke.accmod.restrictions.suppressions.SuppressRestrictedWarnings;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Index of the plugins configuration, built in one pass and shared by the plugins exporters and the plugins hot reload:
+ * <ul>
+ *     <li>The plugins, repositories and credentials of the plugins.yaml files, by id</li>
+ *     <li>The installed plugins, and those that are a dependency of an installed plugin</li>
+ *     <li>The plugins available from the envelope or from the plugin catalog</li>
+ * </ul>
+ * If an id is defined in several plugins.yaml files, the first definition is indexed.
+ */
+@Restricted(NoExternalUse.class)
+public final class PluginConfigurationIndex {
+
+    private static final Logger LOGGER = Logger.getLogger(PluginConfigurationIndex.class.getName());
+
+    private final Map<String, PluginInstallConfiguration.Plugin> plugins = new LinkedHashMap<>();
+    private final Map<String, PluginInstallConfiguration.Repository> repositories = new HashMap<>();
+    private final Map<String, PluginInstallConfiguration.Credential> credentials = new HashMap<>();
+    private final Set<String> installed = new HashSet<>();
+    private final Set<String> dependencies = new HashSet<>();
+    private final Map<String, EnvelopePlugin> availablePlugins;
+    private final Set<String> catalogPlugins = new HashSet<>();
+
+    /**
+     * @param configurations the plugins.yaml files, null if there are none
+     * @param installedPlugins the installed plugins
+     * @param envelopePlugins the plugins in the envelope, by id
+     * @param installedExtension the installed plugin catalog, null if there is none
+     */
+    @SuppressRestrictedWarnings(value = {ParsedEnvelopeExtension.class, Configuration.class, PluginConfiguration.class})
+    public PluginConfigurationIndex(@CheckForNull Collection<PluginInstallConfiguration> configurations,
+                                    @NonNull Collection<PluginWrapper> installedPlugins,
+                                    @NonNull Map<String, EnvelopePlugin> envelopePlugins,
+                                    @CheckForNull ParsedEnvelopeExtension.Expanded installedExtension) {
+        if (configurations != null) {
+            for (PluginInstallConfiguration configuration : configurations) {
+                for (PluginInstallConfiguration.Plugin plugin : configuration.getPlugins()) {
+                    index(plugins, plugin::getId, plugin);
+                }
+                for (PluginInstallConfiguration.Repository repository : configuration.getRepositories()) {
+                    index(repositories, repository::getId, repository);
+                }
+                for (PluginInstallConfiguration.Credential credential : configuration.getCredentials()) {
+                    index(credentials, credential::getId, credential);
+                }
+            }
+        }
+        for (PluginWrapper plugin : installedPlugins) {
+            installed.add(plugin.getShortName());
+            for (PluginWrapper.Dependency dependency : plugin.getDependencies()) {
+                dependencies.add(dependency.shortName);
+            }
+        }
+        availablePlugins = Collections.unmodifiableMap(availablePlugins(envelopePlugins, installedExtension));
+        if (installedExtension != null) {
+            for (PluginConfiguration.Expanded plugin : installedExtension.getConfiguration().getInclude().values()) {
+                catalogPlugins.add(plugin.getPluginId());
+            }
+        }
+    }
+
+    /**
+     * Merges the plugins in the envelope with those in a plugin catalog, as envelope plugins and plugins in the catalog
+     * are handled the same way
+     * @param envelopePlugins the plugins in the envelope, by id
+     * @param extension the plugin catalog, null if there is none
+     * @return the plugins in the envelope or in the catalog, by id
+     */
+    @NonNull
+    @SuppressRestrictedWarnings(value = {ParsedEnvelopeExtension.class, Configuration.class, PluginConfiguration.class})
+    public static Map<String, EnvelopePlugin> availablePlugins(@NonNull Map<String, EnvelopePlugin> envelopePlugins,
+                                                               @CheckForNull ParsedEnvelopeExtension.Expanded extension) {
+        Map<String, EnvelopePlugin> available = new HashMap<>(envelopePlugins);
+        if (extension != null) {
+            for (PluginConfiguration.Expanded plugin : extension.getConfiguration().getInclude().values()) {
+                available.put(plugin.getPluginId(), plugin.asEnvelopePlugin());
+            }
+        }
+        return available;
+    }
+
+    private static <T> void index(Map<String, T> index, Id id, T value) {
+        String key = idOf(id);
+        if (key != null) {
+            index.putIfAbsent(key, value);
+        }
+    }
+
+    /**
+     * @return the id of a plugin, repository or credential of an already validated plugins.yaml file, null if it is invalid
+     */
+    @CheckForNull
+    static String idOf(@NonNull Id id) {
+        try {
+            return id.get();
+        } catch (InvalidBundleException e) {
+            // Cannot happen at this point. Bundle already validated
+            LOGGER.log(Level.FINE, "Invalid plugins configuration ignored", e);
+            return null;
+        }
+    }
+
+    /**
+     * @return the plugins of the plugins.yaml files, by id
+     */
+    @NonNull
+    public Map<String, PluginInstallConfiguration.Plugin> getPlugins() {
+        return Collections.unmodifiableMap(plugins);
+    }
+
+    /**
+     * @return the repository with this id in the plugins.yaml files, null if there is none
+     */
+    @CheckForNull
+    public PluginInstallConfiguration.Repository getRepository(@NonNull String id) {
+        return repositories.get(id);
+    }
+
+    /**
+     * @return the credential with this id in the plugins.yaml files, null if there is none
+     */
+    @CheckForNull
+    public PluginInstallConfiguration.Credential getCredential(@NonNull String id) {
+        return credentials.get(id);
+    }
+
+    /**
+     * @return ids of the installed plugins
+     */
+    @NonNull
+    public Set<String> getInstalled() {
+        return Collections.unmodifiableSet(installed);
+    }
+
+    /**
+     * @return true if the plugin is a dependency of an installed plugin
+     */
+    public boolean isDependency(@NonNull String id) {
+        return dependencies.contains(id);
+    }
+
+    /**
+     * @return the plugins in the envelope or in the installed plugin catalog, by id
+     */
+    @NonNull
+    public Map<String, EnvelopePlugin> getAvailablePlugins() {
+        return availablePlugins;
+    }
+
+    /**
+     * @return ids of the plugins in the installed plugin catalog
+     */
+    @NonNull
+    public Set<String> getCatalogPlugins() {
+        return Collections.unmodifiableSet(catalogPlugins);
+    }
+
+    /**
+     * Id of a plugin, repository or credential of a plugins.yaml file
+     */
+    @FunctionalInterface
+    interface Id {
+        String get() throws InvalidBundleException;
+    }
+}
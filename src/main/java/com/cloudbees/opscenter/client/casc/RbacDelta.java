@@ -0,0 +1,282 @@
+package com.cloudbees.opscenter.client.casc;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import net.sf.json.JSONObject;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Function;
+
+/**
+ * Minimal set of operations to move the global RBAC configuration of the instance to the one described in the rbac yaml files
+ * of a bundle. Roles and groups are matched by name, and compared ignoring the order of lists and the default values.
+ * As that comparison assumes the defaults of the RBAC plugin, the delta is also checked exactly, see {@link #isExact()}:
+ * only an empty and exact delta means the configuration is already in place.
+ */
+@Restricted(NoExternalUse.class)
+public final class RbacDelta {
+
+    private final Set<String> rolesToAdd = new TreeSet<>();
+    private final Set<String> rolesToUpdate = new TreeSet<>();
+    private final Set<String> rolesToRemove = new TreeSet<>();
+    private final Set<String> groupsToAdd = new TreeSet<>();
+    private final Set<String> groupsToUpdate = new TreeSet<>();
+    private final Set<String> groupsToRemove = new TreeSet<>();
+    private boolean exact;
+
+    private RbacDelta() {
+    }
+
+    /**
+     * Calculates the delta between the current RBAC configuration and the desired one.
+     * @param current current configuration, as exported by the instance
+     * @param desired parsed content of the rbac yaml files in the bundle
+     * @param sync true if the remove strategy is sync, so roles and groups not in the desired configuration must be removed
+     * @return the delta
+     */
+    @NonNull
+    public static RbacDelta calculate(@CheckForNull Map<String, Object> current, @NonNull List<Map<String, Object>> desired, boolean sync) {
+        RbacDelta delta = new RbacDelta();
+        Map<String, Object> currentRoles = byName(current == null ? Collections.emptyList() : entries(current, "roles"), RbacDelta::normalizeRole);
+        Map<String, Object> currentGroups = byName(current == null ? Collections.emptyList() : entries(current, "groups"), RbacDelta::normalizeGroup);
+        List<Object> desiredRoleList = new ArrayList<>();
+        List<Object> desiredGroupList = new ArrayList<>();
+        for (Map<String, Object> file : desired) {
+            desiredRoleList.addAll(entries(file, "roles"));
+            desiredGroupList.addAll(entries(file, "groups"));
+        }
+        diff(currentRoles, byName(desiredRoleList, RbacDelta::normalizeRole), sync, delta.rolesToAdd, delta.rolesToUpdate, delta.rolesToRemove);
+        diff(currentGroups, byName(desiredGroupList, RbacDelta::normalizeGroup), sync, delta.groupsToAdd, delta.groupsToUpdate, delta.groupsToRemove);
+        delta.exact = current != null && onlyRolesAndGroups(desired)
+                      && same(entries(current, "roles"), desiredRoleList, sync) && same(entries(current, "groups"), desiredGroupList, sync);
+        return delta;
+    }
+
+    /**
+     * @return true if the desired files only contain roles and groups, the only sections compared
+     */
+    private static boolean onlyRolesAndGroups(List<Map<String, Object>> desired) {
+        Set<String> known = Set.of("roles", "groups", "removeStrategy");
+        return desired.stream().allMatch(file -> known.containsAll(file.keySet()));
+    }
+
+    /**
+     * Compares the entries as they are written, without defaults and keeping the order of the lists in each entry.
+     * Entries are matched by name, as their order is not relevant.
+     * @param sync true if the entries not desired are removed, so both must have the same entries
+     * @return true if applying the desired entries would not change the current ones
+     */
+    private static boolean same(List<Object> current, List<Object> desired, boolean sync) {
+        Map<Object, Object> currentByName = exactlyByName(current);
+        Map<Object, Object> desiredByName = exactlyByName(desired);
+        if (currentByName == null || desiredByName == null) {
+            return false;
+        }
+        if (sync && !currentByName.keySet().equals(desiredByName.keySet())) {
+            return false;
+        }
+        return desiredByName.entrySet().stream().allMatch(entry -> entry.getValue().equals(currentByName.get(entry.getKey())));
+    }
+
+    /**
+     * @return the entries by name, null if any entry has no name or is defined twice, as the result then depends on how
+     * the files are applied
+     */
+    @CheckForNull
+    private static Map<Object, Object> exactlyByName(List<Object> entries) {
+        Map<Object, Object> result = new HashMap<>();
+        for (Object entry : entries) {
+            Object canonical = canonical(entry);
+            Object name = canonical instanceof Map ? ((Map<?, ?>) canonical).get("name") : null;
+            if (name == null || result.put(name, canonical) != null) {
+                return null;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return true if there is nothing to change
+     */
+    public boolean isEmpty() {
+        return getSize() == 0;
+    }
+
+    /**
+     * @return true if the desired configuration is the current one written the same way: only roles and groups, with the
+     * same values, and the same lists in the same order. No default value of the RBAC plugin is assumed, so an empty
+     * delta which is not exact must still be applied.
+     */
+    public boolean isExact() {
+        return exact;
+    }
+
+    /**
+     * @return number of operations to apply
+     */
+    public int getSize() {
+        return rolesToAdd.size() + rolesToUpdate.size() + rolesToRemove.size() + groupsToAdd.size() + groupsToUpdate.size() + groupsToRemove.size();
+    }
+
+    @NonNull
+    public Set<String> getRolesToAdd() {
+        return Collections.unmodifiableSet(rolesToAdd);
+    }
+
+    @NonNull
+    public Set<String> getRolesToUpdate() {
+        return Collections.unmodifiableSet(rolesToUpdate);
+    }
+
+    @NonNull
+    public Set<String> getRolesToRemove() {
+        return Collections.unmodifiableSet(rolesToRemove);
+    }
+
+    @NonNull
+    public Set<String> getGroupsToAdd() {
+        return Collections.unmodifiableSet(groupsToAdd);
+    }
+
+    @NonNull
+    public Set<String> getGroupsToUpdate() {
+        return Collections.unmodifiableSet(groupsToUpdate);
+    }
+
+    @NonNull
+    public Set<String> getGroupsToRemove() {
+        return Collections.unmodifiableSet(groupsToRemove);
+    }
+
+    @NonNull
+    public JSONObject toJSON() {
+        return new JSONObject().element("roles", new JSONObject().element("add", rolesToAdd).element("update", rolesToUpdate).element("remove", rolesToRemove))
+                               .element("groups", new JSONObject().element("add", groupsToAdd).element("update", groupsToUpdate).element("remove", groupsToRemove))
+                               .element("exact", exact);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("roles [+%d ~%d -%d], groups [+%d ~%d -%d]", rolesToAdd.size(), rolesToUpdate.size(), rolesToRemove.size(),
+                             groupsToAdd.size(), groupsToUpdate.size(), groupsToRemove.size());
+    }
+
+    private static void diff(Map<String, Object> current, Map<String, Object> desired, boolean sync, Set<String> add, Set<String> update, Set<String> remove) {
+        desired.forEach((name, entry) -> {
+            if (!current.containsKey(name)) {
+                add.add(name);
+            } else if (!Objects.equals(current.get(name), entry)) {
+                update.add(name);
+            }
+        });
+        if (sync) {
+            current.keySet().stream().filter(name -> !desired.containsKey(name)).forEach(remove::add);
+        }
+    }
+
+    private static List<Object> entries(Map<String, Object> yaml, String key) {
+        Object value = yaml.get(key);
+        return value instanceof List ? (List<Object>) value : Collections.emptyList();
+    }
+
+    private static Map<String, Object> byName(List<Object> entries, Function<Map<String, Object>, Map<String, Object>> normalizer) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        for (Object entry : entries) {
+            if (entry instanceof Map) {
+                Map<String, Object> normalized = normalizer.apply((Map<String, Object>) entry);
+                Object name = normalized.get("name");
+                if (name != null) {
+                    // Later definitions override previous ones, as it happens when the files are applied
+                    result.put(name.toString(), normalized);
+                }
+            }
+        }
+        return result;
+    }
+
+    private static Map<String, Object> normalizeRole(Map<String, Object> role) {
+        Map<String, Object> normalized = (Map<String, Object>) normalize(role);
+        normalized.putIfAbsent("filterable", "false");
+        normalized.putIfAbsent("permissions", Collections.emptyList());
+        return normalized;
+    }
+
+    private static Map<String, Object> normalizeGroup(Map<String, Object> group) {
+        Map<String, Object> normalized = (Map<String, Object>) normalize(group);
+        normalized.putIfAbsent("members", new TreeMap<>());
+        Object roles = normalized.get("roles");
+        if (roles instanceof List) {
+            List<Object> withDefaults = new ArrayList<>();
+            for (Object role : (List<Object>) roles) {
+                if (role instanceof Map) {
+                    Map<String, Object> grant = new TreeMap<>((Map<String, Object>) role);
+                    grant.putIfAbsent("grantedAt", "current");
+                    grant.putIfAbsent("propagates", "true");
+                    withDefaults.add(grant);
+                } else {
+                    withDefaults.add(role);
+                }
+            }
+            withDefaults.sort(Comparator.comparing(Object::toString));
+            normalized.put("roles", withDefaults);
+        } else {
+            normalized.put("roles", Collections.emptyList());
+        }
+        return normalized;
+    }
+
+    /**
+     * Canonical representation of a yaml node: maps are sorted by key, lists are sorted (order is not relevant for RBAC)
+     * and scalars are compared as strings, so "true" and true are the same.
+     */
+    private static Object normalize(Object node) {
+        if (node instanceof Map) {
+            Map<String, Object> result = new TreeMap<>();
+            ((Map<?, ?>) node).forEach((k, v) -> {
+                if (v != null) {
+                    result.put(String.valueOf(k), normalize(v));
+                }
+            });
+            return result;
+        } else if (node instanceof Collection) {
+            List<Object> result = new ArrayList<>();
+            for (Object item : (Collection<?>) node) {
+                result.add(normalize(item));
+            }
+            result.sort(Comparator.comparing(Object::toString));
+            return result;
+        }
+        return node == null ? null : node.toString();
+    }
+
+    /**
+     * Representation of a yaml node keeping everything but the type of the scalars: maps are sorted by key, and lists keep their order
+     */
+    private static Object canonical(Object node) {
+        if (node instanceof Map) {
+            Map<String, Object> result = new TreeMap<>();
+            ((Map<?, ?>) node).forEach((k, v) -> result.put(String.valueOf(k), canonical(v)));
+            return result;
+        } else if (node instanceof Collection) {
+            List<Object> result = new ArrayList<>();
+            for (Object item : (Collection<?>) node) {
+                result.add(canonical(item));
+            }
+            return result;
+        }
+        return node == null ? null : node.toString();
+    }
+}
@@ -0,0 +1,236 @@
+package com.cloudbees.opscenter.client.casc;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.Extension;
+import hudson.XmlFile;
+import hudson.model.Run;
+import hudson.model.Saveable;
+import hudson.model.listeners.SaveableListener;
+import net.sf.json.JSONArray;
+import net.sf.json.JSONObject;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Singleton collecting metrics about the bundle reloads: time spent per section, number of configuration files written
+ * and time spent writing the configuration coalesced by the bulk changes.
+ * The metrics of the last reloads are kept in memory.
+ */
+@Restricted(NoExternalUse.class)
+public enum ReloadMetrics {
+    INSTANCE;
+
+    /**
+     * Number of reloads kept in the history
+     */
+    static final int MAX_HISTORY = Integer.getInteger(ReloadMetrics.class.getName() + ".maxHistory", 20);
+
+    /**
+     * Saves happening while a reload is running. Build records are not counted as they are not related to the reload.
+     */
+    private final AtomicLong saves = new AtomicLong();
+
+    private volatile boolean recording;
+
+    private final Deque<Reload> history = new ArrayDeque<>();
+
+    @CheckForNull
+    private Reload current;
+
+    /**
+     * Starts recording the metrics of a new reload
+     */
+    public synchronized void reloadStarted() {
+        current = new Reload(System.currentTimeMillis());
+        saves.set(0);
+        recording = true;
+    }
+
+    /**
+     * Records the metrics of a section once reloaded
+     * @param section name of the section
+     * @param durationMillis total time reloading the section
+     * @param writeMillis time spent writing the configuration changes coalesced during the section reload
+     * @param savesInSection number of configuration files written during the section reload
+     */
+    public synchronized void sectionReloaded(@NonNull String section, long durationMillis, long writeMillis, long savesInSection) {
+        if (current != null) {
+            current.sections.put(section, new Section(durationMillis, writeMillis, savesInSection));
+        }
+    }
+
+    /**
+     * Stops recording the current reload and adds it to the history
+     */
+    public synchronized void reloadFinished() {
+        recording = false;
+        if (current != null) {
+            current.durationMillis = System.currentTimeMillis() - current.startedAt;
+            current.saves = saves.get();
+            history.addLast(current);
+            while (history.size() > MAX_HISTORY) {
+                history.removeFirst();
+            }
+            current = null;
+        }
+    }
+
+    /**
+     * @return the number of configuration files written since the current reload started
+     */
+    public long getSaves() {
+        return saves.get();
+    }
+
+    /**
+     * @return the last reloads, older first
+     */
+    @NonNull
+    public synchronized List<Reload> getHistory() {
+        return Collections.unmodifiableList(new ArrayList<>(history));
+    }
+
+    @CheckForNull
+    public synchronized Reload getLast() {
+        return history.peekLast();
+    }
+
+    /**
+     * Estimates the time to reload a section from the previous reloads of that section
+     * @param section name of the section
+     * @return the average time reloading the section in the history, or null if the section was not reloaded yet
+     */
+    @CheckForNull
+    public synchronized Long estimateMillis(@NonNull String section) {
+        long total = 0;
+        int count = 0;
+        for (Reload reload : history) {
+            Section metrics = reload.sections.get(section);
+            if (metrics != null) {
+                total += metrics.getDurationMillis();
+                count++;
+            }
+        }
+        return count == 0 ? null : total / count;
+    }
+
+    @NonNull
+    public JSONObject toJSON() {
+        JSONArray reloads = new JSONArray();
+        for (Reload reload : getHistory()) {
+            reloads.add(reload.toJSON());
+        }
+        Reload last = getLast();
+        JSONObject json = new JSONObject();
+        json.accumulate("last", last != null ? last.toJSON() : new JSONObject());
+        json.element("history", reloads);
+        return json;
+    }
+
+    // Visible for testing
+    synchronized void clear() {
+        history.clear();
+        current = null;
+        recording = false;
+        saves.set(0);
+    }
+
+    /**
+     * Metrics of a single reload
+     */
+    public static final class Reload {
+        private final long startedAt;
+        private long durationMillis;
+        private long saves;
+        private final Map<String, Section> sections = new LinkedHashMap<>();
+
+        Reload(long startedAt) {
+            this.startedAt = startedAt;
+        }
+
+        public long getStartedAt() {
+            return startedAt;
+        }
+
+        public long getDurationMillis() {
+            return durationMillis;
+        }
+
+        public long getSaves() {
+            return saves;
+        }
+
+        @NonNull
+        public Map<String, Section> getSections() {
+            return Collections.unmodifiableMap(sections);
+        }
+
+        @NonNull
+        public JSONObject toJSON() {
+            JSONObject sectionsJson = new JSONObject();
+            sections.forEach((name, section) -> sectionsJson.accumulate(name, section.toJSON()));
+            return new JSONObject().accumulate("started-at", startedAt)
+                                   .accumulate("duration-millis", durationMillis)
+                                   .accumulate("saves", saves)
+                                   .accumulate("write-millis", sections.values().stream().mapToLong(Section::getWriteMillis).sum())
+                                   .accumulate("sections", sectionsJson);
+        }
+    }
+
+    /**
+     * Metrics of a section reload
+     */
+    public static final class Section {
+        private final long durationMillis;
+        private final long writeMillis;
+        private final long saves;
+
+        Section(long durationMillis, long writeMillis, long saves) {
+            this.durationMillis = durationMillis;
+            this.writeMillis = writeMillis;
+            this.saves = saves;
+        }
+
+        public long getDurationMillis() {
+            return durationMillis;
+        }
+
+        public long getWriteMillis() {
+            return writeMillis;
+        }
+
+        public long getSaves() {
+            return saves;
+        }
+
+        @NonNull
+        public JSONObject toJSON() {
+            return new JSONObject().accumulate("duration-millis", durationMillis)
+                                   .accumulate("write-millis", writeMillis)
+                                   .accumulate("saves", saves);
+        }
+    }
+
+    /**
+     * Counts the configuration files written while a reload is running
+     */
+    @Extension
+    public static final class SaveCounter extends SaveableListener {
+        @Override
+        public void onChange(Saveable o, XmlFile file) {
+            if (INSTANCE.recording && !(o instanceof Run)) {
+                INSTANCE.saves.incrementAndGet();
+            }
+        }
+    }
+}
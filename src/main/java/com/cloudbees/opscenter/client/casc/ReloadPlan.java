@@ -0,0 +1,239 @@
+package com.cloudbees.opscenter.client.casc;
+
+import com.cloudbees.jenkins.cjp.installmanager.casc.ConfigurationBundle;
+import com.cloudbees.jenkins.cjp.installmanager.casc.ConfigurationBundleManager;
+import com.cloudbees.jenkins.plugins.casc.CasCException;
+import com.cloudbees.jenkins.plugins.casc.YamlClientUtils;
+import com.cloudbees.jenkins.plugins.casc.comparator.BundleComparator;
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.ExtensionList;
+import hudson.PluginWrapper;
+import jenkins.model.Jenkins;
+import net.sf.json.JSONObject;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Dry run of a bundle reload: what the reload would change in the instance and how long it may take, without applying anything.
+ * It follows the same decisions as {@link BundleReload#reload(ConfigurationBundle)}, using the differences with the installed
+ * version ({@link ConfigurationStatus#getChangesInNewVersion()}) and the same processors the sections use.
+ * The cost is estimated from the time each section took in the previous reloads ({@link ReloadMetrics}).
+ */
+@Restricted(NoExternalUse.class)
+public final class ReloadPlan {
+
+    private static final Logger LOGGER = Logger.getLogger(ReloadPlan.class.getName());
+
+    private final String bundleVersion;
+    private final boolean hotReloadable;
+    private final boolean fullReload;
+    private final Map<String, Long> sections = new LinkedHashMap<>();
+    private final Set<String> skippedSections = new TreeSet<>();
+    private final Set<String> itemsToCreate = new TreeSet<>();
+    private final Set<String> itemsToUpdate = new TreeSet<>();
+    private final List<String> itemsToDelete = new ArrayList<>();
+    private final Set<String> pluginsToInstall = new TreeSet<>();
+    @CheckForNull
+    private Set<String> jcascRoots;
+    @CheckForNull
+    private RbacDelta rbac;
+    @CheckForNull
+    private String error;
+
+    private ReloadPlan(String bundleVersion, boolean hotReloadable, boolean fullReload) {
+        this.bundleVersion = bundleVersion;
+        this.hotReloadable = hotReloadable;
+        this.fullReload = fullReload;
+    }
+
+    /**
+     * Calculates the plan to reload the bundle that would be applied by a reload request: the promoted bundle, which is
+     * the one the differences and the reload decisions of the sections describe. A candidate waiting to be promoted is not
+     * planned, as its differences with the installed version are only known once it's promoted.
+     * @return the plan
+     */
+    @NonNull
+    public static ReloadPlan calculate() {
+        return calculate(ConfigurationBundleManager.get().getConfigurationBundle());
+    }
+
+    /**
+     * Calculates the plan to reload a bundle, which must be the promoted one, as the plan uses the differences of the
+     * promoted bundle with the installed version and the reload decisions of the sections
+     * @param bundle to reload
+     * @return the plan
+     */
+    @NonNull
+    public static ReloadPlan calculate(@NonNull ConfigurationBundle bundle) {
+        ConfigurationBundleService service = ExtensionList.lookupSingleton(ConfigurationBundleService.class);
+        BundleComparator.Result comparisonResult = ConfigurationStatus.INSTANCE.getChangesInNewVersion();
+        boolean fullReload = BundleReload.isFullReload(comparisonResult);
+        ReloadPlan plan = new ReloadPlan(bundle.getVersion(), service.isHotReloadable(bundle), fullReload);
+        for (BundleReload bundleReload : BundleReload.all()) {
+            String section = bundleReload.getSection();
+            if (!fullReload && !bundleReload.isReloadable()) {
+                plan.skippedSections.add(section);
+                continue;
+            }
+            plan.sections.put(section, ReloadMetrics.INSTANCE.estimateMillis(section));
+            try {
+                switch (section) {
+                    case "plugins":
+                        plan.planPlugins(bundle);
+                        break;
+                    case "items":
+                        plan.planItems(bundle, service, comparisonResult, fullReload);
+                        break;
+                    case "rbac":
+                        plan.rbac = BundleReload.RbacReload.calculateDelta(bundle);
+                        break;
+                    case "jcasc":
+                        plan.planJCasC(comparisonResult, fullReload);
+                        break;
+                    default:
+                        // Nothing more to detail for the section
+                }
+            } catch (CasCException | RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Changes in the bundle section {0} cannot be calculated: {1}", new Object[]{section, e.getMessage()});
+                LOGGER.log(Level.FINE, "Changes in the bundle section cannot be calculated", e);
+                plan.error = String.format("Changes in the bundle section %s cannot be calculated: %s", section, e.getMessage());
+            }
+        }
+        return plan;
+    }
+
+    /**
+     * Same filter as {@link BundleReload.PluginsReload}: only the plugins in the envelope or in the installed plugin catalog
+     * are installed from the update center, and with apiVersion 2 the rest are installed from their URL or Maven coordinates.
+     * Installed plugins are not updated. With apiVersion 2, the dependencies of the plugins installed from their URL or
+     * Maven coordinates are only known when the plugins are downloaded, so they are not listed.
+     */
+    private void planPlugins(ConfigurationBundle bundle) {
+        InstalledPluginsSnapshot installed = InstalledPluginsSnapshot.get();
+        Set<String> available = installed.getIndex().getAvailablePlugins().keySet();
+        Set<String> fromUpdateCenter = ConfigurationUpdaterHelper.getOnlyPluginsInEnvelope(bundle.getPlugins(), available);
+        for (String plugin : bundle.getPlugins()) {
+            PluginWrapper wrapper = installed.getInstalledPlugin(plugin);
+            if (fromUpdateCenter.contains(plugin) ? wrapper == null
+                                                  : "2".equals(bundle.getApiVersion()) && (wrapper == null || wrapper.getPlugin() == null)) {
+                pluginsToInstall.add(plugin);
+            }
+        }
+    }
+
+    private void planItems(ConfigurationBundle bundle, ConfigurationBundleService service, @CheckForNull BundleComparator.Result comparisonResult,
+                           boolean fullReload) throws CasCException {
+        // All the items are applied again in a full reload, or if the changes are unknown
+        Set<String> changed = fullReload || comparisonResult == null ? null : comparisonResult.getChangedItems();
+        if (bundle.hasItems()) {
+            for (String content : bundle.getItems()) {
+                Map<String, Object> parsed = YamlClientUtils.createDefault().load(content);
+                if (parsed != null) {
+                    collectItems(parsed.get("items"), "", changed);
+                }
+            }
+        }
+        itemsToDelete.addAll(service.getDeletionsOnReload(bundle));
+    }
+
+    /**
+     * Classifies the items defined in the yaml as items to create or update, going into the folders recursively.
+     * Existing items are only updated if they changed, when the changes are known.
+     */
+    private void collectItems(Object items, String parent, @CheckForNull Set<String> changed) {
+        if (!(items instanceof List)) {
+            return;
+        }
+        for (Object item : (List<?>) items) {
+            if (item instanceof Map) {
+                Object name = ((Map<?, ?>) item).get("name");
+                if (name == null) {
+                    continue;
+                }
+                String fullName = parent + name;
+                if (Jenkins.get().getItemByFullName(fullName) == null) {
+                    itemsToCreate.add(fullName);
+                } else if (changed == null || changed.contains(fullName)) {
+                    itemsToUpdate.add(fullName);
+                }
+                collectItems(((Map<?, ?>) item).get("items"), fullName + "/", changed);
+            }
+        }
+    }
+
+    /**
+     * Same decision as {@link JCasCReload}: the whole configuration is applied if some root element was removed or the changes are unknown
+     */
+    private void planJCasC(@CheckForNull BundleComparator.Result comparisonResult, boolean fullReload) {
+        if (fullReload || !JCasCReload.PARTIAL_APPLY || comparisonResult == null
+            || comparisonResult.getJcascChangedRoots() == null || comparisonResult.getJcascRemovedRoots() == null
+            || !comparisonResult.getJcascRemovedRoots().isEmpty()) {
+            // Whole configuration is applied
+            return;
+        }
+        jcascRoots = new TreeSet<>(comparisonResult.getJcascChangedRoots());
+    }
+
+    /**
+     * @return the sections to reload with the estimated time to reload each of them, null if unknown
+     */
+    @NonNull
+    public Map<String, Long> getSections() {
+        return Collections.unmodifiableMap(sections);
+    }
+
+    /**
+     * @return the estimated time to reload the bundle, adding the estimation of the sections with previous reloads
+     */
+    public long getEstimatedMillis() {
+        return sections.values().stream().filter(Objects::nonNull).mapToLong(Long::longValue).sum();
+    }
+
+    /**
+     * @return true if all the sections to reload have been reloaded before, so the estimation is based on data for all of them
+     */
+    public boolean isEstimationComplete() {
+        return sections.values().stream().allMatch(Objects::nonNull);
+    }
+
+    @NonNull
+    public JSONObject toJSON() {
+        JSONObject sectionsJson = new JSONObject();
+        sections.forEach((section, estimation) -> sectionsJson.accumulate(section, new JSONObject().accumulate("estimated-millis", estimation != null ? estimation : -1)));
+        JSONObject json = new JSONObject().accumulate("version", bundleVersion)
+                                          .accumulate("hot-reloadable", hotReloadable)
+                                          .accumulate("full-reload", fullReload);
+        json.element("sections", sectionsJson);
+        json.element("skipped-sections", skippedSections);
+        if (sections.containsKey("items")) {
+            json.element("items", new JSONObject().element("create", itemsToCreate).element("update", itemsToUpdate).element("deletions", itemsToDelete));
+        }
+        if (sections.containsKey("plugins")) {
+            json.element("plugins", new JSONObject().element("install", pluginsToInstall));
+        }
+        if (sections.containsKey("jcasc")) {
+            // "all" when the whole configuration is applied
+            json.element("jcasc", new JSONObject().element("roots", jcascRoots != null ? jcascRoots : Collections.singletonList("all")));
+        }
+        if (sections.containsKey("rbac")) {
+            json.element("rbac", rbac != null ? rbac.toJSON() : new JSONObject().accumulate("roles", "all").accumulate("groups", "all"));
+        }
+        json.element("estimation", new JSONObject().accumulate("estimated-millis", getEstimatedMillis()).accumulate("complete", isEstimationComplete()));
+        if (error != null) {
+            json.accumulate("error", error);
+        }
+        return json;
+    }
+}
@@ -0,0 +1,307 @@
+package com.cloudbees.opscenter.client.casc;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import net.sf.json.JSONObject;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Singleton keeping a bounded, in-memory log of the events produced by the running (or last) bundle reload.
+ * Every event gets an increasing sequence number, so clients can follow the reload by asking for the events after the
+ * last one they have seen, blocking until something new happens instead of polling {@link ConfigurationStatus#isCurrentlyReloading()}.
+ */
+@Restricted(NoExternalUse.class)
+public enum ReloadProgress {
+    INSTANCE;
+
+    /**
+     * Max number of events kept in memory. Older events are discarded.
+     */
+    static final int MAX_EVENTS = Integer.getInteger(ReloadProgress.class.getName() + ".maxEvents", 500);
+
+    /**
+     * Time without events after which the followers are notified so they can keep the connection alive.
+     */
+    static final long HEARTBEAT_SECONDS = Long.getLong(ReloadProgress.class.getName() + ".heartbeatSeconds", 15);
+
+    /**
+     * Max time a follower is kept connected, so a stuck reload doesn't retain threads forever.
+     */
+    static final long FOLLOW_TIMEOUT_MINUTES = Long.getLong(ReloadProgress.class.getName() + ".followTimeoutMinutes", 30);
+
+    public enum EventType {
+        RELOAD_STARTED, SECTION_STARTED, SECTION_FINISHED, SECTION_SKIPPED, PROGRESS, PLUGIN_INSTALLED, ERROR, RELOAD_FINISHED
+    }
+
+    private final Deque<Event> events = new ArrayDeque<>();
+
+    private long lastSequence = 0;
+
+    /**
+     * Sequence of the {@link EventType#RELOAD_STARTED} event of the running or last reload. 0 if no reload happened.
+     */
+    private long currentReloadSequence = 0;
+
+    /**
+     * True from the {@link EventType#RELOAD_STARTED} event until the {@link EventType#RELOAD_FINISHED} one.
+     * It is set before the reload is scheduled, so followers connecting right after an asynchronous reload request don't miss it.
+     */
+    private boolean inProgress = false;
+
+    public synchronized void reloadStarted(@CheckForNull String bundleInformation) {
+        currentReloadSequence = add(EventType.RELOAD_STARTED, null, bundleInformation, -1, -1).getSequence();
+        inProgress = true;
+    }
+
+    public void sectionStarted(@NonNull String section) {
+        add(EventType.SECTION_STARTED, section, null, -1, -1);
+    }
+
+    public void sectionFinished(@NonNull String section) {
+        add(EventType.SECTION_FINISHED, section, null, -1, -1);
+    }
+
+    public void sectionSkipped(@NonNull String section) {
+        add(EventType.SECTION_SKIPPED, section, "No changes to apply", -1, -1);
+    }
+
+    /**
+     * Reports that {@code processed} elements out of {@code total} have been processed in a section
+     */
+    public void progress(@NonNull String section, int processed, int total, @CheckForNull String message) {
+        add(EventType.PROGRESS, section, message, processed, total);
+    }
+
+    public void pluginInstalled(@NonNull String plugin, int processed, int total) {
+        add(EventType.PLUGIN_INSTALLED, "plugins", plugin, processed, total);
+    }
+
+    public void error(@CheckForNull String section, @CheckForNull String message) {
+        add(EventType.ERROR, section, message, -1, -1);
+    }
+
+    /**
+     * Reports the error failing the reload, unless the section failing already reported it
+     */
+    public synchronized void reloadFailed(@CheckForNull String message) {
+        Iterator<Event> previous = events.descendingIterator();
+        while (previous.hasNext()) {
+            Event event = previous.next();
+            if (event.getSequence() < currentReloadSequence) {
+                break;
+            }
+            if (event.getType() == EventType.ERROR) {
+                return;
+            }
+        }
+        error(null, message);
+    }
+
+    public synchronized void reloadFinished(boolean success) {
+        inProgress = false;
+        add(EventType.RELOAD_FINISHED, null, success ? "success" : "failure", -1, -1);
+    }
+
+    /**
+     * @return true if there is a reload started and not yet finished
+     */
+    public synchronized boolean isInProgress() {
+        return inProgress;
+    }
+
+    /**
+     * @return the sequence of the last event registered, 0 if there is none.
+     */
+    public synchronized long getLastSequence() {
+        return lastSequence;
+    }
+
+    /**
+     * @return the sequence of the event starting the running or last reload, 0 if there is none.
+     */
+    public synchronized long getCurrentReloadSequence() {
+        return currentReloadSequence;
+    }
+
+    /**
+     * @param since sequence of the last event already seen by the caller
+     * @return the events registered after {@code since}, in order. Empty list if there is none.
+     */
+    @NonNull
+    public synchronized List<Event> getEventsSince(long since) {
+        if (since >= lastSequence) {
+            return Collections.emptyList();
+        }
+        List<Event> result = new ArrayList<>();
+        for (Event event : events) {
+            if (event.getSequence() > since) {
+                result.add(event);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Same as {@link #getEventsSince(long)} but blocks until there is at least a new event or the timeout is reached
+     * @param since sequence of the last event already seen by the caller
+     * @param timeout max time to wait
+     * @param unit unit of the timeout
+     * @return the events registered after {@code since}. Empty list if the timeout is reached.
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    @NonNull
+    public synchronized List<Event> awaitEventsSince(long since, long timeout, @NonNull TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (since >= lastSequence) {
+            long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (remaining <= 0) {
+                return Collections.emptyList();
+            }
+            wait(remaining);
+        }
+        return getEventsSince(since);
+    }
+
+    /**
+     * Sends to the follower the events after {@code since} as they are registered, until the running reload finishes.
+     * If no reload is running, only the pending events are sent.
+     * @param since sequence of the last event already seen by the follower. Negative to start from the running (or last) reload.
+     * @param follower receiving the events
+     * @return the sequence of the last event sent
+     * @throws IOException if the follower cannot process an event (typically the client went away)
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public long follow(long since, @NonNull Follower follower) throws IOException, InterruptedException {
+        long last = since < 0 ? Math.max(0, getCurrentReloadSequence() - 1) : since;
+        long deadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(FOLLOW_TIMEOUT_MINUTES);
+        while (System.nanoTime() < deadline) {
+            boolean running = isInProgress();
+            List<Event> pending = running ? awaitEventsSince(last, HEARTBEAT_SECONDS, TimeUnit.SECONDS) : getEventsSince(last);
+            if (pending.isEmpty()) {
+                if (!running) {
+                    return last;
+                }
+                follower.heartbeat();
+                continue;
+            }
+            for (Event event : pending) {
+                follower.onEvent(event);
+                last = event.getSequence();
+            }
+        }
+        return last;
+    }
+
+    // Visible for testing
+    synchronized void clear() {
+        events.clear();
+        currentReloadSequence = 0;
+        inProgress = false;
+        notifyAll();
+    }
+
+    private synchronized Event add(EventType type, String section, String message, int processed, int total) {
+        Event event = new Event(++lastSequence, System.currentTimeMillis(), type, section, message, processed, total);
+        events.addLast(event);
+        while (events.size() > MAX_EVENTS) {
+            events.removeFirst();
+        }
+        notifyAll();
+        return event;
+    }
+
+    /**
+     * Receives the events while following a reload.
+     */
+    public interface Follower {
+        void onEvent(@NonNull Event event) throws IOException;
+
+        /**
+         * Called when no event has been registered for a while, but the reload is still running
+         */
+        default void heartbeat() throws IOException {
+        }
+    }
+
+    /**
+     * A single reload event.
+     */
+    public static final class Event {
+        private final long sequence;
+        private final long timestamp;
+        private final EventType type;
+        private final String section;
+        private final String message;
+        private final int processed;
+        private final int total;
+
+        Event(long sequence, long timestamp, EventType type, String section, String message, int processed, int total) {
+            this.sequence = sequence;
+            this.timestamp = timestamp;
+            this.type = type;
+            this.section = section;
+            this.message = message;
+            this.processed = processed;
+            this.total = total;
+        }
+
+        public long getSequence() {
+            return sequence;
+        }
+
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        @NonNull
+        public EventType getType() {
+            return type;
+        }
+
+        @CheckForNull
+        public String getSection() {
+            return section;
+        }
+
+        @CheckForNull
+        public String getMessage() {
+            return message;
+        }
+
+        /**
+         * @return true if the event is the last one of a reload
+         */
+        public boolean isTerminal() {
+            return type == EventType.RELOAD_FINISHED;
+        }
+
+        @NonNull
+        public JSONObject toJSON() {
+            JSONObject json = new JSONObject();
+            json.accumulate("id", sequence);
+            json.accumulate("timestamp", timestamp);
+            json.accumulate("type", type.name().toLowerCase().replace('_', '-'));
+            if (section != null) {
+                json.accumulate("section", section);
+            }
+            if (message != null) {
+                json.accumulate("message", message);
+            }
+            if (total >= 0) {
+                json.accumulate("processed", processed);
+                json.accumulate("total", total);
+            }
+            return json;
+        }
+    }
+}
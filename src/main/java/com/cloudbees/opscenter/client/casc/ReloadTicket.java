@@ -0,0 +1,103 @@
+package com.cloudbees.opscenter.client.casc;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import net.sf.json.JSONObject;
+import org.kohsuke.accmod.Restricted;
+import org.kohsuke.accmod.restrictions.NoExternalUse;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Handle of a reload requested through the {@link BundleReloadQueue}.
+ * Requests arriving while a reload is running share the same ticket, as they are coalesced into a single follow-up reload.
+ */
+@Restricted(NoExternalUse.class)
+public final class ReloadTicket {
+
+    private final long id;
+    private final boolean queued;
+    private final CompletableFuture<Boolean> result = new CompletableFuture<>();
+
+    ReloadTicket(long id, boolean queued) {
+        this.id = id;
+        this.queued = queued;
+    }
+
+    /**
+     * @return the ticket identifier, unique for this Jenkins execution
+     */
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * @return true if the reload was requested while another one was running, so it is executed after it
+     */
+    public boolean isQueued() {
+        return queued;
+    }
+
+    /**
+     * @return true if the reload has finished, successfully or not
+     */
+    public boolean isDone() {
+        return result.isDone();
+    }
+
+    /**
+     * @return true if the reload has finished successfully
+     */
+    public boolean isSuccessful() {
+        return result.isDone() && result.join();
+    }
+
+    /**
+     * Waits until the reload finishes
+     * @throws InterruptedException if the thread is interrupted while waiting
+     * @return true if the reload was successful
+     */
+    public boolean await() throws InterruptedException {
+        try {
+            return result.get();
+        } catch (ExecutionException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Waits until the reload finishes or the timeout is reached
+     * @param timeout max time to wait
+     * @param unit unit of the timeout
+     * @return true if the reload has finished
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public boolean await(long timeout, TimeUnit unit) throws InterruptedException {
+        try {
+            result.get(timeout, unit);
+            return true;
+        } catch (ExecutionException e) {
+            return true;
+        } catch (TimeoutException e) {
+            return false;
+        }
+    }
+
+    @NonNull
+    public JSONObject toJSON() {
+        JSONObject json = new JSONObject().accumulate("ticket", id).accumulate("queued", queued).accumulate("completed", isDone());
+        if (isDone()) {
+            json.accumulate("successful", isSuccessful());
+        }
+        return json;
+    }
+
+    /**
+     * Completes the ticket. Unexpected errors are handled by the {@link BundleReloadQueue}, so the ticket is always completed with a result.
+     */
+    void complete(boolean successful) {
+        result.complete(successful);
+    }
+}
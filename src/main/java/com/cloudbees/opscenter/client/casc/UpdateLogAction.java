@@ -5,7 +5,6 @@ import com.cloudbees.jenkins.cjp.installmanager.casc.validation.BundleUpdateLog;
 import com.cloudbees.jenkins.plugins.casc.permissions.CascPermission;
 import com.cloudbees.opscenter.client.casc.visualization.BundleVisualizationLink;
 import edu.umd.cs.findbugs.annotations.NonNull;
-import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import hudson.Extension;
 import hudson.model.RootAction;
 import jenkins.model.Jenkins;
@@ -20,16 +19,15 @@ import org.kohsuke.stapler.StaplerResponse;
 import org.kohsuke.stapler.WebMethod;
 
 import javax.servlet.ServletException;
-import java.io.File;
 import java.io.IOException;
-import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Action to manage the Update log.
@@ -199,29 +197,22 @@ public class UpdateLogAction implements RootAction {
             rsp.setContentType("application/zip");
             rsp.addHeader("Content-Disposition", String.format("inline; filename=%s.zip;", this.registry));
 
-            OutputStream out = rsp.getOutputStream();
-            try (ZipOutputStream zipFile = new ZipOutputStream(out)) {
-                addZipEntries(updateLogFolder.resolve(registry).toFile(), zipFile);
+            try (CasCZipWriter zipFile = new CasCZipWriter(rsp.getOutputStream())) {
+                addZipEntries(updateLogFolder.resolve(registry), zipFile);
             }
         }
 
-        @SuppressFBWarnings(value = "NP_NULL_ON_SOME_PATH_FROM_RETURN_VALUE", justification = "False positive. bundleDirectory already checked, so neither bundleDirectory nor list cannot be null")
-        private void addZipEntries(File originFolder, ZipOutputStream zipFile) throws IOException {
-            if (originFolder.isDirectory() && originFolder.list() != null) {
-                for (String file : originFolder.list()) {
-                    File current = new File(originFolder, file);
-                    String zipEntryName = updateLogFolder.resolve(registry).relativize(current.toPath()).toString();
-                    if (current.isDirectory()) {
-                        zipEntryName = zipEntryName + "/";
-                    }
-                    ZipEntry entry = new ZipEntry(zipEntryName);
-                    zipFile.putNextEntry(entry);
-                    if (current.isDirectory()) {
-                        zipFile.closeEntry();
-                        addZipEntries(current, zipFile);
-                    } else {
-                        zipFile.write(FileUtils.readFileToByteArray(current));
-                    }
+        private void addZipEntries(Path registryFolder, CasCZipWriter zipFile) throws IOException {
+            List<Path> paths;
+            try (Stream<Path> walk = Files.walk(registryFolder)) {
+                paths = walk.filter(path -> !path.equals(registryFolder)).sorted().collect(Collectors.toList());
+            }
+            for (Path path : paths) {
+                String zipEntryName = registryFolder.relativize(path).toString();
+                if (Files.isDirectory(path)) {
+                    zipFile.addDirectory(zipEntryName, Files.getLastModifiedTime(path).toMillis());
+                } else {
+                    zipFile.addFile(zipEntryName, path);
                 }
             }
         }
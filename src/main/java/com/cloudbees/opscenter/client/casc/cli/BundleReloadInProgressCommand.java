@@ -1,5 +1,7 @@
 package com.cloudbees.opscenter.client.casc.cli;
 
+import org.kohsuke.args4j.Option;
+
 import net.sf.json.JSONObject;
 
 import hudson.Extension;
@@ -10,12 +12,19 @@ import jenkins.model.Jenkins;
 import com.cloudbees.jenkins.plugins.casc.permissions.CascPermission;
 import com.cloudbees.opscenter.client.casc.BundleReloadAction;
 import com.cloudbees.opscenter.client.casc.ConfigurationStatus;
+import com.cloudbees.opscenter.client.casc.ReloadProgress;
 
 @Extension
 public class BundleReloadInProgressCommand extends CLICommand {
 
     public final static String COMMAND_NAME = "casc-bundle-reload-running";
 
+    @Option(name="-f", aliases = {"--follow"}, usage="Prints the reload events, one json per line, until the running reload finishes")
+    private boolean follow = false;
+
+    @Option(name="-s", aliases = {"--since"}, usage="When following, id of the last event already received. By default, events are printed from the start of the running reload")
+    private long since = -1;
+
     @Override
     public String getShortDescription() { return "Checks if the CasC bundle is currently reloading.";}
 
@@ -27,12 +36,19 @@ public class BundleReloadInProgressCommand extends CLICommand {
     /**
      * Checks if bundle reload is currently running
      * User needs CASC_ADMIN role to run this
-     * @return 0 and prints a json {"in-progress": true | false}
+     * @return 0 and prints a json {"in-progress": true | false}. If --follow is indicated, it prints the reload events
+     *         (see {@link BundleReloadAction#doReloadEvents}) as they happen and then the json.
      * @throws Exception As described in CLICommand
      */
     @Override
     protected int run() throws Exception {
         Jenkins.get().checkPermission(CascPermission.CASC_ADMIN);
+        if (follow) {
+            ReloadProgress.INSTANCE.follow(since, event -> {
+                stdout.println(event.toJSON());
+                stdout.flush();
+            });
+        }
         stdout.println(new JSONObject().accumulate("reload-in-progress", ConfigurationStatus.INSTANCE.isCurrentlyReloading()));
         return 0;
     }
@@ -0,0 +1,41 @@
+package com.cloudbees.opscenter.client.casc.cli;
+
+import hudson.Extension;
+import hudson.cli.CLICommand;
+import jenkins.model.Jenkins;
+
+import com.cloudbees.jenkins.cjp.installmanager.casc.ConfigurationBundleManager;
+import com.cloudbees.jenkins.plugins.casc.permissions.CascPermission;
+import com.cloudbees.opscenter.client.casc.BundleReloadAction;
+import com.cloudbees.opscenter.client.casc.ReloadPlan;
+
+@Extension
+public class BundleReloadPlanCommand extends CLICommand {
+
+    public final static String COMMAND_NAME = "casc-bundle-reload-plan";
+
+    @Override
+    public String getShortDescription() { return "Checks what would change if reloading the current bundle, without applying it.";}
+
+    @Override
+    public String getName() {
+        return COMMAND_NAME;
+    }
+
+    /**
+     * Calculates the reload plan of the bundle
+     * User needs CASC_ADMIN role to run this
+     * @return 0 and prints the plan as json (see {@link BundleReloadAction#doReloadPlan()}), 1 if there is no bundle configured
+     * @throws Exception As described in CLICommand
+     */
+    @Override
+    protected int run() throws Exception {
+        Jenkins.get().checkPermission(CascPermission.CASC_ADMIN);
+        if (!ConfigurationBundleManager.isSet()) {
+            stderr.println("Bundle is not configured");
+            return 1;
+        }
+        stdout.println(ReloadPlan.calculate().toJSON());
+        return 0;
+    }
+}
@@ -0,0 +1,171 @@
+package com.cloudbees.opscenter.client.casc.config;
+
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+import org.apache.commons.lang.StringUtils;
+import org.jenkinsci.Symbol;
+import org.kohsuke.stapler.DataBoundSetter;
+import org.kohsuke.stapler.QueryParameter;
+import org.kohsuke.stapler.verb.POST;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+import hudson.Extension;
+import hudson.ExtensionList;
+import hudson.util.FormValidation;
+import jenkins.model.GlobalConfiguration;
+import jenkins.model.Jenkins;
+
+import com.cloudbees.jenkins.plugins.casc.permissions.CascPermission;
+
+/**
+ * Policy to decide when an automatic reload of a new bundle version is performed.
+ * If enabled, automatic reloads are deferred until the instance is in the maintenance window and the load is below
+ * the configured thresholds, for a maximum time. Thresholds set to 0 are not checked.
+ * Disabled by default, so the automatic reloads happen as soon as the new bundle version is detected.
+ */
+@Extension
+@Symbol("automaticReloadScheduling")
+public class AutomaticReloadSchedulingConfiguration extends GlobalConfiguration {
+
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm");
+
+    private boolean enabled = false;
+
+    /**
+     * Maintenance window in the format HH:mm-HH:mm, in the instance time zone. It can go through midnight (22:00-04:00).
+     * Empty for no window.
+     */
+    private String maintenanceWindow;
+
+    private int maxQueueLength = 0;
+
+    private int maxBusyExecutorsPercentage = 0;
+
+    private double maxSystemLoad = 0;
+
+    private int maxDeferralMinutes = 240;
+
+    public AutomaticReloadSchedulingConfiguration() {
+        load();
+    }
+
+    public static AutomaticReloadSchedulingConfiguration get() {
+        return ExtensionList.lookupSingleton(AutomaticReloadSchedulingConfiguration.class);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @DataBoundSetter
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        save();
+    }
+
+    @CheckForNull
+    public String getMaintenanceWindow() {
+        return maintenanceWindow;
+    }
+
+    @DataBoundSetter
+    public void setMaintenanceWindow(String maintenanceWindow) {
+        this.maintenanceWindow = StringUtils.trimToNull(maintenanceWindow);
+        save();
+    }
+
+    public int getMaxQueueLength() {
+        return maxQueueLength;
+    }
+
+    @DataBoundSetter
+    public void setMaxQueueLength(int maxQueueLength) {
+        this.maxQueueLength = Math.max(0, maxQueueLength);
+        save();
+    }
+
+    public int getMaxBusyExecutorsPercentage() {
+        return maxBusyExecutorsPercentage;
+    }
+
+    @DataBoundSetter
+    public void setMaxBusyExecutorsPercentage(int maxBusyExecutorsPercentage) {
+        this.maxBusyExecutorsPercentage = Math.max(0, Math.min(100, maxBusyExecutorsPercentage));
+        save();
+    }
+
+    public double getMaxSystemLoad() {
+        return maxSystemLoad;
+    }
+
+    @DataBoundSetter
+    public void setMaxSystemLoad(double maxSystemLoad) {
+        this.maxSystemLoad = Math.max(0, maxSystemLoad);
+        save();
+    }
+
+    public int getMaxDeferralMinutes() {
+        return maxDeferralMinutes;
+    }
+
+    @DataBoundSetter
+    public void setMaxDeferralMinutes(int maxDeferralMinutes) {
+        this.maxDeferralMinutes = Math.max(0, maxDeferralMinutes);
+        save();
+    }
+
+    /**
+     * @param time to check
+     * @return true if there is no maintenance window, or the time is inside it
+     */
+    public boolean isInMaintenanceWindow(@NonNull LocalTime time) {
+        return isInWindow(maintenanceWindow, time);
+    }
+
+    /**
+     * @param window in the format HH:mm-HH:mm. If the end is before the start, the window goes through midnight
+     * @param time to check
+     * @return true if the window is empty or invalid, or the time is inside it
+     */
+    static boolean isInWindow(@CheckForNull String window, @NonNull LocalTime time) {
+        LocalTime[] limits = parseWindow(window);
+        if (limits == null) {
+            return true;
+        }
+        LocalTime start = limits[0];
+        LocalTime end = limits[1];
+        if (start.isBefore(end)) {
+            return !time.isBefore(start) && time.isBefore(end);
+        }
+        return !time.isBefore(start) || time.isBefore(end);
+    }
+
+    @CheckForNull
+    private static LocalTime[] parseWindow(@CheckForNull String window) {
+        if (StringUtils.isBlank(window)) {
+            return null;
+        }
+        String[] parts = window.split("-");
+        if (parts.length != 2) {
+            return null;
+        }
+        try {
+            return new LocalTime[]{LocalTime.parse(parts[0].trim(), TIME_FORMAT), LocalTime.parse(parts[1].trim(), TIME_FORMAT)};
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    @POST
+    public FormValidation doCheckMaintenanceWindow(@QueryParameter String value) {
+        Jenkins.get().checkPermission(CascPermission.CASC_ADMIN);
+        if (StringUtils.isBlank(value) || parseWindow(value) != null) {
+            return FormValidation.ok();
+        }
+        return FormValidation.error("Invalid maintenance window. Expected format is HH:mm-HH:mm, for example 22:00-04:00");
+    }
+}
@@ -39,6 +39,7 @@ import com.cloudbees.jenkins.cjp.installmanager.casc.validation.Validation;
 import com.cloudbees.jenkins.plugins.casc.CasCException;
 import com.cloudbees.jenkins.plugins.casc.config.BundleUpdateTimingConfiguration;
 import com.cloudbees.jenkins.plugins.casc.permissions.CascPermission;
+import com.cloudbees.opscenter.client.casc.AutomaticReloadScheduler;
 import com.cloudbees.opscenter.client.casc.BundleExporter;
 import com.cloudbees.opscenter.client.casc.CheckNewBundleVersionException;
 import com.cloudbees.opscenter.client.casc.ConfigurationBundleService;
@@ -249,6 +250,14 @@ public class BundleVisualizationLink extends ManagementLink {
         return ConfigurationStatus.INSTANCE.isCurrentlyReloading();
     }
 
+    /**
+     * @return the automatic reload scheduler, to display the status of a deferred automatic reload
+     */
+    // Used by jelly
+    public AutomaticReloadScheduler getAutomaticReloadScheduler() {
+        return AutomaticReloadScheduler.get();
+    }
+
     /**
      * @return the version of the incoming bundle.
      */
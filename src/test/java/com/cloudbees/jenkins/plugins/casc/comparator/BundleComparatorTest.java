@@ -1,10 +1,12 @@
 package com.cloudbees.jenkins.plugins.casc.comparator;
 
+import net.sf.json.JSONObject;
 import org.junit.Test;
 
 import java.nio.file.Path;
 import java.nio.file.Paths;
 
+import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.collection.IsEmptyCollection.empty;
@@ -129,4 +131,104 @@ public class BundleComparatorTest {
         assertThat("Bundle has changed", result.getVariables().getDeletedFiles(), contains("variables1.yaml"));
         assertThat("Bundle has changed", result.getVariables().getUpdatedFiles(), contains("variables2.yaml"));
     }
+
+    @Test
+    public void test_jcasc_roots() throws Exception {
+        final Path base = Paths.get("src/test/resources/com/cloudbees/jenkins/plugins/casc/comparator/BundleComparatorTest");
+
+        BundleComparator.Result result = BundleComparator.compare(base.resolve("original"), base.resolve("copy-of-original"));
+        assertThat("Copied bundle, so no changes", result.getJcascChangedRoots(), empty());
+        assertThat("Copied bundle, so no changes", result.getJcascRemovedRoots(), empty());
+
+        result = BundleComparator.compare(base.resolve("original"), base.resolve("changed"));
+        assertThat("jenkins updated and tool added", result.getJcascChangedRoots(), contains("jenkins", "tool"));
+        assertThat("unclassified removed", result.getJcascRemovedRoots(), contains("unclassified"));
+    }
+
+    @Test
+    public void test_changed_items() throws Exception {
+        final Path base = Paths.get("src/test/resources/com/cloudbees/jenkins/plugins/casc/comparator/BundleComparatorTest");
+
+        BundleComparator.Result result = BundleComparator.compare(base.resolve("original"), base.resolve("copy-of-original"));
+        assertThat("Copied bundle, so no changes", result.getChangedItems(), empty());
+
+        result = BundleComparator.compare(base.resolve("original"), base.resolve("changed"));
+        assertThat("my-folder moved to another file without changes", result.getChangedItems(), contains("my-other-folder"));
+
+        result = BundleComparator.compare(base.resolve("with-variables"), base.resolve("with-variables-changed"));
+        assertThat("folderDescription has not changed", result.getChangedItems(), empty());
+    }
+
+    @Test
+    public void test_json() throws Exception {
+        final Path base = Paths.get("src/test/resources/com/cloudbees/jenkins/plugins/casc/comparator/BundleComparatorTest");
+
+        BundleComparator.Result result = BundleComparator.compare(base.resolve("original"), base.resolve("changed"));
+        BundleComparator.Result restored = BundleComparator.Result.fromJSON(JSONObject.fromObject(result.toJSON().toString()));
+        assertThat("Same origin", restored.getOrigin().getBundlePath(), is(result.getOrigin().getBundlePath()));
+        assertThat("Same other", restored.getOther().getBundlePath(), is(result.getOther().getBundlePath()));
+        assertThat("Same bundles flag restored", restored.sameBundles(), is(result.sameBundles()));
+        assertThat("Section changes restored", restored.getJcasc().getNewFiles(), is(result.getJcasc().getNewFiles()));
+        assertThat("Section changes restored", restored.getItems().getDeletedFiles(), is(result.getItems().getDeletedFiles()));
+        assertThat("Section changes restored", restored.getCatalog().getUpdatedFiles(), is(result.getCatalog().getUpdatedFiles()));
+        assertThat("JCasC roots restored", restored.getJcascChangedRoots(), is(result.getJcascChangedRoots()));
+        assertThat("JCasC roots restored", restored.getJcascRemovedRoots(), is(result.getJcascRemovedRoots()));
+        assertThat("Items restored", restored.getChangedItems(), is(result.getChangedItems()));
+        assertThat("Variables restored", restored.getChangedVariables(), is(result.getChangedVariables()));
+        assertThat("Affected files restored", restored.getFilesAffectedByVariables("jcasc"), is(result.getFilesAffectedByVariables("jcasc")));
+        assertThat("Catalog flag restored", restored.isCatalogEffectivelyChanged(), is(result.isCatalogEffectivelyChanged()));
+        assertThat("Metadata flag restored", restored.isDescriptorMetadataOnlyChange(), is(result.isDescriptorMetadataOnlyChange()));
+
+        // Origin folder with the content of the other bundle, as when the applied bundle is replaced by the promoted one
+        result = BundleComparator.compare(base.resolve("with-variables"), base.resolve("with-variables-changed"));
+        restored = BundleComparator.Result.fromJSON(result.toJSON().element("origin", base.resolve("with-variables-changed").toString()));
+        assertThat("Changes do not depend on the compared folders", restored.getChangedVariables(), is(result.getChangedVariables()));
+        assertThat("Changes do not depend on the compared folders", restored.getChangedItems(), empty());
+    }
+
+    @Test
+    public void test_catalog_effective_changes() throws Exception {
+        final Path base = Paths.get("src/test/resources/com/cloudbees/jenkins/plugins/casc/comparator/BundleComparatorTest");
+
+        BundleComparator.Result result = BundleComparator.compare(base.resolve("original"), base.resolve("copy-of-original"));
+        assertFalse("Copied bundle, so no changes", result.isCatalogEffectivelyChanged());
+
+        result = BundleComparator.compare(base.resolve("original"), base.resolve("catalog-reformatted"));
+        assertTrue("Catalog file has been updated", result.getCatalog().withChanges());
+        assertFalse("Only format and descriptive fields have changed", result.isCatalogEffectivelyChanged());
+
+        result = BundleComparator.compare(base.resolve("original"), base.resolve("changed"));
+        assertTrue("Plugin url has changed", result.isCatalogEffectivelyChanged());
+    }
+
+    @Test
+    public void test_descriptor_metadata_only() throws Exception {
+        final Path base = Paths.get("src/test/resources/com/cloudbees/jenkins/plugins/casc/comparator/BundleComparatorTest");
+
+        BundleComparator.Result result = BundleComparator.compare(base.resolve("original"), base.resolve("original-but-version2"));
+        assertFalse("Version has changed", result.sameBundles());
+        assertTrue("Only the version has changed", result.isDescriptorMetadataOnlyChange());
+
+        result = BundleComparator.compare(base.resolve("original"), base.resolve("copy-of-original"));
+        assertFalse("Copied bundle, so no changes", result.isDescriptorMetadataOnlyChange());
+
+        result = BundleComparator.compare(base.resolve("original"), base.resolve("catalog-reformatted"));
+        assertFalse("Catalog file has changed", result.isDescriptorMetadataOnlyChange());
+    }
+
+    @Test
+    public void test_variables_impact() throws Exception {
+        final Path base = Paths.get("src/test/resources/com/cloudbees/jenkins/plugins/casc/comparator/BundleComparatorTest");
+
+        BundleComparator.Result result = BundleComparator.compare(base.resolve("with-variables"), base.resolve("with-variables-changed"));
+        assertTrue("Variables have changed", result.getVariables().withChanges());
+        assertTrue("Variables have been parsed", result.isVariablesImpactKnown());
+        assertThat(result.getChangedVariables(), contains("admin", "notAVariable"));
+        assertTrue("jenkins.yaml uses admin", result.isAffectedByVariables("jcasc"));
+        assertThat(result.getFilesAffectedByVariables("jcasc"), contains("jenkins.yaml"));
+        assertFalse("items.yaml only uses folderDescription", result.isAffectedByVariables("items"));
+        assertFalse("rbac.yaml only uses escaped variables", result.isAffectedByVariables("rbac"));
+        assertThat("Only unclassified uses admin", result.getJcascChangedRoots(), contains("unclassified"));
+        assertThat(result.getJcascRemovedRoots(), empty());
+    }
 }
@@ -0,0 +1,79 @@
+package com.cloudbees.jenkins.plugins.casc.comparator;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.junit.Assert.assertTrue;
+
+public class BundleSnapshotTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final Path base = Paths.get("src/test/resources/com/cloudbees/jenkins/plugins/casc/comparator/BundleComparatorTest");
+
+    @Test
+    public void snapshotIsReadUntilTheBundleChanges() throws Exception {
+        Path bundle = temporaryFolder.newFolder("bundle").toPath();
+        FileUtils.copyDirectory(base.resolve("with-variables").toFile(), bundle.toFile());
+
+        assertThat("No snapshot written yet", BundleSnapshot.read(bundle), nullValue());
+        assertThat(BundleSnapshot.write(bundle), notNullValue());
+        assertTrue("Snapshot written next to the bundle", Files.exists(bundle.resolveSibling("bundle" + BundleSnapshot.SUFFIX)));
+
+        BundleSnapshot snapshot = BundleSnapshot.read(bundle);
+        assertThat(snapshot, notNullValue());
+        assertThat(snapshot.getDigest("jenkins.yaml"), notNullValue());
+        assertThat(snapshot.getDigest("unknown.yaml"), nullValue());
+        assertThat(snapshot.getVariables("jenkins.yaml"), contains("admin", "message"));
+        assertThat("Escaped variables are not references", snapshot.getVariables("rbac.yaml"), empty());
+
+        // Stale once a file is modified
+        Files.write(bundle.resolve("jenkins.yaml"), "jenkins:\n  systemMessage: \"changed\"\n".getBytes(StandardCharsets.UTF_8));
+        assertThat("Stale snapshot", BundleSnapshot.read(bundle), nullValue());
+    }
+
+    @Test
+    public void removeStrategies() throws Exception {
+        Path bundle = temporaryFolder.newFolder("bundle").toPath();
+        FileUtils.copyDirectory(base.resolve("original").toFile(), bundle.toFile());
+
+        BundleSnapshot snapshot = BundleSnapshot.write(bundle);
+        assertThat(snapshot, notNullValue());
+        assertThat(snapshot.getRbacRemoveStrategy(), is("sync"));
+        assertThat(snapshot.getItemsRemoveStrategy(), is("none"));
+    }
+
+    @Test
+    public void comparisonWithSnapshots() throws Exception {
+        Path original = temporaryFolder.newFolder("original").toPath();
+        Path changed = temporaryFolder.newFolder("changed").toPath();
+        FileUtils.copyDirectory(base.resolve("original").toFile(), original.toFile());
+        FileUtils.copyDirectory(base.resolve("changed").toFile(), changed.toFile());
+        BundleComparator.Result withoutSnapshots = BundleComparator.compare(original, changed);
+
+        BundleSnapshot.write(original);
+        BundleSnapshot.write(changed);
+        BundleComparator.Result withSnapshots = BundleComparator.compare(original, changed);
+
+        assertThat(withSnapshots.getJcasc().getUpdatedFiles(), is(withoutSnapshots.getJcasc().getUpdatedFiles()));
+        assertThat(withSnapshots.getItems().getUpdatedFiles(), is(withoutSnapshots.getItems().getUpdatedFiles()));
+        assertThat(withSnapshots.getRbac().getUpdatedFiles(), is(withoutSnapshots.getRbac().getUpdatedFiles()));
+        assertThat(withSnapshots.getCatalog().getUpdatedFiles(), is(withoutSnapshots.getCatalog().getUpdatedFiles()));
+        assertThat(withSnapshots.getPlugins().getUpdatedFiles(), is(withoutSnapshots.getPlugins().getUpdatedFiles()));
+        assertThat(withSnapshots.getVariables().getUpdatedFiles(), is(withoutSnapshots.getVariables().getUpdatedFiles()));
+    }
+}
@@ -5,6 +5,7 @@ import static com.github.tomakehurst.wiremock.client.WireMock.get;
 import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
 import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
 
+import com.cloudbees.hudson.plugins.folder.Folder;
 import com.cloudbees.jenkins.cjp.installmanager.AbstractCJPTest;
 import com.cloudbees.jenkins.cjp.installmanager.CJPRule;
 import com.cloudbees.jenkins.cjp.installmanager.IMRunner;
@@ -20,9 +21,12 @@ import com.github.tomakehurst.wiremock.common.ClasspathFileSource;
 import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
 import com.github.tomakehurst.wiremock.junit.WireMockClassRule;
 import hudson.ExtensionList;
+import hudson.model.FreeStyleProject;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
+import org.htmlunit.WebRequest;
+import org.htmlunit.WebResponse;
 import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.ClassRule;
@@ -43,13 +47,20 @@ import java.lang.annotation.ElementType;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
+import java.net.URL;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
 
 import edu.umd.cs.findbugs.annotations.NonNull;
 
@@ -64,6 +75,8 @@ import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
@@ -128,6 +141,120 @@ public class BundleExportTest extends AbstractCJPTest {
         assertThat(resp.getDescriptor(), containsString("items.yaml"));
     }
 
+    @Test
+    @WithEnvelope(WithIconShimBootstrap.class)
+    public void streamedExportContainsTheExportedFiles() throws Exception {
+        BundleResponse resp = ExtensionList.lookupSingleton(BundleExport.class).getBundleResponse();
+        String streamed = rule.createWebClient().goTo("core-casc-export/", "text/plain").getWebResponse().getContentAsString();
+        assertThat(streamed, containsString("# bundle.yaml"));
+        assertThat(streamed, containsString("# jenkins.yaml"));
+        assertThat(streamed, containsString("# plugins.yaml"));
+        assertThat(streamed, containsString(resp.getPlugins()));
+
+        String jcasc = rule.createWebClient().goTo("core-casc-export/jenkins.yaml", "text/plain").getWebResponse().getContentAsString();
+        assertThat(jcasc, containsString("jenkins:"));
+    }
+
+    @Test
+    @WithEnvelope(WithIconShimBootstrap.class)
+    public void unchangedExportIsNotModified() throws Exception {
+        JenkinsRule.WebClient wc = rule.createWebClient();
+        for (String path : Arrays.asList("core-casc-export/", "core-casc-export/jenkins.yaml", "core-casc-export/full-export")) {
+            URL url = new URL(rule.getURL(), path);
+            // Streamed exports only wait for the ETag if the client can use it
+            WebRequest unknown = new WebRequest(url);
+            unknown.setAdditionalHeader("If-None-Match", "\"unknown\"");
+            WebResponse first = wc.loadWebResponse(unknown);
+            assertThat(first.getStatusCode(), is(200));
+            String etag = first.getResponseHeaderValue("ETag");
+            assertThat("ETag of " + path, etag, notNullValue());
+
+            WebRequest conditional = new WebRequest(url);
+            conditional.setAdditionalHeader("If-None-Match", etag);
+            WebResponse notModified = wc.loadWebResponse(conditional);
+            assertThat("Unchanged " + path, notModified.getStatusCode(), is(304));
+
+            Jenkins.get().setSystemMessage("Changed to export " + path);
+            Jenkins.get().save();
+            WebResponse modified = wc.loadWebResponse(conditional);
+            assertThat("Changed " + path, modified.getStatusCode(), is(200));
+            assertThat("Changed " + path, modified.getResponseHeaderValue("ETag"), not(etag));
+        }
+    }
+
+    @Test
+    @WithEnvelope(WithIconShimBootstrap.class)
+    public void installedPluginsSnapshotIsShared() {
+        InstalledPluginsSnapshot snapshot = InstalledPluginsSnapshot.get();
+        assertThat(snapshot.getInstalledPlugins().size(), is(Jenkins.get().getPluginManager().getPlugins().size()));
+        assertThat("Not built again if nothing changed", InstalledPluginsSnapshot.get(), sameInstance(snapshot));
+        assertThat(ExportSnapshot.capture().getInstalledPlugins(), sameInstance(snapshot.getInstalledPlugins()));
+
+        InstalledPluginsSnapshot.invalidate();
+        assertThat(InstalledPluginsSnapshot.get(), not(sameInstance(snapshot)));
+    }
+
+    @Test
+    @WithEnvelope(WithIconShimBootstrap.class)
+    public void shardedZipExport() throws Exception {
+        Folder teamA = rule.jenkins.createProject(Folder.class, "team-a");
+        teamA.createProject(FreeStyleProject.class, "job-a");
+        rule.jenkins.createProject(Folder.class, "team-b");
+        rule.createFreeStyleProject("top-level");
+
+        Map<String, String> files = new LinkedHashMap<>();
+        try (InputStream in = rule.createWebClient().goTo("core-casc-export/full-export?sharded=true", "application/zip").getWebResponse().getContentAsStream();
+             ZipInputStream zip = new ZipInputStream(in)) {
+            for (ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+                files.put(entry.getName(), IOUtils.toString(zip, StandardCharsets.UTF_8));
+            }
+        }
+
+        Map<String, Object> descriptor = YamlClientUtils.createDefault().load(files.get("bundle.yaml"));
+        assertThat(descriptor.get("items"), is(Arrays.asList("items.yaml", "items-team-a.yaml", "items-team-b.yaml")));
+        assertThat(descriptor.get("rbac"), is(Arrays.asList("rbac-roles.yaml", "rbac-groups.yaml")));
+        assertThat(files.get("items.yaml"), containsString("top-level"));
+        assertThat(files.get("items.yaml"), not(containsString("job-a")));
+        assertThat(files.get("items-team-a.yaml"), containsString("job-a"));
+        assertThat(files.get("items-team-b.yaml"), not(containsString("job-a")));
+        assertTrue("RBAC files exported", files.containsKey("rbac-roles.yaml") && files.containsKey("rbac-groups.yaml"));
+
+        Path cache = rule.jenkins.getRootDir().toPath().resolve(ExportCache.CACHE_FOLDER);
+        assertTrue("Folder file cached", cachedFiles(cache).stream().anyMatch(file -> file.startsWith("sharded-items-team-b.yaml.")));
+        rule.jenkins.getItem("team-b").delete();
+        assertFalse("Deleted folder file evicted", cachedFiles(cache).stream().anyMatch(file -> file.startsWith("sharded-items-team-b.yaml.")));
+    }
+
+    private static List<String> cachedFiles(Path cache) throws IOException {
+        try (Stream<Path> files = Files.list(cache)) {
+            return files.map(file -> file.getFileName().toString()).collect(Collectors.toList());
+        }
+    }
+
+    @Test
+    @WithEnvelope(WithIconShimBootstrap.class)
+    public void zipExportKeepsTheExportersOrder() throws Exception {
+        List<String> expected = new ArrayList<>();
+        for (BundleExporter exporter : ExtensionList.lookup(BundleExporter.class)) {
+            if (exporter.getExport() != null) {
+                expected.add(exporter.getYamlFile());
+            }
+        }
+
+        List<String> entries = new ArrayList<>();
+        try (InputStream in = rule.createWebClient().goTo("core-casc-export/full-export", "application/zip").getWebResponse().getContentAsStream();
+             ZipInputStream zip = new ZipInputStream(in)) {
+            for (ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+                entries.add(entry.getName());
+                String content = IOUtils.toString(zip, StandardCharsets.UTF_8);
+                if ("plugins.yaml".equals(entry.getName())) {
+                    assertThat(content, is(BundleExporter.forYamlFile("plugins.yaml").getExport()));
+                }
+            }
+        }
+        assertThat("Files exported concurrently are written in the exporters order", entries, is(expected));
+    }
+
     @Test
     @Issue({"BEE-7093", "BEE-6931"})
     @WithEnvelope(WithIconShimBootstrap.class)
@@ -58,6 +58,7 @@ import java.time.Duration;
 import java.util.Collections;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 
 import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
@@ -248,14 +249,36 @@ public class BundleReloadActionTest extends AbstractCJPTest {
         assertThat("Error monitor is deactivated", ExtensionList.lookupSingleton(BundleReloadErrorMonitor.class).isActivated(), is(false));
         assertThat("Info monitor is activated", ExtensionList.lookupSingleton(BundleReloadInfoMonitor.class).isActivated(), is(true));
 
-        // Doing 2 consecutive requests, 2nd one should answer "reloaded": false as 1st one is still running
+        // Doing 2 consecutive requests, 2nd one should be queued as 1st one is still running
         // Simulate a request is already running
-        ConfigurationStatus.INSTANCE.setCurrentlyReloading(true);
+        CountDownLatch running = new CountDownLatch(1);
+        ReloadTicket first = BundleReloadQueue.INSTANCE.submit(false, force -> {
+            try {
+                return running.await(30, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                return false;
+            }
+        });
+        assertThat("Reload is running", ConfigurationStatus.INSTANCE.isCurrentlyReloading(), is(true));
         resp = requestWithToken(HttpMethod.POST, new URL(rule.getURL(), "casc-bundle-mgnt/reload-bundle"), admin, wc, true);
         response = JSONObject.fromObject(resp.getContentAsString());
         assertThat("We should get a 200", resp.getStatusCode(), is(HttpServletResponse.SC_OK));
-        assertThat("Update was not applied in 2nd request", response.getBoolean("reloaded"), is(false));
-        assertThat("Update was not applied in 2nd request", response.getString("reason"), containsString("A reload is already in progress"));
+        assertThat("Update is accepted in 2nd request", response.getBoolean("reloaded"), is(true));
+        assertThat("Update is queued in 2nd request", response.getBoolean("queued"), is(true));
+        assertThat("Update is not completed in 2nd request", response.getBoolean("completed"), is(false));
+        long ticket = response.getLong("ticket");
+        // A 3rd request is coalesced with the 2nd one
+        resp = requestWithToken(HttpMethod.POST, new URL(rule.getURL(), "casc-bundle-mgnt/reload-bundle"), admin, wc, true);
+        response = JSONObject.fromObject(resp.getContentAsString());
+        assertThat("Update is coalesced in 3rd request", response.getLong("ticket"), is(ticket));
+
+        running.countDown();
+        assertThat("1st reload finishes", first.await(30, TimeUnit.SECONDS), is(true));
+        await().atMost(Duration.ofSeconds(30)).until(() -> reloadComplete(admin, wc));
+        resp = requestWithToken(HttpMethod.GET, new URL(rule.getURL(), "casc-bundle-mgnt/check-bundle-reload-running?ticket=" + ticket), admin, wc, false);
+        response = JSONObject.fromObject(resp.getContentAsString());
+        assertThat("Queued reload is completed", response.getJSONObject("ticket").getBoolean("completed"), is(true));
+        assertThat("Queued reload is successful", response.getJSONObject("ticket").getBoolean("successful"), is(true));
     }
 
     @Test
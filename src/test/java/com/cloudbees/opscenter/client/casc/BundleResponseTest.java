@@ -8,10 +8,14 @@ import org.kohsuke.stapler.StaplerResponse;
 import javax.servlet.ServletOutputStream;
 import javax.servlet.WriteListener;
 import java.io.IOException;
+import java.io.StringWriter;
 
 import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.not;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
 
@@ -48,6 +52,23 @@ public class BundleResponseTest {
         }
     }
 
+    @Test
+    public void sectionHeaderOnlyWrittenWithContent() throws Exception {
+        StringWriter out = new StringWriter();
+        BundleExporter.SectionWriter section = new BundleExporter.SectionWriter(out, () -> out.write("# header\n"), true);
+        section.write("  \n");
+        assertFalse("Only whitespaces, so no content", section.isStarted());
+        assertThat(out.toString(), is(""));
+        section.write("content");
+        assertTrue(section.isStarted());
+        assertThat(out.toString(), is("# header\n  \ncontent"));
+
+        StringWriter empty = new StringWriter();
+        section = new BundleExporter.SectionWriter(empty, () -> empty.write("# header\n"), true);
+        section.start();
+        assertThat("Header forced without content", empty.toString(), is("# header\n"));
+    }
+
     private class StringOutputStream extends ServletOutputStream {
 
         StringBuilder toString = new StringBuilder();
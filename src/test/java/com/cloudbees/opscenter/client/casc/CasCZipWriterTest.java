@@ -0,0 +1,177 @@
+package com.cloudbees.opscenter.client.casc;
+
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assume.assumeTrue;
+
+public class CasCZipWriterTest {
+
+    @Rule
+    public final TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void entriesInOrder() throws Exception {
+        for (boolean stored : new boolean[]{false, true}) {
+            Path file = tmp.newFile().toPath();
+            Files.writeString(file, String.join("\n", Collections.nCopies(10000, "- kind: freeStyle")));
+            Path zip = tmp.newFile().toPath();
+            List<String> names = new ArrayList<>();
+            try (CasCZipWriter writer = new CasCZipWriter(Files.newOutputStream(zip), stored)) {
+                writer.addDirectory("jcasc", 0);
+                names.add("jcasc/");
+                for (int i = 0; i < 20; i++) {
+                    writer.addFile("jcasc/items-" + i + ".yaml", file);
+                    names.add("jcasc/items-" + i + ".yaml");
+                }
+                writer.addEntry("bundle.yaml", 946684800000L, out -> out.write("id: bundle".getBytes(StandardCharsets.UTF_8)));
+                names.add("bundle.yaml");
+                writer.setComment("version-1");
+            }
+
+            try (ZipFile zipFile = new ZipFile(zip.toFile())) {
+                assertThat(zipFile.getComment(), is("version-1"));
+                assertThat(zipFile.getEntry("jcasc/").isDirectory(), is(true));
+                ZipEntry entry = zipFile.getEntry("jcasc/items-7.yaml");
+                assertThat(entry.getMethod(), is(stored ? ZipEntry.STORED : ZipEntry.DEFLATED));
+                assertThat(new String(zipFile.getInputStream(entry).readAllBytes(), StandardCharsets.UTF_8), is(Files.readString(file)));
+            }
+            List<String> read = new ArrayList<>();
+            try (ZipInputStream in = new ZipInputStream(Files.newInputStream(zip))) {
+                ZipEntry entry;
+                while ((entry = in.getNextEntry()) != null) {
+                    read.add(entry.getName());
+                    if (entry.getName().equals("bundle.yaml")) {
+                        assertThat(new String(in.readAllBytes(), StandardCharsets.UTF_8), is("id: bundle"));
+                    }
+                }
+            }
+            assertThat("Entries are written in the order they are added", read, is(names));
+        }
+    }
+
+    @Test
+    public void bigEntriesAreStreamed() throws Exception {
+        long streamedSize = CasCZipWriter.STREAMED_SIZE;
+        CasCZipWriter.STREAMED_SIZE = 1000;
+        try {
+            for (boolean stored : new boolean[]{false, true}) {
+                Path big = tmp.newFile().toPath();
+                Files.writeString(big, String.join("\n", Collections.nCopies(10000, "- kind: freeStyle")));
+                Path zip = writeZip(big, stored);
+
+                try (ZipFile zipFile = new ZipFile(zip.toFile())) {
+                    assertThat(zipFile.getComment(), is("version-1"));
+                    ZipEntry entry = zipFile.getEntry("items.yaml");
+                    assertThat("Streamed entries are always deflated", entry.getMethod(), is(ZipEntry.DEFLATED));
+                    assertThat(new String(zipFile.getInputStream(entry).readAllBytes(), StandardCharsets.UTF_8), is(Files.readString(big)));
+                    assertThat(zipFile.getEntry("small.yaml").getMethod(), is(stored ? ZipEntry.STORED : ZipEntry.DEFLATED));
+                }
+                List<String> read = new ArrayList<>();
+                try (ZipInputStream in = new ZipInputStream(Files.newInputStream(zip))) {
+                    ZipEntry entry;
+                    while ((entry = in.getNextEntry()) != null) {
+                        read.add(entry.getName());
+                        String content = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+                        if (entry.getName().startsWith("big-")) {
+                            assertThat(content, is(Files.readString(big)));
+                        }
+                    }
+                }
+                assertThat("Streamed entries keep the order", read, is(Arrays.asList("jcasc/", "small.yaml", "big-0.yaml", "small-0.yaml", "big-1.yaml", "small-1.yaml", "items.yaml", "bundle.yaml")));
+
+                // Zip64 aware reader, which checks the data descriptors
+                try (org.apache.commons.compress.archivers.zip.ZipFile zipFile = new org.apache.commons.compress.archivers.zip.ZipFile(zip.toFile())) {
+                    ZipArchiveEntry entry = zipFile.getEntry("big-1.yaml");
+                    assertThat(entry.getGeneralPurposeBit().usesDataDescriptor(), is(true));
+                    assertThat(new String(zipFile.getInputStream(entry).readAllBytes(), StandardCharsets.UTF_8), is(Files.readString(big)));
+                }
+            }
+        } finally {
+            CasCZipWriter.STREAMED_SIZE = streamedSize;
+        }
+    }
+
+    @Test
+    public void readByUnzip() throws Exception {
+        assumeTrue("unzip is available", new ProcessBuilder("unzip", "-v").redirectErrorStream(true).start().waitFor() == 0);
+        long streamedSize = CasCZipWriter.STREAMED_SIZE;
+        CasCZipWriter.STREAMED_SIZE = 1000;
+        try {
+            Path big = tmp.newFile().toPath();
+            Files.writeString(big, String.join("\n", Collections.nCopies(10000, "- kind: freeStyle")));
+            for (boolean stored : new boolean[]{false, true}) {
+                Path zip = writeZip(big, stored);
+                Process unzip = new ProcessBuilder("unzip", "-tq", zip.toString()).redirectErrorStream(true).start();
+                String output = new String(unzip.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+                assertThat(output, unzip.waitFor(), is(0));
+            }
+        } finally {
+            CasCZipWriter.STREAMED_SIZE = streamedSize;
+        }
+    }
+
+    private Path writeZip(Path big, boolean stored) throws IOException {
+        Path small = tmp.newFile().toPath();
+        Files.writeString(small, "id: small");
+        byte[] bigContent = Files.readAllBytes(big);
+        Path zip = tmp.newFile().toPath();
+        try (CasCZipWriter writer = new CasCZipWriter(Files.newOutputStream(zip), stored)) {
+            writer.addDirectory("jcasc", 0);
+            writer.addFile("small.yaml", small);
+            for (int i = 0; i < 2; i++) {
+                writer.addFile("big-" + i + ".yaml", big);
+                writer.addFile("small-" + i + ".yaml", small);
+            }
+            writer.addEntry("items.yaml", 946684800000L, bigContent.length, out -> out.write(bigContent));
+            writer.addEntry("bundle.yaml", 946684800000L, out -> out.write("id: bundle".getBytes(StandardCharsets.UTF_8)));
+            writer.setComment("version-1");
+        }
+        return zip;
+    }
+
+    @Test
+    public void manyEntriesUseZip64() throws Exception {
+        Path zip = tmp.newFile().toPath();
+        int entries = 0xFFFF + 10;
+        try (CasCZipWriter writer = new CasCZipWriter(Files.newOutputStream(zip), true)) {
+            for (int i = 0; i < entries; i++) {
+                String content = "id: " + i;
+                writer.addEntry("items-" + i + ".yaml", 0, out -> out.write(content.getBytes(StandardCharsets.UTF_8)));
+            }
+        }
+
+        try (ZipFile zipFile = new ZipFile(zip.toFile())) {
+            assertThat(zipFile.size(), is(entries));
+            ZipEntry entry = zipFile.getEntry("items-" + (entries - 1) + ".yaml");
+            assertThat(new String(zipFile.getInputStream(entry).readAllBytes(), StandardCharsets.UTF_8), is("id: " + (entries - 1)));
+        }
+    }
+
+    @Test
+    public void failedEntry() throws Exception {
+        Path zip = tmp.newFile().toPath();
+        CasCZipWriter writer = new CasCZipWriter(Files.newOutputStream(zip));
+        writer.addEntry("broken.yaml", 0, out -> {
+            throw new IOException("Cannot export");
+        });
+        assertThrows(IOException.class, writer::close);
+    }
+}
@@ -0,0 +1,41 @@
+package com.cloudbees.opscenter.client.casc;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertThrows;
+
+public class CatalogValidationMemoTest {
+
+    @Test
+    public void leastRecentlyUsedAreEvicted() {
+        int size = CatalogValidationMemo.SIZE;
+        CatalogValidationMemo.SIZE = 2;
+        try {
+            AtomicInteger loads = new AtomicInteger();
+            CatalogValidationMemo.Lru<String> lru = new CatalogValidationMemo.Lru<>();
+            assertThat(lru.get("a", () -> "a" + loads.incrementAndGet()), is("a1"));
+            assertThat(lru.get("b", () -> "b" + loads.incrementAndGet()), is("b2"));
+            assertThat("Result reused", lru.get("a", () -> "a" + loads.incrementAndGet()), is("a1"));
+            assertThat(lru.get("c", () -> "c" + loads.incrementAndGet()), is("c3"));
+            assertThat(lru.size(), is(2));
+            assertThat("Most recently used kept", lru.get("a", () -> "a" + loads.incrementAndGet()), is("a1"));
+            assertThat("Least recently used evicted", lru.get("b", () -> "b" + loads.incrementAndGet()), is("b4"));
+        } finally {
+            CatalogValidationMemo.SIZE = size;
+        }
+    }
+
+    @Test
+    public void failuresAreNotKept() {
+        CatalogValidationMemo.Lru<String> lru = new CatalogValidationMemo.Lru<>();
+        assertThrows(IllegalStateException.class, () -> lru.get("a", () -> {
+            throw new IllegalStateException("Invalid catalog");
+        }));
+        assertThat(lru.size(), is(0));
+        assertThat(lru.get("a", () -> "valid"), is("valid"));
+    }
+}
@@ -0,0 +1,56 @@
+package com.cloudbees.opscenter.client.casc;
+
+import com.cloudbees.jenkins.cjp.installmanager.AbstractCJPTest;
+import com.cloudbees.jenkins.cjp.installmanager.WithConfigBundle;
+import com.cloudbees.jenkins.cjp.installmanager.WithEnvelope;
+import com.cloudbees.jenkins.cjp.installmanager.casc.ConfigurationBundle;
+import com.cloudbees.jenkins.cjp.installmanager.casc.ConfigurationBundleManager;
+import com.cloudbees.opscenter.client.casc.visualization.BundleDiffActionTest;
+import net.sf.json.JSONObject;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ConfigurationStatusStoreTest extends AbstractCJPTest {
+
+    @Test
+    @WithEnvelope(BundleDiffActionTest.TestEnvelope.class)
+    @WithConfigBundle("src/test/resources/com/cloudbees/opscenter/client/casc/visualization/BundleDiffActionTest/version-1")
+    public void statusIsRestoredForTheSameBundle() throws Exception {
+        ConfigurationBundle bundle = ConfigurationBundleManager.get().getConfigurationBundle();
+        bundle.setHotReloadable(true);
+        ConfigurationStatus.INSTANCE.setUpdateAvailable(true);
+        ConfigurationStatus.INSTANCE.setOutdatedVersion("0");
+        ConfigurationStatusStore.save();
+        assertTrue("Status saved", Files.exists(ConfigurationStatusStore.getFile()));
+
+        bundle.setHotReloadable(false);
+        ConfigurationStatus.INSTANCE.setUpdateAvailable(false);
+        ConfigurationStatus.INSTANCE.setOutdatedVersion(null);
+        ConfigurationStatusStore.restore();
+        assertTrue("Hot reload verdict restored", bundle.isHotReloadable());
+        assertTrue("Update available restored", ConfigurationStatus.INSTANCE.isUpdateAvailable());
+        assertThat("Outdated version restored", ConfigurationStatus.INSTANCE.getOutdatedVersion(), is("0"));
+
+        // Saved for another bundle
+        Path file = ConfigurationStatusStore.getFile();
+        JSONObject json = JSONObject.fromObject(new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+        json.element("checksum", "another-checksum");
+        Files.write(file, json.toString().getBytes(StandardCharsets.UTF_8));
+        bundle.setHotReloadable(false);
+        ConfigurationStatus.INSTANCE.setUpdateAvailable(false);
+        ConfigurationStatus.INSTANCE.setOutdatedVersion(null);
+        ConfigurationStatusStore.restore();
+        assertFalse("Status of another bundle is not restored", bundle.isHotReloadable());
+        assertFalse("Status of another bundle is not restored", ConfigurationStatus.INSTANCE.isUpdateAvailable());
+        assertThat("Status of another bundle is not restored", ConfigurationStatus.INSTANCE.getOutdatedVersion(), nullValue());
+    }
+}
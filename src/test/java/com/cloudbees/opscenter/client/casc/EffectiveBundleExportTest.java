@@ -11,23 +11,35 @@ import org.junit.rules.TestName;
 import org.jvnet.hudson.test.LoggerRule;
 import org.kohsuke.stapler.StaplerRequest;
 import org.kohsuke.stapler.StaplerResponse;
+import org.mockito.ArgumentCaptor;
 
 import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
+import java.io.InputStream;
 import java.io.PrintWriter;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.logging.Level;
-import java.util.zip.ZipOutputStream;
+import java.util.zip.GZIPInputStream;
 
 import static junit.framework.TestCase.assertTrue;
 import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
 
 public class EffectiveBundleExportTest {
 
@@ -105,18 +117,52 @@ public class EffectiveBundleExportTest {
         export.doDownloadFile(request);
         assertThat(loggerRule, LoggerRule.recorded(Level.WARNING, Matchers.containsString("Attempted to download a non-existent file.")));
 
-        doReturn("/bundle.yaml").when(request).getRestOfPath();
-        export.doDownloadFile(request).generateResponse(request, response, null);
+        String content = download("/bundle.yaml", false);
         assertThat(loggerRule, LoggerRule.recorded(Level.FINE, Matchers.containsString("Downloading bundle.yaml")));
-        String content = export.readContentFile(cascFolder.resolve("bundle.yaml"));
         assertThat("Invalid bundle.yaml content", content, containsString("id: \"my-master\""));
         assertThat("Invalid bundle.yaml content", content, containsString("description: \"Minimun version\""));
 
-        doReturn("/jcasc/jenkins.yaml").when(request).getRestOfPath();
-        export.doDownloadFile(request).generateResponse(request, response, null);
+        content = download("/jcasc/jenkins.yaml", false);
         assertThat(loggerRule, LoggerRule.recorded(Level.FINE, Matchers.containsString("Downloading jcasc/jenkins.yaml")));
-        content = export.readContentFile(cascFolder.resolve("jcasc/jenkins.yaml"));
         assertThat("Invalid jenkins.yaml content", content, containsString("systemMessage: \"Hey! I've been configured as Code\""));
+
+        content = download("/jcasc/jenkins.yaml", true);
+        assertThat("Invalid compressed jenkins.yaml content", content, containsString("systemMessage: \"Hey! I've been configured as Code\""));
+    }
+
+    /**
+     * @return the content streamed by the response of {@link EffectiveBundleExport#doDownloadFile}
+     */
+    private String download(String path, boolean gzip) throws Exception {
+        doReturn(path).when(request).getRestOfPath();
+        doReturn(gzip ? "gzip" : null).when(request).getHeader("Accept-Encoding");
+        StaplerResponse rsp = mock(StaplerResponse.class);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        doReturn(new ServletOutputStream() {
+            @Override
+            public void write(int b) {
+                out.write(b);
+            }
+
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+                // NOOP
+            }
+        }).when(rsp).getOutputStream();
+        export.doDownloadFile(request).generateResponse(request, rsp, null);
+        if (gzip) {
+            verify(rsp).setHeader("Content-Encoding", "gzip");
+            try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+                return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            }
+        }
+        verify(rsp).setHeader("Content-Length", String.valueOf(out.size()));
+        return out.toString(StandardCharsets.UTF_8);
     }
 
     @Test
@@ -127,15 +173,49 @@ public class EffectiveBundleExportTest {
         assertThat(loggerRule, LoggerRule.recorded(Level.FINE, Matchers.containsString("Downloading installed bundle in zip format")));
     }
 
+    @Test
+    public void zipExportIsCachedWithRanges() throws Exception {
+        EffectiveBundleExport.ZipBundleResponse zbr = new EffectiveBundleExport.ZipBundleResponse(cascFolder.toFile());
+        zbr.generateResponse(request, response, null);
+        Path zip = cascFolder.resolveSibling(cascFolder.getFileName() + EffectiveBundleExport.ZipBundleResponse.ZIP_SUFFIX);
+        assertTrue("Zip is kept next to the bundle", Files.isRegularFile(zip));
+        long length = Files.size(zip);
+        ArgumentCaptor<String> etag = ArgumentCaptor.forClass(String.class);
+        verify(response).setHeader(eq("ETag"), etag.capture());
+
+        StaplerResponse partial = mock(StaplerResponse.class);
+        doReturn(mock(ServletOutputStream.class)).when(partial).getOutputStream();
+        doReturn("bytes=10-").when(request).getHeader("Range");
+        zbr.generateResponse(request, partial, null);
+        verify(partial).setStatus(206);
+        verify(partial).setHeader("Content-Range", "bytes 10-" + (length - 1) + "/" + length);
+
+        StaplerResponse unsatisfiable = mock(StaplerResponse.class);
+        doReturn("bytes=" + length + "-").when(request).getHeader("Range");
+        zbr.generateResponse(request, unsatisfiable, null);
+        verify(unsatisfiable).setStatus(416);
+
+        StaplerResponse notModified = mock(StaplerResponse.class);
+        doReturn(etag.getValue()).when(request).getHeader("If-None-Match");
+        zbr.generateResponse(request, notModified, null);
+        verify(notModified).setStatus(304);
+        verify(notModified, never()).getOutputStream();
+
+        assertThat(EffectiveBundleExport.ZipBundleResponse.parseRange("bytes=-5", 100), is(new long[]{95, 99}));
+        assertThat(EffectiveBundleExport.ZipBundleResponse.parseRange("bytes=0-999", 100), is(new long[]{0, 99}));
+        assertThat("Multiple ranges send the whole file", EffectiveBundleExport.ZipBundleResponse.parseRange("bytes=0-1,5-6", 100), nullValue());
+        assertThat(EffectiveBundleExport.ZipBundleResponse.parseRange("bytes=5-1", 100).length, is(0));
+    }
+
     @Test
     public void testZip() throws Exception {
         EffectiveBundleExport.ZipBundleResponse zbr = new EffectiveBundleExport.ZipBundleResponse(cascFolder.toFile());
 
         // Generate zip
         File zip = tmp.newFile("test-zip.zip");
-        ZipOutputStream zos = new ZipOutputStream(new FileOutputStream(zip, false));
-        zbr.addZipEntries(zos);
-        zos.close();
+        try (CasCZipWriter zos = new CasCZipWriter(new FileOutputStream(zip, false))) {
+            zbr.addZipEntries(zos);
+        }
 
         // Check file
         File unzipped = tmp.newFolder("unzipped-bundle");
@@ -0,0 +1,129 @@
+package com.cloudbees.opscenter.client.casc;
+
+import com.cloudbees.jenkins.plugins.casc.YamlClientUtils;
+import org.junit.Test;
+import org.kohsuke.stapler.StaplerRequest;
+import org.yaml.snakeyaml.DumperOptions;
+import org.yaml.snakeyaml.Yaml;
+
+import java.io.StringWriter;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ItemsExportScopeTest {
+
+    private static final String INSTANCE =
+            "removeStrategy:\n" +
+            "  rbac: SYNC\n" +
+            "  items: NONE\n" +
+            "items:\n" +
+            "- kind: freeStyle\n" +
+            "  name: top\n" +
+            "- kind: folder\n" +
+            "  name: team-a\n" +
+            "  items:\n" +
+            "  - kind: folder\n" +
+            "    name: sub\n" +
+            "    items:\n" +
+            "    - kind: freeStyle\n" +
+            "      name: nested\n" +
+            "  - kind: freeStyle\n" +
+            "    name: b\n" +
+            "  - kind: freeStyle\n" +
+            "    name: a\n";
+
+    @Test
+    public void folderAndDepth() throws Exception {
+        Map<String, Object> page = write(new ItemsExportScope("team-a", 1, 0, null).select(load(INSTANCE)));
+        assertThat(page.get("removeStrategy"), notNullValue());
+        List<Map<String, Object>> items = items(page);
+        assertThat(items.size(), is(3));
+        assertThat("Sorted by name", items.get(0).get("name"), is("a"));
+        assertThat(items.get(1).get("name"), is("b"));
+        assertThat(items.get(2).get("name"), is("sub"));
+        assertThat("Children beyond the depth are not exported", items.get(2).get("items"), nullValue());
+
+        items = items(write(new ItemsExportScope("team-a", 2, 0, null).select(load(INSTANCE))));
+        assertThat(items(items.get(2)).get(0).get("name"), is("nested"));
+
+        assertThat("Unknown folder", new ItemsExportScope("team-b", 0, 0, null).select(load(INSTANCE)), nullValue());
+    }
+
+    @Test
+    public void paging() throws Exception {
+        ItemsExportScope.Page first = new ItemsExportScope("/team-a/", 0, 2, null).select(load(INSTANCE));
+        assertThat(first.getNextCursor(), is("b"));
+        List<Map<String, Object>> items = items(write(first));
+        assertThat(items.size(), is(2));
+        assertThat(items.get(1).get("name"), is("b"));
+
+        ItemsExportScope.Page second = new ItemsExportScope("team-a", 0, 2, first.getNextCursor()).select(load(INSTANCE));
+        assertThat("Last page", second.getNextCursor(), nullValue());
+        items = items(write(second));
+        assertThat(items.size(), is(1));
+        assertThat(items.get(0).get("name"), is("sub"));
+        assertThat(items(items.get(0)).get(0).get("name"), is("nested"));
+    }
+
+    @Test
+    public void pagesFromTheFolder() throws Exception {
+        ItemsExportScope scope = new ItemsExportScope("team-a", 0, 2, "b");
+        Map<String, Object> folder = scope.folderOf(load(INSTANCE));
+        assertThat(folder.get("removeStrategy"), notNullValue());
+        assertThat("Only the items of the folder are kept", items(folder).size(), is(3));
+        assertThat("Unknown folder", new ItemsExportScope("team-a/a/c", 0, 0, null).folderOf(load(INSTANCE)), nullValue());
+
+        // As cached by the items exporter
+        Map<String, Object> cached = load(dump(folder));
+        List<Map<String, Object>> items = items(write(scope.selectInFolder(cached)));
+        assertThat(items, is(items(write(scope.select(load(INSTANCE))))));
+        assertThat(items.get(0).get("name"), is("sub"));
+        assertThat("The cache depends on the folder only", scope.getCacheName(), is(new ItemsExportScope("/team-a", 1, 0, null).getCacheName()));
+    }
+
+    @Test
+    public void parameters() {
+        StaplerRequest req = mock(StaplerRequest.class);
+        assertThat("Whole instance", ItemsExportScope.from(req), nullValue());
+
+        when(req.getParameter("limit")).thenReturn("0");
+        assertThrows(IllegalArgumentException.class, () -> ItemsExportScope.from(req));
+        when(req.getParameter("limit")).thenReturn("many");
+        assertThrows(IllegalArgumentException.class, () -> ItemsExportScope.from(req));
+        when(req.getParameter("limit")).thenReturn("10");
+        assertThat(ItemsExportScope.from(req), notNullValue());
+    }
+
+    private static Map<String, Object> load(String yaml) {
+        return YamlClientUtils.createDefault().load(yaml);
+    }
+
+    private static Map<String, Object> write(ItemsExportScope.Page page) throws Exception {
+        StringWriter writer = new StringWriter();
+        page.writeTo(writer, newYaml());
+        return load(writer.toString());
+    }
+
+    private static String dump(Map<String, Object> yaml) {
+        return newYaml().dump(yaml);
+    }
+
+    private static Yaml newYaml() {
+        DumperOptions options = new DumperOptions();
+        options.setDefaultFlowStyle(DumperOptions.FlowStyle.BLOCK);
+        return YamlClientUtils.Builder.create().setDumperOptions(options).build();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> items(Map<String, Object> yaml) {
+        return (List<Map<String, Object>>) yaml.get("items");
+    }
+}
@@ -0,0 +1,56 @@
+package com.cloudbees.opscenter.client.casc;
+
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+
+public class ItemsReloadThrottleTest {
+
+    @Test
+    public void rateAdaptsToLatency() {
+        ItemsReloadThrottle throttle = new ItemsReloadThrottle(Thread.currentThread(), 20, 2, 100);
+        assertThat(throttle.getRate(), is(20.0));
+
+        throttle.adjust(150);
+        assertThat("Halved when latency is high", throttle.getRate(), is(10.0));
+        throttle.adjust(150);
+        throttle.adjust(150);
+        throttle.adjust(150);
+        assertThat("Never below the min rate", throttle.getRate(), is(2.0));
+
+        throttle.adjust(50);
+        assertThat("Increased when latency is low", throttle.getRate(), is(3.0));
+        for (int i = 0; i < 50; i++) {
+            throttle.adjust(50);
+        }
+        assertThat("Never above the max rate", throttle.getRate(), is(20.0));
+    }
+
+    @Test
+    public void itemsArePaced() {
+        ItemsReloadThrottle throttle = new ItemsReloadThrottle(Thread.currentThread(), 20, 10, 100);
+        throttle.adjust(500);
+        long start = System.nanoTime();
+        for (int i = 0; i < 5; i++) {
+            throttle.acquire(true);
+        }
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        // 10 items/s, so at least 4 intervals of 100 ms
+        assertThat(elapsedMillis, greaterThan(350L));
+    }
+
+    @Test
+    public void waitIsDeferredWhileHoldingLocks() {
+        ItemsReloadThrottle throttle = new ItemsReloadThrottle(Thread.currentThread(), 10, 10, 100);
+        long start = System.nanoTime();
+        for (int i = 0; i < 5; i++) {
+            assertThat("No wait holding locks", throttle.acquire(false), is(0L));
+        }
+        assertThat((System.nanoTime() - start) / 1_000_000, lessThan(300L));
+        // The slots of the previous items are waited at once
+        assertThat(throttle.acquire(true), greaterThan(350L));
+    }
+}
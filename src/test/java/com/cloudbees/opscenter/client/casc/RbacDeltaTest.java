@@ -0,0 +1,187 @@
+package com.cloudbees.opscenter.client.casc;
+
+import com.cloudbees.jenkins.plugins.casc.YamlClientUtils;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+
+public class RbacDeltaTest {
+
+    private static final String CURRENT = "roles:\n"
+                                          + "- name: developer\n"
+                                          + "  filterable: true\n"
+                                          + "  permissions:\n"
+                                          + "  - hudson.model.Item.Configure\n"
+                                          + "  - hudson.model.Hudson.Read\n"
+                                          + "- name: browser\n"
+                                          + "  filterable: true\n"
+                                          + "  permissions:\n"
+                                          + "  - hudson.model.Hudson.Read\n"
+                                          + "- name: old\n"
+                                          + "  permissions:\n"
+                                          + "  - hudson.model.Hudson.Read\n"
+                                          + "groups:\n"
+                                          + "- name: Developers\n"
+                                          + "  members:\n"
+                                          + "    external_groups:\n"
+                                          + "    - ldap-developers\n"
+                                          + "  roles:\n"
+                                          + "  - name: developer\n"
+                                          + "    grantedAt: current\n"
+                                          + "    propagates: true\n";
+
+    private static final String DESIRED = "removeStrategy:\n"
+                                          + "  rbac: sync\n"
+                                          + "roles:\n"
+                                          + "- name: developer\n"
+                                          + "  filterable: \"true\"\n"
+                                          + "  permissions:\n"
+                                          + "  - hudson.model.Hudson.Read\n"
+                                          + "  - hudson.model.Item.Configure\n"
+                                          + "- name: browser\n"
+                                          + "  filterable: \"true\"\n"
+                                          + "  permissions:\n"
+                                          + "  - hudson.model.Hudson.Read\n"
+                                          + "  - hudson.model.Item.Read\n"
+                                          + "- name: new\n"
+                                          + "groups:\n"
+                                          + "- name: Developers\n"
+                                          + "  members:\n"
+                                          + "    external_groups:\n"
+                                          + "    - ldap-developers\n"
+                                          + "  roles:\n"
+                                          + "  - name: developer\n";
+
+    @Test
+    public void deltaIgnoresOrderAndDefaults() {
+        Map<String, Object> current = YamlClientUtils.createDefault().load(CURRENT);
+        Map<String, Object> desired = YamlClientUtils.createDefault().load(DESIRED);
+
+        RbacDelta delta = RbacDelta.calculate(current, Collections.singletonList(desired), true);
+        assertThat(delta.getRolesToAdd(), contains("new"));
+        assertThat(delta.getRolesToUpdate(), contains("browser"));
+        assertThat(delta.getRolesToRemove(), contains("old"));
+        assertThat("Same group with default values", delta.getGroupsToUpdate(), empty());
+        assertThat(delta.getGroupsToAdd(), empty());
+        assertThat(delta.getGroupsToRemove(), empty());
+        assertThat(delta.getSize(), is(3));
+    }
+
+    @Test
+    public void nothingRemovedWithoutSync() {
+        Map<String, Object> current = YamlClientUtils.createDefault().load(CURRENT);
+        Map<String, Object> desired = YamlClientUtils.createDefault().load(DESIRED);
+
+        RbacDelta delta = RbacDelta.calculate(current, Collections.singletonList(desired), false);
+        assertThat(delta.getRolesToRemove(), empty());
+    }
+
+    @Test
+    public void sameConfigurationIsEmpty() {
+        Map<String, Object> current = YamlClientUtils.createDefault().load(CURRENT);
+
+        RbacDelta delta = RbacDelta.calculate(current, Collections.singletonList(current), true);
+        assertThat(delta.isEmpty(), is(true));
+        assertThat(delta.isExact(), is(true));
+    }
+
+    @Test
+    public void sameEntriesInAnotherOrderAreExact() {
+        Map<String, Object> current = load("roles:\n"
+                                           + "- name: developer\n"
+                                           + "  filterable: true\n"
+                                           + "- name: browser\n"
+                                           + "  filterable: true\n");
+        Map<String, Object> desired = load("removeStrategy:\n"
+                                           + "  rbac: sync\n"
+                                           + "roles:\n"
+                                           + "- name: browser\n"
+                                           + "  filterable: \"true\"\n"
+                                           + "- name: developer\n"
+                                           + "  filterable: true\n");
+
+        RbacDelta delta = RbacDelta.calculate(current, Collections.singletonList(desired), true);
+        assertThat(delta.isEmpty(), is(true));
+        assertThat(delta.isExact(), is(true));
+    }
+
+    @Test
+    public void rolesWithDefaultFieldsAreNotExact() {
+        Map<String, Object> current = load("roles:\n"
+                                           + "- name: browser\n"
+                                           + "  permissions:\n"
+                                           + "  - hudson.model.Hudson.Read\n"
+                                           + "- name: empty\n");
+        Map<String, Object> desired = load("roles:\n"
+                                           + "- name: browser\n"
+                                           + "  filterable: false\n"
+                                           + "  permissions:\n"
+                                           + "  - hudson.model.Hudson.Read\n"
+                                           + "- name: empty\n"
+                                           + "  permissions: []\n");
+
+        RbacDelta delta = RbacDelta.calculate(current, Collections.singletonList(desired), true);
+        assertThat("Same roles with the default values", delta.isEmpty(), is(true));
+        assertThat("Defaults are not assumed to skip the synchronization", delta.isExact(), is(false));
+    }
+
+    @Test
+    public void groupsWithDefaultOrEmptyFieldsAreNotExact() {
+        Map<String, Object> current = load("groups:\n"
+                                           + "- name: Developers\n"
+                                           + "  members: {}\n"
+                                           + "  roles:\n"
+                                           + "  - name: developer\n"
+                                           + "    grantedAt: current\n"
+                                           + "    propagates: true\n");
+        Map<String, Object> desired = load("groups:\n"
+                                           + "- name: Developers\n"
+                                           + "  roles:\n"
+                                           + "  - name: developer\n");
+
+        RbacDelta delta = RbacDelta.calculate(current, Collections.singletonList(desired), false);
+        assertThat("Same group with the default values", delta.isEmpty(), is(true));
+        assertThat("Defaults are not assumed to skip the synchronization", delta.isExact(), is(false));
+    }
+
+    @Test
+    public void reorderedMembersAreNotExact() {
+        String group = "groups:\n"
+                       + "- name: Developers\n"
+                       + "  members:\n"
+                       + "    users:\n"
+                       + "    - %s\n"
+                       + "    - %s\n";
+        Map<String, Object> current = load(String.format(group, "alice", "bob"));
+        Map<String, Object> desired = load(String.format(group, "bob", "alice"));
+
+        RbacDelta delta = RbacDelta.calculate(current, Collections.singletonList(desired), true);
+        assertThat("Same members in another order", delta.isEmpty(), is(true));
+        assertThat("Order is not assumed to be irrelevant to skip the synchronization", delta.isExact(), is(false));
+
+        delta = RbacDelta.calculate(current, Collections.singletonList(current), true);
+        assertThat(delta.isExact(), is(true));
+    }
+
+    @Test
+    public void otherSectionsAreNotExact() {
+        Map<String, Object> current = YamlClientUtils.createDefault().load(CURRENT);
+        Map<String, Object> desired = new LinkedHashMap<>(current);
+        desired.put("permissions", Collections.singletonList("hudson.model.Hudson.Read"));
+
+        RbacDelta delta = RbacDelta.calculate(current, Collections.singletonList(desired), true);
+        assertThat(delta.isEmpty(), is(true));
+        assertThat("Unknown sections are not compared", delta.isExact(), is(false));
+    }
+
+    private static Map<String, Object> load(String yaml) {
+        return YamlClientUtils.createDefault().load(yaml);
+    }
+}
@@ -0,0 +1,70 @@
+package com.cloudbees.opscenter.client.casc;
+
+import net.sf.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+
+public class ReloadMetricsTest {
+
+    @Before
+    @After
+    public void clear() {
+        ReloadMetrics.INSTANCE.clear();
+    }
+
+    @Test
+    public void savesOnlyCountedWhileReloading() {
+        ReloadMetrics.SaveCounter counter = new ReloadMetrics.SaveCounter();
+        counter.onChange(() -> {}, null);
+        assertThat("Not reloading", ReloadMetrics.INSTANCE.getSaves(), is(0L));
+
+        ReloadMetrics.INSTANCE.reloadStarted();
+        counter.onChange(() -> {}, null);
+        counter.onChange(() -> {}, null);
+        ReloadMetrics.INSTANCE.sectionReloaded("items", 10, 3, 2);
+        ReloadMetrics.INSTANCE.reloadFinished();
+        counter.onChange(() -> {}, null);
+
+        ReloadMetrics.Reload last = ReloadMetrics.INSTANCE.getLast();
+        assertThat(last, notNullValue());
+        assertThat(last.getSaves(), is(2L));
+        assertThat(last.getSections().get("items").getWriteMillis(), is(3L));
+
+        JSONObject json = ReloadMetrics.INSTANCE.toJSON();
+        assertThat(json.getJSONObject("last").getLong("saves"), is(2L));
+        assertThat(json.getJSONObject("last").getJSONObject("sections").getJSONObject("items").getLong("saves"), is(2L));
+        assertThat(json.getJSONArray("history").size(), is(1));
+    }
+
+    @Test
+    public void historyIsBounded() {
+        for (int i = 0; i < ReloadMetrics.MAX_HISTORY + 5; i++) {
+            ReloadMetrics.INSTANCE.reloadStarted();
+            ReloadMetrics.INSTANCE.reloadFinished();
+        }
+        assertThat(ReloadMetrics.INSTANCE.getHistory().size(), is(ReloadMetrics.MAX_HISTORY));
+    }
+
+    @Test
+    public void estimationFromHistory() {
+        assertThat("No history", ReloadMetrics.INSTANCE.estimateMillis("items"), nullValue());
+
+        ReloadMetrics.INSTANCE.reloadStarted();
+        ReloadMetrics.INSTANCE.sectionReloaded("items", 10, 0, 0);
+        ReloadMetrics.INSTANCE.reloadFinished();
+        ReloadMetrics.INSTANCE.reloadStarted();
+        ReloadMetrics.INSTANCE.sectionReloaded("items", 30, 0, 0);
+        ReloadMetrics.INSTANCE.sectionReloaded("jcasc", 5, 0, 0);
+        ReloadMetrics.INSTANCE.reloadFinished();
+
+        assertThat(ReloadMetrics.INSTANCE.estimateMillis("items"), is(20L));
+        assertThat(ReloadMetrics.INSTANCE.estimateMillis("jcasc"), is(5L));
+        assertThat("Section never reloaded", ReloadMetrics.INSTANCE.estimateMillis("rbac"), nullValue());
+    }
+}
@@ -0,0 +1,92 @@
+package com.cloudbees.opscenter.client.casc;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+
+public class ReloadProgressTest {
+
+    @Before
+    @After
+    public void clear() {
+        ReloadProgress.INSTANCE.clear();
+    }
+
+    @Test
+    public void eventsAfterSequence() {
+        long start = ReloadProgress.INSTANCE.getLastSequence();
+        ReloadProgress.INSTANCE.reloadStarted("bundle:1");
+        ReloadProgress.INSTANCE.sectionStarted("items");
+        ReloadProgress.INSTANCE.progress("items", 1, 2, "folder");
+        ReloadProgress.INSTANCE.sectionFinished("items");
+        ReloadProgress.INSTANCE.reloadFinished(true);
+
+        List<ReloadProgress.Event> events = ReloadProgress.INSTANCE.getEventsSince(start);
+        assertThat(events.stream().map(ReloadProgress.Event::getType).collect(Collectors.toList()),
+                   contains(ReloadProgress.EventType.RELOAD_STARTED, ReloadProgress.EventType.SECTION_STARTED, ReloadProgress.EventType.PROGRESS,
+                            ReloadProgress.EventType.SECTION_FINISHED, ReloadProgress.EventType.RELOAD_FINISHED));
+        assertThat(events.get(2).toJSON().getInt("processed"), is(1));
+        assertThat(events.get(2).toJSON().getInt("total"), is(2));
+        assertThat(events.get(4).toJSON().getString("type"), is("reload-finished"));
+        assertThat("Nothing after the last event", ReloadProgress.INSTANCE.getEventsSince(ReloadProgress.INSTANCE.getLastSequence()), empty());
+        assertThat(ReloadProgress.INSTANCE.isInProgress(), is(false));
+    }
+
+    @Test
+    public void followUntilReloadFinishes() throws Exception {
+        ReloadProgress.INSTANCE.reloadStarted("bundle:2");
+        List<String> received = new ArrayList<>();
+        CompletableFuture<Long> follower = CompletableFuture.supplyAsync(() -> {
+            try {
+                return ReloadProgress.INSTANCE.follow(-1, event -> received.add(event.getType() + ":" + event.getSection()));
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        ReloadProgress.INSTANCE.sectionStarted("jcasc");
+        ReloadProgress.INSTANCE.sectionFinished("jcasc");
+        ReloadProgress.INSTANCE.reloadFinished(true);
+
+        long last = follower.get(10, TimeUnit.SECONDS);
+        assertThat(last, is(ReloadProgress.INSTANCE.getLastSequence()));
+        assertThat(received, contains("RELOAD_STARTED:null", "SECTION_STARTED:jcasc", "SECTION_FINISHED:jcasc", "RELOAD_FINISHED:null"));
+    }
+
+    @Test
+    public void followWithoutReloadReturnsImmediately() throws Exception {
+        List<ReloadProgress.Event> received = new ArrayList<>();
+        long last = ReloadProgress.INSTANCE.follow(ReloadProgress.INSTANCE.getLastSequence(), received::add);
+        assertThat(received, empty());
+        assertThat(last, is(ReloadProgress.INSTANCE.getLastSequence()));
+    }
+
+    @Test
+    public void errorReportedOnce() {
+        ReloadProgress.INSTANCE.reloadStarted("bundle:3");
+        ReloadProgress.INSTANCE.sectionStarted("rbac");
+        ReloadProgress.INSTANCE.error("rbac", "Invalid role");
+        ReloadProgress.INSTANCE.reloadFailed("Invalid role");
+        ReloadProgress.INSTANCE.reloadFinished(false);
+        ReloadProgress.INSTANCE.reloadStarted("bundle:4");
+        ReloadProgress.INSTANCE.reloadFailed("Bundle is not hot reloadable");
+        ReloadProgress.INSTANCE.reloadFinished(false);
+
+        List<String> errors = ReloadProgress.INSTANCE.getEventsSince(0).stream()
+                                                     .filter(event -> event.getType() == ReloadProgress.EventType.ERROR)
+                                                     .map(event -> event.getSection() + ":" + event.getMessage())
+                                                     .collect(Collectors.toList());
+        assertThat(errors, contains("rbac:Invalid role", "null:Bundle is not hot reloadable"));
+    }
+}
@@ -10,6 +10,7 @@ import hudson.cli.CLICommandInvoker;
 import com.cloudbees.jenkins.cjp.installmanager.WithEnvelope;
 import com.cloudbees.opscenter.client.casc.AbstractBundleVersionCheckerTest;
 import com.cloudbees.opscenter.client.casc.ConfigurationStatus;
+import com.cloudbees.opscenter.client.casc.ReloadProgress;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
@@ -35,6 +36,24 @@ public class BundleReloadInProgressCommandTest extends AbstractBundleVersionChec
         assertThat("in-progress is true", JSONObject.fromObject(result.stdout()).getBoolean("reload-in-progress"), is(false));
     }
 
+    @Test
+    @WithEnvelope(TestEnvelope.class)
+    public void follow_reload_events() throws Exception {
+        // Simulate a completed bundle reload
+        ReloadProgress.INSTANCE.reloadStarted("bundle:1");
+        ReloadProgress.INSTANCE.sectionStarted("items");
+        ReloadProgress.INSTANCE.sectionFinished("items");
+        ReloadProgress.INSTANCE.reloadFinished(true);
+
+        CLICommandInvoker.Result result = new CLICommandInvoker(rule, BundleReloadInProgressCommand.COMMAND_NAME).asUser(admin.getId()).invoke("--follow");
+        String[] lines = result.stdout().trim().split("\\R");
+        assertThat("4 events and the final status", lines.length, is(5));
+        assertThat(JSONObject.fromObject(lines[0]).getString("type"), is("reload-started"));
+        assertThat(JSONObject.fromObject(lines[1]).getString("section"), is("items"));
+        assertThat(JSONObject.fromObject(lines[3]).getString("message"), is("success"));
+        assertThat(JSONObject.fromObject(lines[4]).getBoolean("reload-in-progress"), is(false));
+    }
+
 
 
 }
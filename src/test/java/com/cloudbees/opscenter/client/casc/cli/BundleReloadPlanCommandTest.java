@@ -0,0 +1,55 @@
+package com.cloudbees.opscenter.client.casc.cli;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.jvnet.hudson.test.FlagRule;
+import net.sf.json.JSONObject;
+
+import hudson.cli.CLICommandInvoker;
+import hudson.model.FreeStyleProject;
+
+import com.cloudbees.jenkins.cjp.installmanager.WithConfigBundle;
+import com.cloudbees.jenkins.cjp.installmanager.WithEnvelope;
+import com.cloudbees.opscenter.client.casc.AbstractBundleVersionCheckerTest;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+
+public class BundleReloadPlanCommandTest extends AbstractBundleVersionCheckerTest {
+
+    /**
+     * Rule to restore system props after modifying them in a test: Enable the Jenkins.SYSTEM_READ permission
+     */
+    @ClassRule
+    public static final FlagRule<String> systemReadProp = FlagRule.systemProperty("jenkins.security.SystemReadPermission", "true");
+
+    @Test
+    @WithEnvelope(TestEnvelope.class)
+    @WithConfigBundle("src/test/resources/com/cloudbees/opscenter/client/casc/CheckBundleDeletionsHttpEndpointTest/none")
+    public void reloadPlanTest() throws IOException {
+        // Bundle "none" contains 3 folders and the sync strategy for the items is "none".
+        rule.jenkins.createProject(FreeStyleProject.class, "to-be-deleted");
+
+        // Bundle "sync" contains only 2 folders, and the sync strategy for the items is "sync".
+        System.setProperty("core.casc.config.bundle",
+                           Paths.get("src/test/resources/com/cloudbees/opscenter/client/casc/CheckBundleDeletionsHttpEndpointTest/sync").toFile().getAbsolutePath());
+        new CLICommandInvoker(rule, BundleVersionCheckerCommand.COMMAND_NAME).asUser(admin.getId()).invoke();
+
+        CLICommandInvoker.Result result = new CLICommandInvoker(rule, BundleReloadPlanCommand.COMMAND_NAME).asUser(admin.getId()).invoke();
+        assertThat("Command should end correctly", result.returnCode(), is(0));
+        JSONObject plan = JSONObject.fromObject(result.stdout());
+        assertThat("Items are reloaded", plan.getJSONObject("sections").has("items"), is(true));
+        JSONObject items = plan.getJSONObject("items");
+        assertThat("Folders in the bundle are updated", items.getJSONArray("update"), containsInAnyOrder("first-folder", "second-folder"));
+        assertThat("Nothing new to create", items.getJSONArray("create"), empty());
+        assertThat("Items not in the bundle are deleted", items.getJSONArray("deletions"), hasSize(2));
+        assertThat("Nothing is applied", rule.jenkins.getItem("to-be-deleted") != null, is(true));
+        assertThat("Estimation is present", plan.getJSONObject("estimation").has("estimated-millis"), is(true));
+    }
+}
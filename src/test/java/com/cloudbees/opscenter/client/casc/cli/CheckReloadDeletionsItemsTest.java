@@ -2,6 +2,7 @@ package com.cloudbees.opscenter.client.casc.cli;
 
 import java.io.IOException;
 import java.nio.file.Paths;
+import java.util.List;
 
 import org.junit.ClassRule;
 import org.junit.Test;
@@ -9,20 +10,25 @@ import org.jvnet.hudson.test.FlagRule;
 import org.jvnet.hudson.test.Issue;
 import net.sf.json.JSONObject;
 
+import hudson.ExtensionList;
 import hudson.cli.CLICommandInvoker;
 import hudson.model.FreeStyleProject;
 
 import com.cloudbees.jenkins.cjp.installmanager.WithConfigBundle;
 import com.cloudbees.jenkins.cjp.installmanager.WithEnvelope;
+import com.cloudbees.jenkins.cjp.installmanager.casc.ConfigurationBundle;
 import com.cloudbees.jenkins.cjp.installmanager.casc.ConfigurationBundleManager;
 import com.cloudbees.opscenter.client.casc.AbstractBundleVersionCheckerTest;
+import com.cloudbees.opscenter.client.casc.ConfigurationBundleService;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
 
 public class CheckReloadDeletionsItemsTest extends AbstractBundleVersionCheckerTest {
 
@@ -88,4 +94,24 @@ public class CheckReloadDeletionsItemsTest extends AbstractBundleVersionCheckerT
         assertThat("to-be-deleted should be in the response", jsonResult.getJSONObject("items").getJSONArray("deletions"), containsInAnyOrder("to-be-deleted", "to-be-deleted-too", "folder-to-be-deleted"));
         assertThat("The instance still has 5 items", rule.jenkins.getAllItems(), hasSize(5));
     }
+
+    @Test
+    @WithEnvelope(TestEnvelope.class)
+    @WithConfigBundle("src/test/resources/com/cloudbees/opscenter/client/casc/CheckBundleDeletionsHttpEndpointTest/sync")
+    public void deletionsAreCachedUntilItemsChange() throws Exception {
+        ConfigurationBundleService service = ExtensionList.lookupSingleton(ConfigurationBundleService.class);
+        ConfigurationBundle bundle = ConfigurationBundleManager.get().getConfigurationBundle();
+        List<String> deletions = service.getDeletionsOnReload(bundle);
+        assertThat("No deletions", deletions, empty());
+        assertThat("Cached while there are no changes", service.getDeletionsOnReload(bundle), sameInstance(deletions));
+
+        FreeStyleProject project = rule.jenkins.createProject(FreeStyleProject.class, "to-be-deleted");
+        assertThat("Recalculated after creating an item", service.getDeletionsOnReload(bundle), contains("to-be-deleted"));
+
+        project.renameTo("renamed");
+        assertThat("Recalculated after renaming an item", service.getDeletionsOnReload(bundle), contains("renamed"));
+
+        project.delete();
+        assertThat("Recalculated after deleting an item", service.getDeletionsOnReload(bundle), empty());
+    }
 }
@@ -0,0 +1,27 @@
+package com.cloudbees.opscenter.client.casc.config;
+
+import java.time.LocalTime;
+
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class AutomaticReloadSchedulingConfigurationTest {
+
+    @Test
+    public void maintenanceWindow() {
+        assertThat("No window", AutomaticReloadSchedulingConfiguration.isInWindow(null, LocalTime.of(12, 0)), is(true));
+        assertThat("Invalid window is ignored", AutomaticReloadSchedulingConfiguration.isInWindow("noon", LocalTime.of(12, 0)), is(true));
+
+        assertThat(AutomaticReloadSchedulingConfiguration.isInWindow("08:00-10:30", LocalTime.of(8, 0)), is(true));
+        assertThat(AutomaticReloadSchedulingConfiguration.isInWindow("08:00-10:30", LocalTime.of(10, 29)), is(true));
+        assertThat(AutomaticReloadSchedulingConfiguration.isInWindow("08:00-10:30", LocalTime.of(10, 30)), is(false));
+        assertThat(AutomaticReloadSchedulingConfiguration.isInWindow("08:00-10:30", LocalTime.of(7, 59)), is(false));
+
+        // Through midnight
+        assertThat(AutomaticReloadSchedulingConfiguration.isInWindow("22:00-04:00", LocalTime.of(23, 0)), is(true));
+        assertThat(AutomaticReloadSchedulingConfiguration.isInWindow("22:00-04:00", LocalTime.of(3, 0)), is(true));
+        assertThat(AutomaticReloadSchedulingConfiguration.isInWindow("22:00-04:00", LocalTime.of(12, 0)), is(false));
+    }
+}